@@ -0,0 +1,309 @@
+package com.sistemateatromoro;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Locale;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.IntStream;
+
+/**
+ * Analítica de ventas de un evento: guarda el precio y el descuento de cada venta en un arreglo plano de
+ * primitivos, sin objetos por venta, y calcula ingresos, ocupación y descuentos por sección, tipo de
+ * cliente y condición de estudiante.
+ *
+ * Cada venta vigente ocupa la fila de su asiento, así la memoria depende de la capacidad del evento y no
+ * de cuántas veces se vendió y anuló cada asiento. Una fila son dos long contiguos (una sola línea de caché):
+ * el precio pagado y una palabra con el porcentaje de descuento, la celda (sección, tipo y estudiante) y la
+ * marca de vendida. Registrar o anular una venta solo escribe su fila, sin bloqueos. Un reporte recorre las
+ * filas en tramos de {@value #FILAS_TRAMO} en paralelo con el pool fork-join común, acumulando por celda
+ * en arreglos pequeños que luego se combinan.
+ */
+public class AnaliticaVentas {
+    public static final int TODOS = -1;                       // Comodín para no filtrar una dimensión
+    public static final String[] TIPOS = {"niño", "adulto", "tercera edad", "otro"}; // Tipos de cliente (Cliente.getTipo())
+
+    private static final int FILAS_TRAMO = 1 << 16;           // Filas que recorre cada tarea de un reporte
+    private static final int GRUPOS = TIPOS.length * 2;       // Combinaciones de tipo y estudiante por sección
+    private static final long VENDIDA = 1L << 63;             // Marca de fila con una venta vigente
+    private static final VarHandle FILAS = MethodHandles.arrayElementVarHandle(long[].class);
+
+    private final MapaAsientos mapa;   // Secciones del evento
+    private final long[] filas;        // Por asiento: [2i] bits del precio, [2i + 1] VENDIDA | celda << 32 | bits del porcentaje
+    private final LongAdder anuladas;  // Ventas anuladas
+
+    /**
+     * Acumulador de un reporte, por celda.
+     */
+    private static final class Acumulador {
+        private final long[] vendidas;    // Ventas vigentes por celda
+        private final double[] ingresos;  // Suma de precios por celda
+        private final double[] descuentos; // Suma de montos descontados por celda
+
+        /**
+         * Constructor para inicializar un acumulador vacío.
+         *
+         * @param celdas Cantidad de celdas.
+         */
+        Acumulador(int celdas) {
+            this.vendidas = new long[celdas];
+            this.ingresos = new double[celdas];
+            this.descuentos = new double[celdas];
+        }
+
+        /**
+         * Acumula las filas vendidas de un tramo.
+         *
+         * @param analitica Analítica a recorrer.
+         * @param tramo     Índice del tramo.
+         */
+        void sumar(AnaliticaVentas analitica, int tramo) {
+            long[] filas = analitica.filas;
+            int desde = tramo * FILAS_TRAMO * 2;
+            int hasta = Math.min(desde + FILAS_TRAMO * 2, filas.length);
+            for (int i = desde; i < hasta; i += 2) {
+                long palabra = (long) FILAS.getAcquire(filas, i + 1);
+                if (palabra < 0) { // Marca VENDIDA en el bit de signo
+                    int celda = (int) (palabra >>> 32) & 0x7FFF_FFFF;
+                    double precio = Double.longBitsToDouble(filas[i]);
+                    float porcentaje = Float.intBitsToFloat((int) palabra);
+                    vendidas[celda]++;
+                    ingresos[celda] += precio;
+                    // El precio base no se guarda: el descuento se deduce del precio pagado y el porcentaje
+                    if (porcentaje > 0 && porcentaje < 100) {
+                        descuentos[celda] += precio * porcentaje / (100 - porcentaje);
+                    }
+                }
+            }
+        }
+
+        /**
+         * Suma otro acumulador a este.
+         *
+         * @param otro Acumulador de otra parte de los bloques.
+         */
+        void combinar(Acumulador otro) {
+            for (int i = 0; i < vendidas.length; i++) {
+                vendidas[i] += otro.vendidas[i];
+                ingresos[i] += otro.ingresos[i];
+                descuentos[i] += otro.descuentos[i];
+            }
+        }
+    }
+
+    /**
+     * Reporte de ventas calculado en un momento dado.
+     */
+    public static class Reporte {
+        private final MapaAsientos mapa;    // Secciones del evento
+        private final Acumulador totales;   // Totales por celda
+        private final long anuladas;        // Ventas anuladas
+
+        /**
+         * Constructor para inicializar un reporte.
+         *
+         * @param mapa     Secciones del evento.
+         * @param totales  Totales por celda.
+         * @param anuladas Ventas anuladas.
+         */
+        Reporte(MapaAsientos mapa, Acumulador totales, long anuladas) {
+            this.mapa = mapa;
+            this.totales = totales;
+            this.anuladas = anuladas;
+        }
+
+        /**
+         * Obtiene la cantidad de ventas vigentes que cumplen un filtro.
+         *
+         * @param idSeccion  Id de la sección, o {@link #TODOS}.
+         * @param tipo       Índice en {@link #TIPOS}, o {@link #TODOS}.
+         * @param estudiante 1 para estudiantes, 0 para no estudiantes, o {@link #TODOS}.
+         * @return Cantidad de entradas vendidas.
+         */
+        public long getVendidas(int idSeccion, int tipo, int estudiante) {
+            long suma = 0;
+            for (int celda = 0; celda < totales.vendidas.length; celda++) {
+                if (cumple(celda, idSeccion, tipo, estudiante)) {
+                    suma += totales.vendidas[celda];
+                }
+            }
+            return suma;
+        }
+
+        /**
+         * Obtiene los ingresos de las ventas vigentes que cumplen un filtro.
+         *
+         * @param idSeccion  Id de la sección, o {@link #TODOS}.
+         * @param tipo       Índice en {@link #TIPOS}, o {@link #TODOS}.
+         * @param estudiante 1 para estudiantes, 0 para no estudiantes, o {@link #TODOS}.
+         * @return Suma de los precios pagados.
+         */
+        public double getIngresos(int idSeccion, int tipo, int estudiante) {
+            return sumar(totales.ingresos, idSeccion, tipo, estudiante);
+        }
+
+        /**
+         * Obtiene el monto descontado en las ventas vigentes que cumplen un filtro.
+         *
+         * @param idSeccion  Id de la sección, o {@link #TODOS}.
+         * @param tipo       Índice en {@link #TIPOS}, o {@link #TODOS}.
+         * @param estudiante 1 para estudiantes, 0 para no estudiantes, o {@link #TODOS}.
+         * @return Suma de los descuentos otorgados sobre el precio base.
+         */
+        public double getDescuentos(int idSeccion, int tipo, int estudiante) {
+            return sumar(totales.descuentos, idSeccion, tipo, estudiante);
+        }
+
+        /**
+         * Obtiene la ocupación de una sección por entradas vendidas.
+         *
+         * @param idSeccion Id de la sección, o {@link #TODOS} para todo el evento.
+         * @return Fracción de asientos vendidos, entre 0 y 1.
+         */
+        public double getOcupacion(int idSeccion) {
+            int capacidad = idSeccion == TODOS ? mapa.getCapacidad() : mapa.fin(idSeccion) - mapa.inicio(idSeccion);
+            return capacidad == 0 ? 0 : (double) getVendidas(idSeccion, TODOS, TODOS) / capacidad;
+        }
+
+        /**
+         * Obtiene la cantidad de ventas anuladas.
+         *
+         * @return Entradas anuladas.
+         */
+        public long getAnuladas() {
+            return anuladas;
+        }
+
+        /**
+         * Escribe el reporte en texto: totales y desgloses por sección, tipo de cliente y estudiante.
+         *
+         * @param salida Buffer donde se agregan las líneas.
+         */
+        public void escribir(StringBuilder salida) {
+            salida.append(String.format(Locale.US, "Total: %d vendidas, %d anuladas, ingresos $%,.0f, descuentos $%,.0f, ocupación %.1f%%%n",
+                    getVendidas(TODOS, TODOS, TODOS), getAnuladas(), getIngresos(TODOS, TODOS, TODOS),
+                    getDescuentos(TODOS, TODOS, TODOS), getOcupacion(TODOS) * 100));
+            salida.append("Por sección:").append(System.lineSeparator());
+            for (int id = 0; id < mapa.getCantidadSecciones(); id++) {
+                salida.append(String.format(Locale.US, "  %-14s %8d vendidas  $%,14.0f  descuentos $%,12.0f  ocupación %5.1f%%%n",
+                        mapa.nombreSeccion(id), getVendidas(id, TODOS, TODOS), getIngresos(id, TODOS, TODOS),
+                        getDescuentos(id, TODOS, TODOS), getOcupacion(id) * 100));
+            }
+            salida.append("Por tipo de cliente:").append(System.lineSeparator());
+            for (int tipo = 0; tipo < TIPOS.length; tipo++) {
+                salida.append(String.format(Locale.US, "  %-14s %8d vendidas  $%,14.0f  descuentos $%,12.0f%n",
+                        TIPOS[tipo], getVendidas(TODOS, tipo, TODOS), getIngresos(TODOS, tipo, TODOS),
+                        getDescuentos(TODOS, tipo, TODOS)));
+            }
+            salida.append("Por condición de estudiante:").append(System.lineSeparator());
+            for (int estudiante = 1; estudiante >= 0; estudiante--) {
+                salida.append(String.format(Locale.US, "  %-14s %8d vendidas  $%,14.0f  descuentos $%,12.0f%n",
+                        estudiante == 1 ? "estudiante" : "no estudiante", getVendidas(TODOS, TODOS, estudiante),
+                        getIngresos(TODOS, TODOS, estudiante), getDescuentos(TODOS, TODOS, estudiante)));
+            }
+        }
+
+        /**
+         * Suma una columna de los totales sobre las celdas que cumplen un filtro.
+         *
+         * @param columna    Columna de los totales.
+         * @param idSeccion  Id de la sección, o {@link #TODOS}.
+         * @param tipo       Índice del tipo, o {@link #TODOS}.
+         * @param estudiante 1, 0 o {@link #TODOS}.
+         * @return Suma de la columna.
+         */
+        private double sumar(double[] columna, int idSeccion, int tipo, int estudiante) {
+            double suma = 0;
+            for (int celda = 0; celda < columna.length; celda++) {
+                if (cumple(celda, idSeccion, tipo, estudiante)) {
+                    suma += columna[celda];
+                }
+            }
+            return suma;
+        }
+
+        /**
+         * Indica si una celda cumple un filtro.
+         *
+         * @param celda      Celda.
+         * @param idSeccion  Id de la sección, o {@link #TODOS}.
+         * @param tipo       Índice del tipo, o {@link #TODOS}.
+         * @param estudiante 1, 0 o {@link #TODOS}.
+         * @return true si la celda cumple el filtro.
+         */
+        private static boolean cumple(int celda, int idSeccion, int tipo, int estudiante) {
+            return (idSeccion == TODOS || celda / GRUPOS == idSeccion)
+                    && (tipo == TODOS || celda % GRUPOS / 2 == tipo)
+                    && (estudiante == TODOS || celda % 2 == estudiante);
+        }
+    }
+
+    /**
+     * Constructor para inicializar la analítica de un evento.
+     *
+     * @param mapa Secciones del evento.
+     */
+    public AnaliticaVentas(MapaAsientos mapa) {
+        this.mapa = mapa;
+        this.filas = new long[mapa.getCapacidad() * 2];
+        this.anuladas = new LongAdder();
+    }
+
+    /**
+     * Obtiene el índice en {@link #TIPOS} del tipo de un cliente.
+     *
+     * @param cliente Cliente.
+     * @return Índice del tipo; los tipos desconocidos cuentan como "otro".
+     */
+    public static int tipoDe(Cliente cliente) {
+        switch (cliente.getTipo()) {
+            case "niño":
+                return 0;
+            case "adulto":
+                return 1;
+            case "tercera edad":
+                return 2;
+            default:
+                return 3;
+        }
+    }
+
+    /**
+     * Registra una venta. Es seguro llamarlo desde varios hilos, cada uno con un asiento distinto.
+     *
+     * @param entrada Entrada vendida.
+     */
+    public void registrar(Entrada entrada) {
+        int fila = entrada.getIndiceAsiento();
+        Cliente cliente = entrada.getCliente();
+        long celda = mapa.seccionDe(fila) * GRUPOS + tipoDe(cliente) * 2 + (cliente.isEstudiante() ? 1 : 0);
+        filas[2 * fila] = Double.doubleToRawLongBits(entrada.getPrecio());
+        FILAS.setRelease(filas, 2 * fila + 1, VENDIDA | celda << 32
+                | Float.floatToRawIntBits((float) entrada.getPorcentajeDescuento()) & 0xFFFF_FFFFL); // Publica la fila
+    }
+
+    /**
+     * Marca una venta como anulada; deja de contar en ingresos y ocupación.
+     * Debe llamarse antes de liberar el asiento, para no borrar la fila de una nueva venta del mismo asiento.
+     *
+     * @param entrada Entrada anulada.
+     */
+    public void anular(Entrada entrada) {
+        FILAS.setRelease(filas, 2 * entrada.getIndiceAsiento() + 1, 0L);
+        anuladas.increment();
+    }
+
+    /**
+     * Calcula el reporte de ventas recorriendo las filas en paralelo.
+     * Las ventas registradas durante el cálculo pueden quedar o no incluidas.
+     *
+     * @return Reporte con los totales del momento.
+     */
+    public Reporte generarReporte() {
+        int celdas = mapa.getCantidadSecciones() * GRUPOS;
+        int tramos = (mapa.getCapacidad() + FILAS_TRAMO - 1) / FILAS_TRAMO;
+        Acumulador totales = IntStream.range(0, tramos).parallel()
+                .collect(() -> new Acumulador(celdas), (acumulador, tramo) -> acumulador.sumar(this, tramo),
+                        Acumulador::combinar);
+        return new Reporte(mapa, totales, anuladas.sum());
+    }
+}
\ No newline at end of file
@@ -4,11 +4,15 @@ package com.sistemateatromoro;
  * Clase que representa un asiento en el Teatro Moro.
  * Cada asiento pertenece a una sección y tiene un número de asiento único.
  * Además, se puede marcar como disponible o no disponible para su asignación.
+ * Los asientos obtenidos desde {@link VentaEntradas} son vistas livianas: no guardan estado propio
+ * y leen o modifican la disponibilidad directamente en el motor de reservas.
  */
 public class Asiento {
     private String seccion;   // Sección a la que pertenece el asiento (ejemplo: "vip", "platea baja")
     private int numero;       // Número único del asiento dentro de la sección
-    private boolean disponible; // Indica si el asiento está disponible para asignación
+    private volatile boolean disponible; // Indica si el asiento está disponible para asignación
+    private MotorReservas motor;         // Motor que guarda el estado real, o null si el asiento es independiente
+    private int indice;                  // Índice del asiento dentro del motor
 
     /**
      * Constructor para inicializar un asiento con su sección y número.
@@ -23,12 +27,29 @@ public class Asiento {
         this.disponible = true; // El asiento está disponible por defecto
     }
 
+    /**
+     * Constructor para crear una vista de un asiento guardado en el motor de reservas.
+     *
+     * @param motor  Motor de reservas que guarda el estado del asiento.
+     * @param indice Índice del asiento dentro del motor.
+     */
+    Asiento(MotorReservas motor, int indice) {
+        MapaAsientos mapa = motor.getMapa();
+        this.seccion = mapa.nombreSeccion(mapa.seccionDe(indice));
+        this.numero = indice + 1;
+        this.motor = motor;
+        this.indice = indice;
+    }
+
     /**
      * Verifica si el asiento está disponible.
      *
      * @return true si el asiento está disponible, false si está ocupado.
      */
     public boolean isDisponible() {
+        if (motor != null) {
+            return motor.estaDisponible(indice);
+        }
         return disponible;
     }
 
@@ -38,6 +59,14 @@ public class Asiento {
      * @param disponible true si el asiento debe estar disponible, false si debe estar ocupado.
      */
     public void setDisponible(boolean disponible) {
+        if (motor != null) {
+            if (disponible) {
+                motor.liberar(indice);
+            } else {
+                motor.reservarAsiento(indice);
+            }
+            return;
+        }
         this.disponible = disponible;
     }
 
@@ -0,0 +1,399 @@
+package com.sistemateatromoro;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Banco de pruebas de rendimiento de los caminos críticos de la venta de entradas.
+ * Cada medición hace varias rondas de calentamiento y luego toma la mediana de las rondas medidas,
+ * en nanosegundos por operación. También mide escenarios con varios hilos compitiendo por las mismas secciones.
+ *
+ * Uso: {@code BenchmarkVentas [--linea-base archivo] [--tolerancia 0.25]}. Si el archivo de línea base
+ * no existe se crea con los resultados; si existe, el proceso termina con código 1 cuando alguna medición
+ * empeora más que la tolerancia, para usarlo como control de regresiones en la compilación.
+ */
+public class BenchmarkVentas {
+    private static final int RONDAS_CALENTAMIENTO = 3; // Rondas que no se miden
+    private static final int RONDAS_MEDIDAS = 5;       // Rondas de las que se toma la mediana
+    private static final String[] SECCIONES = {"VIP", "Platea baja", "Platea alta", "Galería"};
+
+    private final Map<String, Double> resultados = new LinkedHashMap<>(); // Medición -> ns/op
+    private final PrintStream salida = System.out;                         // Informe, aunque se redirija System.out
+    private long sumidero;                                                 // Evita que el JIT elimine el trabajo medido
+
+    /**
+     * Trabajo a medir.
+     */
+    private interface Trabajo {
+        /**
+         * Ejecuta el trabajo una cantidad de veces.
+         *
+         * @param operaciones Cantidad de operaciones.
+         * @return Un valor derivado del trabajo, para que no sea eliminado.
+         */
+        long ejecutar(int operaciones);
+    }
+
+    /**
+     * Mide un trabajo y guarda la mediana en nanosegundos por operación.
+     *
+     * @param nombre      Nombre de la medición.
+     * @param operaciones Operaciones por ronda.
+     * @param trabajo     Trabajo a medir.
+     */
+    private void medir(String nombre, int operaciones, Trabajo trabajo) {
+        for (int i = 0; i < RONDAS_CALENTAMIENTO; i++) {
+            sumidero += trabajo.ejecutar(operaciones);
+        }
+        double[] rondas = new double[RONDAS_MEDIDAS];
+        for (int i = 0; i < RONDAS_MEDIDAS; i++) {
+            long inicio = System.nanoTime();
+            sumidero += trabajo.ejecutar(operaciones);
+            rondas[i] = (System.nanoTime() - inicio) / (double) operaciones;
+        }
+        Arrays.sort(rondas);
+        double mediana = rondas[RONDAS_MEDIDAS / 2];
+        resultados.put(nombre, mediana);
+        salida.printf(Locale.ROOT, "%-45s %12.1f ns/op%n", nombre, mediana);
+    }
+
+    /**
+     * Crea un sistema de ventas con secciones del mismo tamaño, ocupado hasta el porcentaje indicado.
+     *
+     * @param asientos  Cantidad total de asientos.
+     * @param ocupacion Fracción de asientos vendidos (entre 0 y 1).
+     * @return Sistema de ventas preparado.
+     */
+    private static VentaEntradas crearTeatro(int asientos, double ocupacion) {
+        int porSeccion = asientos / SECCIONES.length;
+        VentaEntradas ventaEntradas = new VentaEntradas(
+                new MapaAsientos(SECCIONES, new int[] {porSeccion, porSeccion, porSeccion, porSeccion}));
+        Cliente cliente = new Cliente("Reserva", 30, "adulto", "Hombre", false);
+        int vender = (int) (porSeccion * ocupacion);
+        for (String seccion : SECCIONES) {
+            ventaEntradas.venderLote(cliente, seccion, vender);
+        }
+        return ventaEntradas;
+    }
+
+    /**
+     * Mide la venta de un asiento (seguida de su anulación, para mantener la ocupación) según el tamaño
+     * del teatro y su ocupación.
+     */
+    private void medirAsignarAsiento() {
+        Cliente cliente = new Cliente("Ana", 30, "adulto", "Mujer", false);
+        for (int asientos : new int[] {1_000, 100_000, 1_000_000}) {
+            for (double ocupacion : new double[] {0.0, 0.5, 0.99}) {
+                VentaEntradas ventaEntradas = crearTeatro(asientos, ocupacion);
+                medir(String.format(Locale.ROOT, "asignarAsiento+anular %d asientos %.0f%%", asientos, ocupacion * 100),
+                        200_000, operaciones -> {
+                            long suma = 0;
+                            for (int i = 0; i < operaciones; i++) {
+                                Entrada entrada = ventaEntradas.venderEntrada(cliente, SECCIONES[i & 3]);
+                                suma += entrada.getIndiceAsiento();
+                                ventaEntradas.anularEntrada(entrada.getId());
+                            }
+                            return suma;
+                        });
+            }
+        }
+    }
+
+    /**
+     * Mide el cálculo de precios y la normalización de nombres de sección.
+     */
+    private void medirPrecios() {
+        VentaEntradas ventaEntradas = new VentaEntradas(100);
+        Cliente[] clientes = {
+            new Cliente("Ana", 30, "adulto", "Mujer", false),
+            new Cliente("Luis", 12, "niño", "Hombre", false),
+            new Cliente("Rosa", 70, "tercera edad", "Mujer", false),
+            new Cliente("Juan", 22, "adulto", "Hombre", true)
+        };
+        String[] conTildes = {"vip", "PLATEA BAJA", "platea alta", "galería"};
+        medir("calcularPrecioFinal", 2_000_000, operaciones -> {
+            long suma = 0;
+            for (int i = 0; i < operaciones; i++) {
+                suma += (long) ventaEntradas.calcularPrecioFinal(clientes[i & 3], SECCIONES[(i >> 2) & 3]).getPrecioFinal();
+            }
+            return suma;
+        });
+        medir("calcularPrecioFinal (nombre sin normalizar)", 2_000_000, operaciones -> {
+            long suma = 0;
+            for (int i = 0; i < operaciones; i++) {
+                suma += (long) ventaEntradas.calcularPrecioFinal(clientes[i & 3], conTildes[(i >> 2) & 3]).getPrecioFinal();
+            }
+            return suma;
+        });
+        medir("normalizar (eliminarTildes)", 2_000_000, operaciones -> {
+            long suma = 0;
+            for (int i = 0; i < operaciones; i++) {
+                suma += MapaAsientos.normalizar(conTildes[i & 3]).length();
+            }
+            return suma;
+        });
+    }
+
+    /**
+     * Mide el costo de la instrumentación de una venta exitosa: la decisión de muestreo y la latencia muestreada.
+     */
+    private void medirMetricas() {
+        MetricasVentas metricas = new MetricasVentas(new MotorReservas(MapaAsientos.teatroMoro(100)));
+        medir("métricas (latencia muestreada)", 2_000_000, operaciones -> {
+            for (int i = 0; i < operaciones; i++) {
+                metricas.registrar(MetricasVentas.ASIGNACION, metricas.iniciar());
+            }
+            return metricas.instantanea().getLatencia(MetricasVentas.ASIGNACION).getCantidad();
+        });
+    }
+
+    /**
+     * Mide la impresión de la disponibilidad completa, descartando la salida.
+     */
+    private void medirDisponibilidad() {
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        try {
+            for (int asientos : new int[] {1_000, 100_000}) {
+                VentaEntradas ventaEntradas = crearTeatro(asientos, 0.5);
+                medir("verDisponibilidadAsientos " + asientos + " asientos", 5, operaciones -> {
+                    for (int i = 0; i < operaciones; i++) {
+                        ventaEntradas.verDisponibilidadAsientos();
+                    }
+                    return operaciones;
+                });
+            }
+        } finally {
+            System.setOut(salida);
+        }
+    }
+
+    /**
+     * Mide la eliminación de entradas por posición (camino heredado) y por id.
+     */
+    private void medirEliminarEntrada() {
+        Cliente cliente = new Cliente("Ana", 30, "adulto", "Mujer", false);
+        VentaEntradas ventaEntradas = crearTeatro(10_000, 0.5);
+        medir("eliminarEntrada(posición) 5.000 vendidas", 200, operaciones -> {
+            long suma = 0;
+            for (int i = 0; i < operaciones; i++) {
+                suma += ventaEntradas.eliminarEntrada(0).length();
+                ventaEntradas.venderEntrada(cliente, SECCIONES[i & 3]);
+            }
+            return suma;
+        });
+        medir("anularEntrada(id) 5.000 vendidas", 200_000, operaciones -> {
+            long suma = 0;
+            for (int i = 0; i < operaciones; i++) {
+                Entrada entrada = ventaEntradas.venderEntrada(cliente, SECCIONES[i & 3]);
+                suma += ventaEntradas.anularEntrada(entrada.getId()).getId();
+            }
+            return suma;
+        });
+    }
+
+    /**
+     * Mide el reporte de ventas sobre un evento con todos sus asientos vendidos.
+     */
+    private void medirReporte() {
+        for (int asientos : new int[] {100_000, 1_000_000}) {
+            VentaEntradas ventaEntradas = crearTeatro(asientos, 1.0);
+            AnaliticaVentas analitica = ventaEntradas.getAnalitica();
+            medir("reporte de ventas " + asientos + " vendidas", 1, operaciones -> {
+                long suma = 0;
+                for (int i = 0; i < operaciones; i++) {
+                    suma += analitica.generarReporte().getVendidas(AnaliticaVentas.TODOS, AnaliticaVentas.TODOS,
+                            AnaliticaVentas.TODOS);
+                }
+                return suma;
+            });
+        }
+    }
+
+    /**
+     * Mide la búsqueda de clientes que vuelven en un registro con un millón de clientes.
+     */
+    private void medirRegistroClientes() {
+        RegistroClientes registro = new RegistroClientes();
+        int clientes = 1_000_000;
+        String[] documentos = new String[clientes];
+        for (int i = 0; i < clientes; i++) {
+            documentos[i] = (10_000_000 + i * 7) + "-" + (i % 10);
+            registro.registrar(documentos[i], new Cliente("Cliente " + i, 18 + i % 70, "adulto", "Otro", i % 5 == 0));
+        }
+        medir("RegistroClientes.buscar 1.000.000 clientes", 1_000_000, operaciones -> {
+            long suma = 0;
+            for (int i = 0; i < operaciones; i++) {
+                suma += registro.buscar(documentos[(int) ((i * 0x9E3779B97F4A7C15L) >>> 44) % clientes]).getCategoria();
+            }
+            return suma;
+        });
+    }
+
+    /**
+     * Mide la generación de boletas de punta a punta: encolarlas desde la venta y esperar a que el generador
+     * las formatee y entregue a un destino que solo cuenta los bytes, sin el costo del disco.
+     *
+     * @throws IOException Si el generador no puede cerrarse.
+     */
+    private void medirBoletas() throws IOException {
+        VentaEntradas ventaEntradas = crearTeatro(400_000, 0.0);
+        List<Entrada> vendidas = ventaEntradas.venderLote(new Cliente("Ana María", 30, "adulto", "Mujer", false),
+                "Galería", 100_000);
+        LongAdder bytes = new LongAdder();
+        ventaEntradas.activarBoletas(boletas -> {
+            bytes.add(boletas.remaining());
+            boletas.position(boletas.limit());
+        });
+        GeneradorBoletas generador = ventaEntradas.getBoletas();
+        medir("imprimirBoleta (generador asíncrono)", vendidas.size(), operaciones -> {
+            for (int i = 0; i < operaciones; i++) {
+                ventaEntradas.imprimirBoleta(vendidas.get(i));
+            }
+            while (generador.getEscritas() < generador.getEncoladas()) {
+                Thread.onSpinWait();
+            }
+            return bytes.sum();
+        });
+        generador.close();
+    }
+
+    /**
+     * Mide ventas y anulaciones concurrentes sobre el mismo teatro con distintas cantidades de hilos.
+     * El resultado se informa como nanosegundos por operación sumando todos los hilos.
+     *
+     * @throws InterruptedException Si se interrumpe la espera de los hilos.
+     */
+    private void medirContencion() throws InterruptedException {
+        int maximo = Math.max(4, Runtime.getRuntime().availableProcessors() * 2);
+        for (int hilos = 1; hilos <= maximo; hilos *= 2) {
+            VentaEntradas ventaEntradas = crearTeatro(100_000, 0.5);
+            LongAdder operaciones = new LongAdder();
+            AtomicBoolean detener = new AtomicBoolean();
+            CountDownLatch listos = new CountDownLatch(hilos);
+            Thread[] trabajadores = new Thread[hilos];
+            for (int h = 0; h < hilos; h++) {
+                final int id = h;
+                trabajadores[h] = new Thread(() -> {
+                    Cliente cliente = new Cliente("Hilo" + id, 30, "adulto", "Hombre", false);
+                    listos.countDown();
+                    int i = id;
+                    while (!detener.get()) {
+                        // Todos los hilos compiten por la misma sección la mitad de las veces
+                        Entrada entrada = ventaEntradas.venderEntrada(cliente, (i & 1) == 0 ? "Galería" : SECCIONES[i & 3]);
+                        if (entrada != null) {
+                            ventaEntradas.anularEntrada(entrada.getId());
+                        }
+                        operaciones.increment();
+                        i++;
+                    }
+                });
+                trabajadores[h].start();
+            }
+            listos.await();
+            Thread.sleep(500); // Calentamiento
+            long antes = operaciones.sum();
+            long inicio = System.nanoTime();
+            Thread.sleep(2000);
+            long hechas = operaciones.sum() - antes;
+            long duracion = System.nanoTime() - inicio;
+            detener.set(true);
+            for (Thread trabajador : trabajadores) {
+                trabajador.join();
+            }
+            double nsPorOperacion = duracion / (double) hechas;
+            resultados.put("contención " + hilos + " hilos", nsPorOperacion);
+            salida.printf(Locale.ROOT, "%-45s %12.1f ns/op (%.0f op/s)%n",
+                    "contención " + hilos + " hilos", nsPorOperacion, hechas * 1e9 / duracion);
+        }
+    }
+
+    /**
+     * Compara los resultados con una línea base guardada o la crea si no existe.
+     *
+     * @param archivo    Archivo de línea base.
+     * @param tolerancia Empeoramiento permitido (0.25 = 25% más lento).
+     * @return true si ninguna medición empeoró más que la tolerancia.
+     * @throws IOException Si no se puede leer o escribir el archivo.
+     */
+    private boolean compararConLineaBase(Path archivo, double tolerancia) throws IOException {
+        Properties lineaBase = new Properties();
+        if (!Files.exists(archivo)) {
+            for (Map.Entry<String, Double> resultado : resultados.entrySet()) {
+                lineaBase.setProperty(resultado.getKey(), String.format(Locale.ROOT, "%.1f", resultado.getValue()));
+            }
+            try (Writer escritor = Files.newBufferedWriter(archivo, StandardCharsets.UTF_8)) {
+                lineaBase.store(escritor, "Línea base de BenchmarkVentas (ns/op)");
+            }
+            salida.println("Línea base guardada en " + archivo);
+            return true;
+        }
+        try (Reader lector = Files.newBufferedReader(archivo, StandardCharsets.UTF_8)) {
+            lineaBase.load(lector);
+        }
+        boolean aprobado = true;
+        for (Map.Entry<String, Double> resultado : resultados.entrySet()) {
+            String base = lineaBase.getProperty(resultado.getKey());
+            if (base == null) {
+                continue;
+            }
+            double cambio = resultado.getValue() / Double.parseDouble(base) - 1;
+            if (cambio > tolerancia) {
+                aprobado = false;
+                salida.printf(Locale.ROOT, "REGRESIÓN %s: %.1f ns/op contra %s ns/op (+%.0f%%)%n",
+                        resultado.getKey(), resultado.getValue(), base, cambio * 100);
+            }
+        }
+        salida.println(aprobado ? "Sin regresiones respecto de la línea base." : "Se detectaron regresiones.");
+        return aprobado;
+    }
+
+    /**
+     * Ejecuta todas las mediciones.
+     *
+     * @param args Opciones {@code --linea-base archivo} y {@code --tolerancia fracción}.
+     * @throws Exception Si falla alguna medición o la lectura de la línea base.
+     */
+    public static void main(String[] args) throws Exception {
+        Path lineaBase = null;
+        double tolerancia = 0.25;
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            if (args[i].equals("--linea-base")) {
+                lineaBase = Paths.get(args[i + 1]);
+            } else if (args[i].equals("--tolerancia")) {
+                tolerancia = Double.parseDouble(args[i + 1]);
+            }
+        }
+
+        BenchmarkVentas banco = new BenchmarkVentas();
+        banco.medirAsignarAsiento();
+        banco.medirPrecios();
+        banco.medirMetricas();
+        banco.medirDisponibilidad();
+        banco.medirEliminarEntrada();
+        banco.medirReporte();
+        banco.medirRegistroClientes();
+        banco.medirBoletas();
+        banco.medirContencion();
+        banco.salida.println("(sumidero " + (banco.sumidero & 1) + ")");
+
+        if (lineaBase != null && !banco.compararConLineaBase(lineaBase, tolerancia)) {
+            System.exit(1);
+        }
+    }
+}
\ No newline at end of file
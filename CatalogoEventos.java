@@ -0,0 +1,68 @@
+package com.sistemateatromoro;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Catálogo de eventos del Teatro Moro.
+ * Los eventos se indexan por su identificador, por lo que encontrar un evento y consultar
+ * su disponibilidad es O(1). Cada evento guarda su propio inventario, así que las ventas
+ * de funciones distintas nunca comparten estado.
+ */
+public class CatalogoEventos {
+    private final ConcurrentHashMap<String, Evento> eventos; // Identificador del evento -> evento
+
+    /**
+     * Constructor para inicializar un catálogo vacío.
+     */
+    public CatalogoEventos() {
+        this.eventos = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Registra un evento en el catálogo.
+     *
+     * @param evento Evento a registrar.
+     * @throws IllegalArgumentException Si ya existe un evento con el mismo identificador.
+     */
+    public void registrar(Evento evento) {
+        if (eventos.putIfAbsent(evento.getId(), evento) != null) {
+            throw new IllegalArgumentException("Ya existe un evento con el identificador " + evento.getId());
+        }
+    }
+
+    /**
+     * Busca un evento por su identificador.
+     *
+     * @param id Identificador del evento.
+     * @return El evento, o null si no existe.
+     */
+    public Evento buscar(String id) {
+        return eventos.get(id);
+    }
+
+    /**
+     * Obtiene la cantidad de asientos disponibles de una sección en un evento.
+     *
+     * @param idEvento Identificador del evento.
+     * @param seccion  Nombre de la sección.
+     * @return Cantidad de asientos libres, o 0 si el evento o la sección no existen.
+     */
+    public int contarDisponibles(String idEvento, String seccion) {
+        Evento evento = eventos.get(idEvento);
+        return evento == null ? 0 : evento.getVentaEntradas().contarDisponibles(seccion);
+    }
+
+    /**
+     * Obtiene los eventos registrados, ordenados por identificador.
+     *
+     * @return Lista de eventos.
+     */
+    public List<Evento> getEventos() {
+        List<Evento> lista = new ArrayList<>(eventos.values());
+        lista.sort(Comparator.comparing(Evento::getId));
+        return lista;
+    }
+}
\ No newline at end of file
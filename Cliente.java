@@ -6,11 +6,14 @@ package com.sistemateatromoro;
  * sexo y si es estudiante.
  */
 public class Cliente {
+    public static final int LARGO_MAXIMO = 200; // Caracteres de un dato de texto del cliente, como máximo
+
     private String nombre;          // Nombre del cliente
     private int edad;               // Edad del cliente
     private String tipoCliente;     // Tipo de cliente: "niño", "adulto", "tercera edad"
     private String sexo;            // Sexo del cliente: "hombre", "mujer", "otro"
     private boolean esEstudiante;   // Indica si el cliente es estudiante
+    private final int categoria;    // Categoría de descuento (constantes de TablaPrecios), calculada una sola vez
 
     /**
      * Constructor para inicializar un nuevo cliente.
@@ -27,6 +30,33 @@ public class Cliente {
         this.tipoCliente = tipoCliente;
         this.sexo = sexo;
         this.esEstudiante = esEstudiante;
+        this.categoria = TablaPrecios.categoriaDe(edad, esEstudiante, sexo);
+    }
+
+    /**
+     * Verifica que un dato de texto recibido de afuera (servidor, consola o archivo) no supere
+     * {@link #LARGO_MAXIMO} caracteres, así toda entrada vendida cabe en el journal.
+     *
+     * @param campo Nombre del dato, para el mensaje.
+     * @param valor Valor recibido.
+     * @return El mismo valor.
+     * @throws IllegalArgumentException Si el valor es demasiado largo.
+     */
+    public static String validarTexto(String campo, String valor) {
+        if (valor.length() > LARGO_MAXIMO) {
+            throw new IllegalArgumentException("El dato " + campo + " no puede superar " + LARGO_MAXIMO + " caracteres.");
+        }
+        return valor;
+    }
+
+    /**
+     * Determina el tipo de cliente según su edad.
+     *
+     * @param edad Edad del cliente.
+     * @return "niño" si es menor de 18, "tercera edad" si es mayor de 60, o "adulto".
+     */
+    public static String tipoSegunEdad(int edad) {
+        return (edad < 18) ? "niño" : (edad > 60) ? "tercera edad" : "adulto";
     }
 
     /**
@@ -73,4 +103,14 @@ public class Cliente {
     public boolean isEstudiante() {
         return esEstudiante;
     }
+
+    /**
+     * Obtiene la categoría de descuento del cliente (niño, estudiante, tercera edad, mujer o general).
+     * Se calcula al crear el cliente, así que cada compra la lee sin volver a evaluar sus datos.
+     *
+     * @return Categoría del cliente, una de las constantes de categoría de {@link TablaPrecios}.
+     */
+    public int getCategoria() {
+        return categoria;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,76 @@
+package com.sistemateatromoro;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Destino donde el generador de boletas escribe las boletas ya formateadas, en texto UTF-8.
+ * Recibe lotes de varias boletas seguidas, siempre desde el mismo hilo del generador.
+ */
+public interface DestinoBoletas extends AutoCloseable {
+
+    /**
+     * Escribe un lote de boletas. El búfer se reutiliza después de la llamada, así que no debe guardarse.
+     *
+     * @param boletas Bytes de las boletas, desde la posición hasta el límite del búfer.
+     * @throws IOException Si no se puede escribir.
+     */
+    void escribir(ByteBuffer boletas) throws IOException;
+
+    /**
+     * Cierra el destino. Por omisión no hace nada.
+     *
+     * @throws IOException Si no se puede cerrar.
+     */
+    @Override
+    default void close() throws IOException {
+    }
+
+    /**
+     * Crea un destino que anexa las boletas al final de un archivo, creándolo si no existe.
+     *
+     * @param archivo Archivo de boletas.
+     * @return Destino sobre el archivo; al cerrarlo se cierra el archivo.
+     * @throws IOException Si no se puede abrir el archivo.
+     */
+    static DestinoBoletas archivo(Path archivo) throws IOException {
+        if (archivo.getParent() != null) {
+            Files.createDirectories(archivo.getParent());
+        }
+        FileChannel canal = FileChannel.open(archivo, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.APPEND);
+        return new DestinoBoletas() {
+            @Override
+            public void escribir(ByteBuffer boletas) throws IOException {
+                while (boletas.hasRemaining()) {
+                    canal.write(boletas);
+                }
+            }
+
+            @Override
+            public void close() throws IOException {
+                canal.close();
+            }
+        };
+    }
+
+    /**
+     * Crea un destino que escribe las boletas en un flujo, por ejemplo {@code System.out}.
+     * El flujo no se cierra al cerrar el destino.
+     *
+     * @param salida Flujo de salida.
+     * @return Destino sobre el flujo.
+     */
+    static DestinoBoletas flujo(OutputStream salida) {
+        return boletas -> {
+            salida.write(boletas.array(), boletas.arrayOffset() + boletas.position(), boletas.remaining());
+            salida.flush();
+            boletas.position(boletas.limit());
+        };
+    }
+}
\ No newline at end of file
@@ -0,0 +1,120 @@
+package com.sistemateatromoro;
+
+/**
+ * Clase que representa una entrada vendida en el Teatro Moro.
+ * Guarda el identificador de la entrada, el asiento, el cliente, el precio pagado,
+ * el descuento aplicado y el momento de la venta.
+ */
+public class Entrada {
+    private final long id;                   // Identificador único de la entrada
+    private final int indiceAsiento;         // Índice del asiento dentro del teatro
+    private final String seccion;            // Sección del asiento
+    private final Cliente cliente;           // Cliente que compró la entrada
+    private final double precio;             // Precio final pagado
+    private final double porcentajeDescuento; // Porcentaje de descuento aplicado
+    private final long fechaVenta;           // Momento de la venta (milisegundos desde epoch)
+
+    /**
+     * Constructor para inicializar una entrada vendida.
+     *
+     * @param id                  Identificador único de la entrada.
+     * @param indiceAsiento       Índice del asiento dentro del teatro.
+     * @param seccion             Sección del asiento.
+     * @param cliente             Cliente que compró la entrada.
+     * @param precio              Precio final pagado.
+     * @param porcentajeDescuento Porcentaje de descuento aplicado.
+     * @param fechaVenta          Momento de la venta (milisegundos desde epoch).
+     */
+    public Entrada(long id, int indiceAsiento, String seccion, Cliente cliente, double precio,
+                   double porcentajeDescuento, long fechaVenta) {
+        this.id = id;
+        this.indiceAsiento = indiceAsiento;
+        this.seccion = seccion;
+        this.cliente = cliente;
+        this.precio = precio;
+        this.porcentajeDescuento = porcentajeDescuento;
+        this.fechaVenta = fechaVenta;
+    }
+
+    /**
+     * Obtiene el identificador de la entrada.
+     *
+     * @return El identificador único de la entrada.
+     */
+    public long getId() {
+        return id;
+    }
+
+    /**
+     * Obtiene el índice del asiento dentro del teatro.
+     *
+     * @return El índice del asiento (desde 0).
+     */
+    public int getIndiceAsiento() {
+        return indiceAsiento;
+    }
+
+    /**
+     * Obtiene el número del asiento.
+     *
+     * @return El número del asiento (desde 1).
+     */
+    public int getNumeroAsiento() {
+        return indiceAsiento + 1;
+    }
+
+    /**
+     * Obtiene la sección del asiento.
+     *
+     * @return La sección del asiento.
+     */
+    public String getSeccion() {
+        return seccion;
+    }
+
+    /**
+     * Obtiene el cliente que compró la entrada.
+     *
+     * @return El cliente.
+     */
+    public Cliente getCliente() {
+        return cliente;
+    }
+
+    /**
+     * Obtiene el precio final pagado.
+     *
+     * @return El precio con descuento.
+     */
+    public double getPrecio() {
+        return precio;
+    }
+
+    /**
+     * Obtiene el porcentaje de descuento aplicado.
+     *
+     * @return El porcentaje de descuento.
+     */
+    public double getPorcentajeDescuento() {
+        return porcentajeDescuento;
+    }
+
+    /**
+     * Obtiene el momento de la venta.
+     *
+     * @return Milisegundos desde epoch.
+     */
+    public long getFechaVenta() {
+        return fechaVenta;
+    }
+
+    /**
+     * Representa la entrada con el mismo formato usado en el registro de entradas vendidas.
+     *
+     * @return Texto de la entrada.
+     */
+    @Override
+    public String toString() {
+        return "Cliente: " + cliente.getNombre() + ", Sección: " + seccion + ", Número: " + getNumeroAsiento();
+    }
+}
\ No newline at end of file
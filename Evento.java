@@ -0,0 +1,90 @@
+package com.sistemateatromoro;
+
+/**
+ * Clase que representa un evento (función) del Teatro Moro.
+ * Cada evento se presenta en una sala y tiene su propio inventario de asientos,
+ * de modo que las ventas de funciones distintas no compiten entre sí.
+ */
+public class Evento {
+    private final String id;                  // Identificador único del evento
+    private final String nombre;              // Nombre de la función
+    private final String sala;                // Sala donde se presenta el evento
+    private final VentaEntradas ventaEntradas; // Inventario y ventas propias del evento
+
+    /**
+     * Constructor para inicializar un evento con su distribución de asientos.
+     *
+     * @param id     Identificador único del evento.
+     * @param nombre Nombre de la función.
+     * @param sala   Sala donde se presenta el evento.
+     * @param mapa   Distribución de secciones de la sala para este evento.
+     */
+    public Evento(String id, String nombre, String sala, MapaAsientos mapa) {
+        this(id, nombre, sala, mapa, TablaPrecios.teatroMoro(mapa));
+    }
+
+    /**
+     * Constructor para inicializar un evento con su distribución de asientos y sus propios precios.
+     *
+     * @param id           Identificador único del evento.
+     * @param nombre       Nombre de la función.
+     * @param sala         Sala donde se presenta el evento.
+     * @param mapa         Distribución de secciones de la sala para este evento.
+     * @param tablaPrecios Precios y descuentos del evento.
+     */
+    public Evento(String id, String nombre, String sala, MapaAsientos mapa, TablaPrecios tablaPrecios) {
+        this(id, nombre, sala, new VentaEntradas(mapa, tablaPrecios));
+    }
+
+    /**
+     * Constructor para inicializar un evento con un inventario ya creado, por ejemplo uno cuyo estado de
+     * asientos se conserva en un archivo ({@link MapaPersistente}).
+     *
+     * @param id            Identificador único del evento.
+     * @param nombre        Nombre de la función.
+     * @param sala          Sala donde se presenta el evento.
+     * @param ventaEntradas Inventario y ventas del evento.
+     */
+    public Evento(String id, String nombre, String sala, VentaEntradas ventaEntradas) {
+        this.id = id;
+        this.nombre = nombre;
+        this.sala = sala;
+        this.ventaEntradas = ventaEntradas;
+    }
+
+    /**
+     * Obtiene el identificador del evento.
+     *
+     * @return El identificador único del evento.
+     */
+    public String getId() {
+        return id;
+    }
+
+    /**
+     * Obtiene el nombre de la función.
+     *
+     * @return El nombre del evento.
+     */
+    public String getNombre() {
+        return nombre;
+    }
+
+    /**
+     * Obtiene la sala donde se presenta el evento.
+     *
+     * @return El nombre de la sala.
+     */
+    public String getSala() {
+        return sala;
+    }
+
+    /**
+     * Obtiene el sistema de venta de entradas del evento.
+     *
+     * @return El inventario y las ventas del evento.
+     */
+    public VentaEntradas getVentaEntradas() {
+        return ventaEntradas;
+    }
+}
\ No newline at end of file
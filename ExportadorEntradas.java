@@ -0,0 +1,356 @@
+package com.sistemateatromoro;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Exportación e importación por flujo de las entradas vendidas de un evento, en formato binario compacto
+ * o en CSV. Los archivos se leen y escriben con canales de archivo y búferes de tamaño fijo, por lo que la
+ * memoria usada no depende de la cantidad de entradas: no se arma ninguna lista con todas ellas.
+ *
+ * Formato binario: encabezado (int {@value #MAGIA} y byte de versión), cada entrada como longitud (int)
+ * y los bytes del formato del journal de ventas, y al final una longitud 0 seguida de la cantidad de
+ * entradas (long), que permite detectar un archivo truncado.
+ *
+ * Formato CSV (UTF-8, separado por comas, con comillas dobles cuando el texto lo requiere):
+ * {@code id,seccion,asiento,precio,descuento,fecha,nombre,edad,tipo,sexo,estudiante}, con el número de
+ * asiento desde 1 y la fecha en milisegundos desde epoch.
+ *
+ * Al importar, las entradas reciben ids nuevos del evento y sus asientos se reservan por lotes de
+ * {@value #LOTE_IMPORTACION}; se rechazan las de asientos inexistentes, de otra sección o ya ocupados.
+ */
+public final class ExportadorEntradas {
+    private static final int MAGIA = 0x544D4531;          // "TME1"
+    private static final byte VERSION = 1;                // Versión del formato binario
+    private static final int TAMANO_BUFER = 1 << 16;      // Bytes del búfer de cada canal
+    private static final int LOTE_IMPORTACION = 1024;     // Entradas que se reservan juntas al importar
+    private static final String ENCABEZADO_CSV = "id,seccion,asiento,precio,descuento,fecha,nombre,edad,tipo,sexo,estudiante";
+    private static final int CAMPOS_CSV = 11;             // Columnas del CSV
+
+    /**
+     * Resultado de una importación.
+     */
+    public static class ResultadoImportacion {
+        private final long leidas;     // Entradas leídas del archivo
+        private final long importadas; // Entradas registradas en el evento
+
+        /**
+         * Constructor para inicializar el resultado.
+         *
+         * @param leidas     Entradas leídas del archivo.
+         * @param importadas Entradas registradas en el evento.
+         */
+        ResultadoImportacion(long leidas, long importadas) {
+            this.leidas = leidas;
+            this.importadas = importadas;
+        }
+
+        public long getLeidas() {
+            return leidas;
+        }
+
+        public long getImportadas() {
+            return importadas;
+        }
+
+        public long getRechazadas() {
+            return leidas - importadas;
+        }
+    }
+
+    private ExportadorEntradas() {
+    }
+
+    /**
+     * Exporta las entradas vendidas de un evento en formato binario.
+     *
+     * @param ventaEntradas Sistema de ventas del evento.
+     * @param archivo       Archivo de destino (se reemplaza si existe).
+     * @return Cantidad de entradas exportadas.
+     * @throws IOException Si no se puede escribir el archivo.
+     */
+    public static long exportarBinario(VentaEntradas ventaEntradas, Path archivo) throws IOException {
+        long cantidad = 0;
+        try (FileChannel canal = abrirEscritura(archivo);
+             DataOutputStream salida = new DataOutputStream(
+                     new BufferedOutputStream(Channels.newOutputStream(canal), TAMANO_BUFER))) {
+            salida.writeInt(MAGIA);
+            salida.writeByte(VERSION);
+            for (Entrada entrada : ventaEntradas.recorrerEntradas()) {
+                byte[] datos = JournalVentas.codificar(entrada);
+                salida.writeInt(datos.length);
+                salida.write(datos);
+                cantidad++;
+            }
+            salida.writeInt(0);
+            salida.writeLong(cantidad);
+        }
+        return cantidad;
+    }
+
+    /**
+     * Importa en un evento las entradas de un archivo binario.
+     * Si el archivo está dañado o truncado, se lanza la excepción y quedan registrados los lotes ya aplicados.
+     *
+     * @param ventaEntradas Sistema de ventas del evento.
+     * @param archivo       Archivo exportado con {@link #exportarBinario}.
+     * @return Entradas leídas e importadas.
+     * @throws IOException Si no se puede leer el archivo o su formato es inválido.
+     */
+    public static ResultadoImportacion importarBinario(VentaEntradas ventaEntradas, Path archivo) throws IOException {
+        long leidas = 0;
+        long importadas = 0;
+        List<Entrada> lote = new ArrayList<>(LOTE_IMPORTACION);
+        try (FileChannel canal = FileChannel.open(archivo, StandardOpenOption.READ);
+             DataInputStream entrada = new DataInputStream(
+                     new BufferedInputStream(Channels.newInputStream(canal), TAMANO_BUFER))) {
+            if (entrada.readInt() != MAGIA || entrada.readByte() != VERSION) {
+                throw new IOException("El archivo no es una exportación de entradas: " + archivo);
+            }
+            byte[] datos = new byte[256];
+            while (true) {
+                int longitud;
+                try {
+                    longitud = entrada.readInt();
+                } catch (EOFException e) {
+                    throw new IOException("Exportación incompleta: " + archivo, e);
+                }
+                if (longitud == 0) {
+                    break;
+                }
+                if (longitud < 0 || longitud > JournalVentas.MAXIMO_REGISTRO) {
+                    throw new IOException("Registro inválido en la exportación: " + archivo);
+                }
+                if (datos.length < longitud) {
+                    datos = new byte[longitud];
+                }
+                entrada.readFully(datos, 0, longitud);
+                lote.add(JournalVentas.decodificar(ByteBuffer.wrap(datos, 0, longitud)));
+                leidas++;
+                if (lote.size() == LOTE_IMPORTACION) {
+                    importadas += ventaEntradas.importarLote(lote);
+                    lote.clear();
+                }
+            }
+            importadas += ventaEntradas.importarLote(lote);
+            if (entrada.readLong() != leidas) {
+                throw new IOException("La cantidad de entradas no coincide con la exportación: " + archivo);
+            }
+        }
+        return new ResultadoImportacion(leidas, importadas);
+    }
+
+    /**
+     * Exporta las entradas vendidas de un evento en CSV.
+     *
+     * @param ventaEntradas Sistema de ventas del evento.
+     * @param archivo       Archivo de destino (se reemplaza si existe).
+     * @return Cantidad de entradas exportadas.
+     * @throws IOException Si no se puede escribir el archivo.
+     */
+    public static long exportarCsv(VentaEntradas ventaEntradas, Path archivo) throws IOException {
+        long cantidad = 0;
+        try (FileChannel canal = abrirEscritura(archivo);
+             BufferedWriter salida = new BufferedWriter(
+                     Channels.newWriter(canal, StandardCharsets.UTF_8), TAMANO_BUFER)) {
+            salida.write(ENCABEZADO_CSV);
+            salida.write('\n');
+            for (Entrada entrada : ventaEntradas.recorrerEntradas()) {
+                Cliente cliente = entrada.getCliente();
+                salida.write(Long.toString(entrada.getId()));
+                salida.write(',');
+                escribirCampo(salida, entrada.getSeccion());
+                salida.write(',');
+                salida.write(Integer.toString(entrada.getNumeroAsiento()));
+                salida.write(',');
+                salida.write(BigDecimal.valueOf(entrada.getPrecio()).toPlainString());
+                salida.write(',');
+                salida.write(BigDecimal.valueOf(entrada.getPorcentajeDescuento()).toPlainString());
+                salida.write(',');
+                salida.write(Long.toString(entrada.getFechaVenta()));
+                salida.write(',');
+                escribirCampo(salida, cliente.getNombre());
+                salida.write(',');
+                salida.write(Integer.toString(cliente.getEdad()));
+                salida.write(',');
+                escribirCampo(salida, cliente.getTipo());
+                salida.write(',');
+                escribirCampo(salida, cliente.getSexo());
+                salida.write(',');
+                salida.write(cliente.isEstudiante() ? "true" : "false");
+                salida.write('\n');
+                cantidad++;
+            }
+        }
+        return cantidad;
+    }
+
+    /**
+     * Importa en un evento las entradas de un archivo CSV, como los que entregan los canales asociados.
+     * Las filas con campos faltantes o valores inválidos se cuentan como rechazadas y no detienen la importación.
+     *
+     * @param ventaEntradas Sistema de ventas del evento.
+     * @param archivo       Archivo CSV con el encabezado de {@link #exportarCsv}.
+     * @return Entradas leídas e importadas.
+     * @throws IOException Si no se puede leer el archivo o falta el encabezado.
+     */
+    public static ResultadoImportacion importarCsv(VentaEntradas ventaEntradas, Path archivo) throws IOException {
+        long leidas = 0;
+        long importadas = 0;
+        List<Entrada> lote = new ArrayList<>(LOTE_IMPORTACION);
+        List<String> campos = new ArrayList<>(CAMPOS_CSV);
+        StringBuilder campo = new StringBuilder();
+        try (FileChannel canal = FileChannel.open(archivo, StandardOpenOption.READ);
+             BufferedReader entrada = new BufferedReader(
+                     Channels.newReader(canal, StandardCharsets.UTF_8), TAMANO_BUFER)) {
+            if (!leerFilaCsv(entrada, campos, campo) || !String.join(",", campos).equals(ENCABEZADO_CSV)) {
+                throw new IOException("El archivo no tiene el encabezado de entradas: " + archivo);
+            }
+            while (leerFilaCsv(entrada, campos, campo)) {
+                leidas++;
+                Entrada leida = entradaDesdeCsv(campos);
+                if (leida == null) {
+                    continue;
+                }
+                lote.add(leida);
+                if (lote.size() == LOTE_IMPORTACION) {
+                    importadas += ventaEntradas.importarLote(lote);
+                    lote.clear();
+                }
+            }
+            importadas += ventaEntradas.importarLote(lote);
+        }
+        return new ResultadoImportacion(leidas, importadas);
+    }
+
+    /**
+     * Abre un archivo para escribirlo desde el comienzo.
+     *
+     * @param archivo Archivo de destino.
+     * @return Canal de escritura.
+     * @throws IOException Si no se puede abrir el archivo.
+     */
+    private static FileChannel abrirEscritura(Path archivo) throws IOException {
+        return FileChannel.open(archivo, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+    }
+
+    /**
+     * Escribe un texto como campo CSV, entre comillas si contiene comas, comillas o saltos de línea.
+     *
+     * @param salida Destino.
+     * @param texto  Texto del campo.
+     * @throws IOException Si no se puede escribir.
+     */
+    private static void escribirCampo(Writer salida, String texto) throws IOException {
+        boolean comillas = false;
+        for (int i = 0; i < texto.length() && !comillas; i++) {
+            char c = texto.charAt(i);
+            comillas = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!comillas) {
+            salida.write(texto);
+            return;
+        }
+        salida.write('"');
+        salida.write(texto.replace("\"", "\"\""));
+        salida.write('"');
+    }
+
+    /**
+     * Lee una fila CSV, que puede ocupar varias líneas si un campo entre comillas contiene saltos de línea.
+     *
+     * @param entrada Lector del archivo.
+     * @param campos  Lista donde se dejan los campos de la fila (se vacía antes).
+     * @param campo   Búfer reutilizado para armar cada campo.
+     * @return true si se leyó una fila, false al final del archivo.
+     * @throws IOException Si no se puede leer el archivo.
+     */
+    private static boolean leerFilaCsv(BufferedReader entrada, List<String> campos, StringBuilder campo)
+            throws IOException {
+        String linea = entrada.readLine();
+        while (linea != null && linea.isEmpty()) {
+            linea = entrada.readLine(); // Se ignoran las líneas vacías
+        }
+        if (linea == null) {
+            return false;
+        }
+        campos.clear();
+        campo.setLength(0);
+        boolean entreComillas = false;
+        while (true) {
+            for (int i = 0; i < linea.length(); i++) {
+                char c = linea.charAt(i);
+                if (entreComillas) {
+                    if (c != '"') {
+                        campo.append(c);
+                    } else if (i + 1 < linea.length() && linea.charAt(i + 1) == '"') {
+                        campo.append('"');
+                        i++;
+                    } else {
+                        entreComillas = false;
+                    }
+                } else if (c == '"') {
+                    entreComillas = true;
+                } else if (c == ',') {
+                    campos.add(campo.toString());
+                    campo.setLength(0);
+                } else {
+                    campo.append(c);
+                }
+            }
+            if (!entreComillas) {
+                break;
+            }
+            linea = entrada.readLine();
+            if (linea == null) {
+                break; // Comillas sin cerrar al final del archivo: se toma lo leído
+            }
+            campo.append('\n');
+        }
+        campos.add(campo.toString());
+        return true;
+    }
+
+    /**
+     * Convierte los campos de una fila CSV en una entrada.
+     *
+     * @param campos Campos de la fila.
+     * @return Entrada leída, o null si la fila es inválida.
+     */
+    private static Entrada entradaDesdeCsv(List<String> campos) {
+        if (campos.size() != CAMPOS_CSV) {
+            return null;
+        }
+        try {
+            String estudiante = campos.get(10).trim();
+            if (!estudiante.equals("true") && !estudiante.equals("false")) {
+                return null;
+            }
+            Cliente cliente = new Cliente(Cliente.validarTexto("nombre", campos.get(6)),
+                    Integer.parseInt(campos.get(7).trim()), Cliente.validarTexto("tipo", campos.get(8)),
+                    Cliente.validarTexto("sexo", campos.get(9)), estudiante.equals("true"));
+            return new Entrada(0, Integer.parseInt(campos.get(2).trim()) - 1, campos.get(1), cliente,
+                    Double.parseDouble(campos.get(3).trim()), Double.parseDouble(campos.get(4).trim()),
+                    Long.parseLong(campos.get(5).trim()));
+        } catch (IllegalArgumentException e) { // Números mal escritos, textos demasiado largos o datos que Entrada rechaza
+            return null;
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,379 @@
+package com.sistemateatromoro;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Generador asíncrono de boletas de un evento.
+ * La venta solo encola la entrada vendida; un hilo generador toma todas las encoladas de una vez, las formatea
+ * en un búfer reutilizable sin crear objetos por boleta y escribe el lote completo en el destino con una sola
+ * llamada por búfer lleno. Así el vendedor nunca espera la consola ni el disco, y las ventas por lote o de la
+ * lista de espera generan sus boletas al mismo costo que una.
+ *
+ * La cola es acotada ({@value #CAPACIDAD} boletas): si el destino no da abasto, quien encola espera a que el
+ * generador libere espacio, en lugar de acumular boletas sin límite en memoria. Si el destino falla, las boletas
+ * siguientes se descartan (la venta no falla por su boleta) y el error se informa al cerrar el generador.
+ */
+public class GeneradorBoletas implements AutoCloseable {
+    private static final int CAPACIDAD = 1 << 16;       // Boletas encoladas como máximo
+    private static final int TAMANO_BUFER = 1 << 16;    // Bytes del búfer de formato
+    private static final int BOLETA_MAXIMA = 512;       // Bytes que ocupa una boleta sin contar nombre ni sección
+
+    private static final byte[] INICIO = texto("\n========== BOLETA ==========\nEntrada N°: ");
+    private static final byte[] CLIENTE = texto("\nCliente: ");
+    private static final byte[] EDAD = texto("\nEdad: ");
+    private static final byte[] SECCION = texto("\nSección: ");
+    private static final byte[] ASIENTO = texto("\nAsiento: ");
+    private static final byte[] PRECIO = texto("\nPrecio final: $");
+    private static final byte[] DESCUENTO = texto("\nDescuento aplicado: ");
+    private static final byte[] FIN = texto("%\n=============================\n");
+
+    private final DestinoBoletas destino;         // Donde se escriben las boletas formateadas
+    private final Thread generador;               // Hilo que formatea y escribe los lotes
+
+    private Entrada[] pendientes;                 // Entradas encoladas que aún no se formatean
+    private int cantidad;                         // Entradas en pendientes
+    private long encoladas;                       // Boletas encoladas desde el inicio
+    private volatile long escritas;               // Boletas ya entregadas al destino
+    private long descartadas;                     // Boletas perdidas porque el destino falló o ya estaba cerrado
+    private boolean cerrado;                      // Indica si se solicitó cerrar el generador
+    private IOException error;                    // Error del destino, si ocurrió
+
+    private final Map<String, byte[]> secciones;  // Nombre de cada sección en mayúsculas y UTF-8 (solo el generador)
+
+    /**
+     * Constructor para inicializar el generador e iniciar su hilo.
+     *
+     * @param destino Destino de las boletas; se cierra al cerrar el generador.
+     */
+    public GeneradorBoletas(DestinoBoletas destino) {
+        this.destino = destino;
+        this.pendientes = new Entrada[CAPACIDAD];
+        this.secciones = new HashMap<>();
+        this.generador = new Thread(this::generarLotes, "generador-boletas");
+        this.generador.setDaemon(true);
+        this.generador.start();
+    }
+
+    /**
+     * Encola la boleta de una entrada vendida. Si el generador ya está cerrado, la boleta se descarta:
+     * la venta ya ocurrió y no debe fallar por su boleta.
+     *
+     * @param entrada Entrada vendida.
+     */
+    public synchronized void emitir(Entrada entrada) {
+        if (!esperarEspacio()) {
+            descartadas++;
+            return;
+        }
+        pendientes[cantidad++] = entrada;
+        encoladas++;
+        if (cantidad == 1) {
+            notifyAll(); // El generador solo duerme con la cola vacía
+        }
+    }
+
+    /**
+     * Encola las boletas de varias entradas vendidas, con un solo bloqueo por cada tramo que cabe en la cola.
+     *
+     * @param entradas Entradas vendidas.
+     */
+    public void emitir(List<Entrada> entradas) {
+        int i = 0;
+        while (i < entradas.size()) {
+            synchronized (this) {
+                if (!esperarEspacio()) {
+                    descartadas += entradas.size() - i;
+                    return;
+                }
+                boolean vacia = cantidad == 0;
+                int hasta = Math.min(entradas.size(), i + pendientes.length - cantidad);
+                encoladas += hasta - i;
+                for (; i < hasta; i++) {
+                    pendientes[cantidad++] = entradas.get(i);
+                }
+                if (vacia) {
+                    notifyAll();
+                }
+            }
+        }
+    }
+
+    /**
+     * Espera hasta que haya lugar en la cola. Debe llamarse con el monitor tomado.
+     *
+     * @return true si hay lugar; false si el generador está cerrado.
+     */
+    private boolean esperarEspacio() {
+        boolean interrumpido = false;
+        while (cantidad == pendientes.length && !cerrado) {
+            try {
+                wait();
+            } catch (InterruptedException e) {
+                interrumpido = true;
+            }
+        }
+        if (interrumpido) {
+            Thread.currentThread().interrupt();
+        }
+        return !cerrado;
+    }
+
+    /**
+     * Ciclo del hilo generador: toma todas las boletas encoladas, intercambiando la cola por una vacía para
+     * que las ventas sigan encolando, y las formatea y escribe fuera del bloqueo.
+     */
+    private void generarLotes() {
+        Entrada[] enProceso = new Entrada[CAPACIDAD];
+        ByteBuffer bufer = ByteBuffer.allocate(TAMANO_BUFER);
+        while (true) {
+            int lote;
+            synchronized (this) {
+                while (cantidad == 0 && !cerrado) {
+                    try {
+                        wait();
+                    } catch (InterruptedException e) {
+                        // El cierre se indica con la bandera, no con la interrupción
+                    }
+                }
+                if (cantidad == 0) {
+                    return;
+                }
+                Entrada[] llena = pendientes;
+                pendientes = enProceso;
+                enProceso = llena;
+                lote = cantidad;
+                cantidad = 0;
+                notifyAll(); // Quienes esperaban lugar en la cola
+            }
+            bufer = escribirLote(enProceso, lote, bufer);
+            Arrays.fill(enProceso, 0, lote, null); // Las entradas no quedan retenidas por el generador
+        }
+    }
+
+    /**
+     * Formatea y escribe un lote de boletas, vaciando el búfer en el destino cada vez que se llena.
+     *
+     * @param lote    Entradas del lote.
+     * @param boletas Entradas válidas en el lote.
+     * @param bufer   Búfer de formato.
+     * @return Búfer de formato para el próximo lote (otro más grande si alguna boleta no cabía).
+     */
+    private ByteBuffer escribirLote(Entrada[] lote, int boletas, ByteBuffer bufer) {
+        synchronized (this) {
+            if (error != null) {
+                descartadas += boletas;
+                return bufer;
+            }
+        }
+        int escritasLote = 0;
+        try {
+            for (int i = 0; i < boletas; i++) {
+                Entrada entrada = lote[i];
+                String nombre = entrada.getCliente().getNombre();
+                int necesario = BOLETA_MAXIMA + 3 * (nombre.length() + entrada.getSeccion().length());
+                if (bufer.remaining() < necesario) {
+                    vaciar(bufer);
+                    escritas += i - escritasLote;
+                    escritasLote = i;
+                    if (bufer.capacity() < necesario) {
+                        bufer = ByteBuffer.allocate(necesario);
+                    }
+                }
+                formatear(entrada, seccionEnMayusculas(entrada.getSeccion()), bufer);
+            }
+            vaciar(bufer);
+            escritas += boletas - escritasLote;
+        } catch (IOException e) {
+            synchronized (this) {
+                error = e;
+                descartadas += boletas - escritasLote;
+            }
+            bufer.clear();
+        }
+        return bufer;
+    }
+
+    /**
+     * Entrega al destino el contenido del búfer y lo deja vacío.
+     *
+     * @param bufer Búfer de formato.
+     * @throws IOException Si el destino no puede escribir.
+     */
+    private void vaciar(ByteBuffer bufer) throws IOException {
+        if (bufer.position() > 0) {
+            bufer.flip();
+            destino.escribir(bufer);
+            bufer.clear();
+        }
+    }
+
+    /**
+     * Obtiene el nombre de una sección como aparece en la boleta, calculado una sola vez por sección.
+     *
+     * @param seccion Nombre de la sección.
+     * @return Nombre en mayúsculas, en UTF-8.
+     */
+    private byte[] seccionEnMayusculas(String seccion) {
+        byte[] nombre = secciones.get(seccion);
+        if (nombre == null) {
+            nombre = texto(seccion.toUpperCase());
+            secciones.put(seccion, nombre);
+        }
+        return nombre;
+    }
+
+    /**
+     * Formatea la boleta de una entrada al final del búfer, que debe tener lugar suficiente.
+     *
+     * @param entrada Entrada vendida.
+     * @param seccion Nombre de la sección en mayúsculas, en UTF-8.
+     * @param bufer   Búfer de destino.
+     */
+    private static void formatear(Entrada entrada, byte[] seccion, ByteBuffer bufer) {
+        Cliente cliente = entrada.getCliente();
+        bufer.put(INICIO);
+        escribirEntero(entrada.getId(), bufer);
+        bufer.put(CLIENTE);
+        escribirTexto(cliente.getNombre(), bufer);
+        bufer.put(EDAD);
+        escribirEntero(cliente.getEdad(), bufer);
+        bufer.put(SECCION).put(seccion);
+        bufer.put(ASIENTO);
+        escribirEntero(entrada.getNumeroAsiento(), bufer);
+        bufer.put(PRECIO);
+        long centavos = Math.round(entrada.getPrecio() * 100);
+        escribirEntero(centavos / 100, bufer);
+        bufer.put((byte) '.').put((byte) ('0' + centavos % 100 / 10)).put((byte) ('0' + centavos % 10));
+        bufer.put(DESCUENTO);
+        escribirEntero(Math.round(entrada.getPorcentajeDescuento()), bufer);
+        bufer.put(FIN);
+    }
+
+    /**
+     * Formatea la boleta de una sola entrada, para imprimirla sin pasar por el generador.
+     *
+     * @param entrada Entrada vendida.
+     * @return Boleta en UTF-8.
+     */
+    static byte[] formatear(Entrada entrada) {
+        byte[] seccion = texto(entrada.getSeccion().toUpperCase());
+        ByteBuffer bufer = ByteBuffer.allocate(BOLETA_MAXIMA + seccion.length + 3 * entrada.getCliente().getNombre().length());
+        formatear(entrada, seccion, bufer);
+        return Arrays.copyOf(bufer.array(), bufer.position());
+    }
+
+    /**
+     * Escribe un entero no negativo en decimal.
+     *
+     * @param valor Valor a escribir.
+     * @param bufer Búfer de destino.
+     */
+    private static void escribirEntero(long valor, ByteBuffer bufer) {
+        if (valor < 0) {
+            bufer.put((byte) '-');
+            valor = -valor;
+        }
+        long divisor = 1;
+        while (valor / divisor >= 10) {
+            divisor *= 10;
+        }
+        for (; divisor > 0; divisor /= 10) {
+            bufer.put((byte) ('0' + valor / divisor % 10));
+        }
+    }
+
+    /**
+     * Escribe un texto en UTF-8 sin crear un arreglo intermedio.
+     *
+     * @param texto Texto a escribir.
+     * @param bufer Búfer de destino, con lugar para tres bytes por carácter.
+     */
+    private static void escribirTexto(String texto, ByteBuffer bufer) {
+        for (int i = 0; i < texto.length(); i++) {
+            char c = texto.charAt(i);
+            if (c < 0x80) {
+                bufer.put((byte) c);
+            } else if (c < 0x800) {
+                bufer.put((byte) (0xC0 | c >> 6)).put((byte) (0x80 | c & 0x3F));
+            } else if (Character.isHighSurrogate(c) && i + 1 < texto.length()
+                    && Character.isLowSurrogate(texto.charAt(i + 1))) {
+                int codigo = Character.toCodePoint(c, texto.charAt(++i)); // Dos caracteres, cuatro bytes
+                bufer.put((byte) (0xF0 | codigo >> 18)).put((byte) (0x80 | codigo >> 12 & 0x3F))
+                        .put((byte) (0x80 | codigo >> 6 & 0x3F)).put((byte) (0x80 | codigo & 0x3F));
+            } else if (Character.isSurrogate(c)) {
+                bufer.put((byte) '?'); // Sustituto suelto: igual que al codificar con String.getBytes
+            } else {
+                bufer.put((byte) (0xE0 | c >> 12)).put((byte) (0x80 | c >> 6 & 0x3F)).put((byte) (0x80 | c & 0x3F));
+            }
+        }
+    }
+
+    /**
+     * Codifica un texto fijo en UTF-8.
+     *
+     * @param texto Texto.
+     * @return Bytes del texto.
+     */
+    private static byte[] texto(String texto) {
+        return texto.getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Obtiene la cantidad de boletas encoladas desde el inicio.
+     *
+     * @return Boletas encoladas.
+     */
+    public synchronized long getEncoladas() {
+        return encoladas;
+    }
+
+    /**
+     * Obtiene la cantidad de boletas ya entregadas al destino.
+     *
+     * @return Boletas escritas.
+     */
+    public long getEscritas() {
+        return escritas;
+    }
+
+    /**
+     * Obtiene la cantidad de boletas descartadas porque el destino falló o el generador ya estaba cerrado.
+     *
+     * @return Boletas descartadas.
+     */
+    public synchronized long getDescartadas() {
+        return descartadas;
+    }
+
+    /**
+     * Escribe las boletas pendientes, detiene el hilo generador y cierra el destino.
+     *
+     * @throws IOException Si el destino falló al escribir alguna boleta o al cerrarse.
+     */
+    @Override
+    public void close() throws IOException {
+        synchronized (this) {
+            cerrado = true;
+            notifyAll();
+        }
+        if (generador.isAlive()) {
+            try {
+                generador.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        destino.close();
+        synchronized (this) {
+            if (error != null) {
+                throw new IOException("No se pudieron escribir " + descartadas + " boletas.", error);
+            }
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,137 @@
+package com.sistemateatromoro;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Generador de carga para el servidor de ventas del Teatro Moro.
+ * Simula muchos clientes concurrentes (uno por hilo virtual) que compran entradas por HTTP,
+ * y al final informa el rendimiento y la latencia observados.
+ *
+ * Uso: {@code GeneradorCarga [clientes] [solicitudesPorCliente] [urlServidor]}. Si no se indica
+ * la URL, se levanta un servidor embebido en un puerto libre con un evento de prueba.
+ */
+public class GeneradorCarga {
+    private static final String[] SECCIONES = {"VIP", "Platea baja", "Platea alta", "Galería"};
+
+    private final String urlBase;           // URL del servidor, por ejemplo http://localhost:8080
+    private final String evento;            // Evento sobre el que se compra
+    private final int clientes;             // Cantidad de clientes concurrentes
+    private final int solicitudesPorCliente; // Compras que intenta cada cliente
+
+    /**
+     * Constructor para inicializar el generador.
+     *
+     * @param urlBase               URL del servidor.
+     * @param evento                Identificador del evento.
+     * @param clientes              Cantidad de clientes concurrentes.
+     * @param solicitudesPorCliente Compras que intenta cada cliente.
+     */
+    public GeneradorCarga(String urlBase, String evento, int clientes, int solicitudesPorCliente) {
+        this.urlBase = urlBase;
+        this.evento = evento;
+        this.clientes = clientes;
+        this.solicitudesPorCliente = solicitudesPorCliente;
+    }
+
+    /**
+     * Ejecuta la carga y muestra el resumen por consola.
+     *
+     * @throws InterruptedException Si se interrumpe la espera de los clientes.
+     */
+    public void ejecutar() throws InterruptedException {
+        HttpClient http = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(10))
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .build();
+        int total = clientes * solicitudesPorCliente;
+        long[] latencias = new long[total];
+        AtomicInteger siguiente = new AtomicInteger();
+        AtomicInteger vendidas = new AtomicInteger();
+        AtomicInteger agotadas = new AtomicInteger();
+        AtomicInteger errores = new AtomicInteger();
+
+        long inicio = System.nanoTime();
+        try (ExecutorService hilos = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int c = 0; c < clientes; c++) {
+                final int cliente = c;
+                hilos.submit(() -> {
+                    ThreadLocalRandom azar = ThreadLocalRandom.current();
+                    for (int i = 0; i < solicitudesPorCliente; i++) {
+                        String seccion = SECCIONES[azar.nextInt(SECCIONES.length)];
+                        URI uri = URI.create(urlBase + "/venta?evento=" + evento
+                                + "&seccion=" + seccion.replace(" ", "+").replace("í", "%C3%AD")
+                                + "&nombre=Cliente" + cliente + "&edad=" + (10 + azar.nextInt(70))
+                                + "&sexo=" + (azar.nextBoolean() ? "Mujer" : "Hombre")
+                                + "&estudiante=" + (azar.nextInt(5) == 0));
+                        long t0 = System.nanoTime();
+                        try {
+                            HttpResponse<String> respuesta = http.send(
+                                    HttpRequest.newBuilder(uri).POST(HttpRequest.BodyPublishers.noBody()).build(),
+                                    HttpResponse.BodyHandlers.ofString());
+                            if (respuesta.statusCode() == 200) {
+                                vendidas.incrementAndGet();
+                            } else if (respuesta.statusCode() == 409) {
+                                agotadas.incrementAndGet();
+                            } else {
+                                errores.incrementAndGet();
+                            }
+                        } catch (Exception e) {
+                            errores.incrementAndGet();
+                        }
+                        latencias[siguiente.getAndIncrement()] = System.nanoTime() - t0;
+                    }
+                });
+            }
+        }
+        double segundos = (System.nanoTime() - inicio) / 1e9;
+
+        Arrays.sort(latencias);
+        System.out.println("----- Resultado de la carga -----");
+        System.out.println("Clientes concurrentes: " + clientes);
+        System.out.printf("Solicitudes: %d en %.2f s (%.0f solicitudes/s)%n", total, segundos, total / segundos);
+        System.out.println("Vendidas: " + vendidas.get() + ", sección agotada: " + agotadas.get() + ", errores: " + errores.get());
+        System.out.printf("Latencia p50: %.2f ms, p99: %.2f ms, máx: %.2f ms%n",
+                latencias[total / 2] / 1e6, latencias[(int) (total * 0.99)] / 1e6, latencias[total - 1] / 1e6);
+        System.out.println("---------------------------------");
+    }
+
+    /**
+     * Ejecuta el generador de carga contra un servidor externo o uno embebido.
+     *
+     * @param args Clientes, solicitudes por cliente y, opcionalmente, la URL del servidor.
+     * @throws Exception Si no se puede levantar el servidor embebido o se interrumpe la carga.
+     */
+    public static void main(String[] args) throws Exception {
+        int clientes = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+        int solicitudes = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+        if (args.length > 2) {
+            new GeneradorCarga(args[2], "F1", clientes, solicitudes).ejecutar();
+            return;
+        }
+        CatalogoEventos catalogo = new CatalogoEventos();
+        int porSeccion = clientes * solicitudes / SECCIONES.length + 1; // Capacidad total similar a las solicitudes
+        MapaAsientos mapa = new MapaAsientos(SECCIONES, new int[] {porSeccion, porSeccion, porSeccion, porSeccion});
+        Evento evento = new Evento("F1", "Función de prueba", "Sala principal", mapa);
+        catalogo.registrar(evento);
+        ServidorVentas servidor = new ServidorVentas(catalogo, 0);
+        servidor.iniciar();
+        try {
+            new GeneradorCarga("http://localhost:" + servidor.getPuerto(), "F1", clientes, solicitudes).ejecutar();
+            StringBuilder metricas = new StringBuilder("----- Métricas del servidor -----\n");
+            evento.getVentaEntradas().getMetricas().exponer(evento.getId(), metricas);
+            System.out.print(metricas);
+        } finally {
+            servidor.detener();
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,277 @@
+package com.sistemateatromoro;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Gestor de retenciones temporales de asientos de un evento.
+ * Una retención aparta un asiento mientras el cliente paga: el asiento queda ocupado en el motor de
+ * reservas, por lo que nadie más puede venderlo, y si la retención no se confirma antes de su plazo,
+ * una rueda de temporizadores lo devuelve automáticamente a los disponibles.
+ * Cada retención vive en un mapa por id y en un mapa de bits por asiento, sin recorrer los asientos.
+ */
+public class GestorRetenciones {
+    private final MotorReservas motor;                         // Estado de los asientos
+    private final RuedaTemporizadores rueda;                   // Vencimiento de las retenciones
+    private final ConcurrentHashMap<Long, Retencion> retenciones; // Retenciones vigentes por id
+    private final AtomicLongArray retenidos;                   // Bit encendido = asiento retenido
+    private final AtomicIntegerArray vigentesPorSeccion;       // Retenciones vigentes de cada sección
+    private final AtomicLong siguienteId;                      // Id de la próxima retención
+    private final LongAdder vencidas;                          // Retenciones que vencieron sin confirmarse
+
+    /**
+     * Retención vigente de un asiento.
+     */
+    public static class Retencion {
+        private final long id;               // Identificador de la retención
+        private final int indiceAsiento;     // Índice del asiento retenido
+        private final int idSeccion;         // Sección del asiento
+        private final Cliente cliente;       // Cliente que retiene el asiento
+        private final long vence;            // Instante de vencimiento (milisegundos desde la época)
+        private volatile RuedaTemporizadores.Temporizador temporizador; // Vencimiento programado
+
+        /**
+         * Constructor para inicializar una retención.
+         *
+         * @param id            Identificador de la retención.
+         * @param indiceAsiento Índice del asiento retenido.
+         * @param idSeccion     Sección del asiento.
+         * @param cliente       Cliente que retiene el asiento.
+         * @param vence         Instante de vencimiento en milisegundos.
+         */
+        Retencion(long id, int indiceAsiento, int idSeccion, Cliente cliente, long vence) {
+            this.id = id;
+            this.indiceAsiento = indiceAsiento;
+            this.idSeccion = idSeccion;
+            this.cliente = cliente;
+            this.vence = vence;
+        }
+
+        /**
+         * Obtiene el identificador de la retención.
+         *
+         * @return El identificador de la retención.
+         */
+        public long getId() {
+            return id;
+        }
+
+        /**
+         * Obtiene el índice del asiento retenido.
+         *
+         * @return El índice del asiento (desde 0).
+         */
+        public int getIndiceAsiento() {
+            return indiceAsiento;
+        }
+
+        /**
+         * Obtiene el número del asiento retenido.
+         *
+         * @return El número del asiento (desde 1).
+         */
+        public int getNumeroAsiento() {
+            return indiceAsiento + 1;
+        }
+
+        /**
+         * Obtiene la sección del asiento retenido.
+         *
+         * @return El id de la sección.
+         */
+        public int getIdSeccion() {
+            return idSeccion;
+        }
+
+        /**
+         * Obtiene el cliente que retiene el asiento.
+         *
+         * @return El cliente.
+         */
+        public Cliente getCliente() {
+            return cliente;
+        }
+
+        /**
+         * Obtiene el instante de vencimiento de la retención.
+         *
+         * @return Milisegundos desde la época.
+         */
+        public long getVence() {
+            return vence;
+        }
+    }
+
+    /**
+     * Constructor para inicializar el gestor.
+     *
+     * @param motor Motor de reservas del evento.
+     * @param rueda Rueda de temporizadores que vence las retenciones (puede compartirse entre eventos).
+     */
+    public GestorRetenciones(MotorReservas motor, RuedaTemporizadores rueda) {
+        this.motor = motor;
+        this.rueda = rueda;
+        this.retenciones = new ConcurrentHashMap<>();
+        this.retenidos = new AtomicLongArray((motor.getMapa().getCapacidad() + 63) >>> 6);
+        this.vigentesPorSeccion = new AtomicIntegerArray(motor.getMapa().getCantidadSecciones());
+        this.siguienteId = new AtomicLong(1);
+        this.vencidas = new LongAdder();
+    }
+
+    /**
+     * Retiene un asiento libre de una sección durante un plazo.
+     *
+     * @param idSeccion     Id de la sección.
+     * @param cliente       Cliente que retiene el asiento.
+     * @param plazoMillis   Plazo de la retención en milisegundos.
+     * @return La retención, o null si la sección está agotada.
+     */
+    public Retencion retener(int idSeccion, Cliente cliente, long plazoMillis) {
+        int indice = motor.reservar(idSeccion);
+        if (indice < 0) {
+            return null;
+        }
+        Retencion retencion = new Retencion(siguienteId.getAndIncrement(), indice, idSeccion, cliente,
+                System.currentTimeMillis() + plazoMillis);
+        marcar(indice, true);
+        vigentesPorSeccion.incrementAndGet(idSeccion);
+        retenciones.put(retencion.getId(), retencion);
+        // Se programa después de publicarla: si vence de inmediato, igual la encuentra en el mapa
+        retencion.temporizador = rueda.programar(plazoMillis, () -> vencer(retencion.getId()));
+        return retencion;
+    }
+
+    /**
+     * Retira una retención vigente para convertirla en venta. El asiento sigue ocupado.
+     * Si la retención compite con su vencimiento, solo uno de los dos la obtiene.
+     *
+     * @param id Id de la retención.
+     * @return La retención retirada, o null si no existe, venció o ya fue retirada.
+     */
+    public Retencion tomar(long id) {
+        Retencion retencion = retenciones.remove(id);
+        if (retencion == null) {
+            return null;
+        }
+        RuedaTemporizadores.Temporizador temporizador = retencion.temporizador;
+        if (temporizador != null) {
+            rueda.cancelar(temporizador);
+        }
+        marcar(retencion.getIndiceAsiento(), false);
+        vigentesPorSeccion.decrementAndGet(retencion.getIdSeccion());
+        return retencion;
+    }
+
+    /**
+     * Libera una retención antes de su plazo y devuelve el asiento a los disponibles.
+     *
+     * @param id Id de la retención.
+     * @return true si la retención estaba vigente, false de lo contrario.
+     */
+    public boolean liberar(long id) {
+        Retencion retencion = tomar(id);
+        if (retencion == null) {
+            return false;
+        }
+        motor.liberar(retencion.getIndiceAsiento());
+        return true;
+    }
+
+    /**
+     * Libera todas las retenciones vigentes y devuelve sus asientos a los disponibles, por ejemplo al cerrar
+     * el evento: una retención no queda en el journal, así que su asiento no debe quedar ocupado en el estado
+     * guardado.
+     *
+     * @return Cantidad de retenciones liberadas.
+     */
+    public int liberarTodas() {
+        int liberadas = 0;
+        for (Long id : retenciones.keySet()) {
+            if (liberar(id)) {
+                liberadas++;
+            }
+        }
+        return liberadas;
+    }
+
+    /**
+     * Vence una retención que no se confirmó a tiempo. Se ejecuta en el hilo de la rueda.
+     *
+     * @param id Id de la retención.
+     */
+    private void vencer(long id) {
+        Retencion retencion = retenciones.remove(id);
+        if (retencion != null) {
+            marcar(retencion.getIndiceAsiento(), false);
+            vigentesPorSeccion.decrementAndGet(retencion.getIdSeccion());
+            motor.liberar(retencion.getIndiceAsiento());
+            vencidas.increment();
+        }
+    }
+
+    /**
+     * Busca una retención vigente por su id.
+     *
+     * @param id Id de la retención.
+     * @return La retención, o null si no está vigente.
+     */
+    public Retencion buscar(long id) {
+        return retenciones.get(id);
+    }
+
+    /**
+     * Indica si un asiento está retenido (ocupado pero aún no vendido).
+     *
+     * @param indice Índice del asiento.
+     * @return true si el asiento tiene una retención vigente.
+     */
+    public boolean estaRetenido(int indice) {
+        return (retenidos.get(indice >>> 6) & (1L << indice)) != 0;
+    }
+
+    /**
+     * Obtiene la cantidad de retenciones vigentes.
+     *
+     * @return Retenciones vigentes.
+     */
+    public int getVigentes() {
+        return retenciones.size();
+    }
+
+    /**
+     * Obtiene la cantidad de retenciones vigentes en una sección.
+     *
+     * @param idSeccion Id de la sección.
+     * @return Asientos retenidos de la sección.
+     */
+    public int getVigentes(int idSeccion) {
+        return vigentesPorSeccion.get(idSeccion);
+    }
+
+    /**
+     * Obtiene la cantidad de retenciones que vencieron sin confirmarse.
+     *
+     * @return Retenciones vencidas.
+     */
+    public long getVencidas() {
+        return vencidas.sum();
+    }
+
+    /**
+     * Enciende o apaga el bit de retención de un asiento.
+     *
+     * @param indice   Índice del asiento.
+     * @param retenido true para marcarlo retenido.
+     */
+    private void marcar(int indice, boolean retenido) {
+        long bit = 1L << indice;
+        if (retenido) {
+            retenidos.getAndAccumulate(indice >>> 6, bit, (valor, b) -> valor | b);
+        } else {
+            retenidos.getAndAccumulate(indice >>> 6, bit, (valor, b) -> valor & ~b);
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,165 @@
+package com.sistemateatromoro;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Histograma de latencias en nanosegundos, con cubetas logarítmicas al estilo HDR.
+ * Cada potencia de 2 se divide en 8 cubetas iguales, por lo que cualquier percentil se informa con un
+ * error relativo menor a 12,5% usando un arreglo fijo de 488 contadores, sin importar el rango de valores.
+ * Registrar es seguro desde varios hilos y no usa bloqueos.
+ */
+public class HistogramaLatencia {
+    private static final int BITS_SUBCUBETA = 3;                  // 8 cubetas por potencia de 2
+    private static final int SUBCUBETAS = 1 << BITS_SUBCUBETA;    // Cubetas por potencia de 2
+    private static final int EXACTAS = 2 * SUBCUBETAS;            // Valores pequeños que tienen cubeta propia
+    private static final int CUBETAS = EXACTAS + (63 - BITS_SUBCUBETA - 1) * SUBCUBETAS; // Total de cubetas
+
+    private final AtomicLongArray conteos; // Cantidad de valores por cubeta
+    private final LongAdder suma;          // Suma de los valores registrados
+    private final AtomicLong maximo;       // Mayor valor registrado
+
+    /**
+     * Instantánea inmutable de un histograma, para consultar percentiles sin afectar el registro.
+     */
+    public static class Instantanea {
+        private final long[] conteos; // Cantidad de valores por cubeta
+        private final long cantidad;  // Cantidad total de valores
+        private final long suma;      // Suma de los valores
+        private final long maximo;    // Mayor valor
+
+        /**
+         * Constructor para inicializar una instantánea.
+         *
+         * @param conteos Cantidad de valores por cubeta.
+         * @param suma    Suma de los valores.
+         * @param maximo  Mayor valor.
+         */
+        Instantanea(long[] conteos, long suma, long maximo) {
+            long total = 0;
+            for (long conteo : conteos) {
+                total += conteo;
+            }
+            this.conteos = conteos;
+            this.cantidad = total;
+            this.suma = suma;
+            this.maximo = maximo;
+        }
+
+        /**
+         * Obtiene la cantidad de valores registrados.
+         *
+         * @return Cantidad de valores.
+         */
+        public long getCantidad() {
+            return cantidad;
+        }
+
+        /**
+         * Obtiene el promedio de los valores registrados.
+         *
+         * @return Promedio en nanosegundos, o 0 si no hay valores.
+         */
+        public double getPromedio() {
+            return cantidad == 0 ? 0 : (double) suma / cantidad;
+        }
+
+        /**
+         * Obtiene el mayor valor registrado.
+         *
+         * @return Máximo en nanosegundos.
+         */
+        public long getMaximo() {
+            return maximo;
+        }
+
+        /**
+         * Obtiene un percentil de los valores registrados.
+         *
+         * @param percentil Percentil entre 0 y 100.
+         * @return Límite superior de la cubeta que contiene el percentil, sin pasar del máximo, o 0 si no hay valores.
+         */
+        public long percentil(double percentil) {
+            if (cantidad == 0) {
+                return 0;
+            }
+            long objetivo = Math.max(1, (long) Math.ceil(cantidad * percentil / 100.0));
+            long acumulado = 0;
+            for (int i = 0; i < conteos.length; i++) {
+                acumulado += conteos[i];
+                if (acumulado >= objetivo) {
+                    return Math.min(limiteSuperior(i), maximo);
+                }
+            }
+            return maximo;
+        }
+    }
+
+    /**
+     * Constructor para inicializar un histograma vacío.
+     */
+    public HistogramaLatencia() {
+        this.conteos = new AtomicLongArray(CUBETAS);
+        this.suma = new LongAdder();
+        this.maximo = new AtomicLong();
+    }
+
+    /**
+     * Registra un valor.
+     *
+     * @param nanos Latencia en nanosegundos (los negativos se registran como 0).
+     */
+    public void registrar(long nanos) {
+        long valor = Math.max(0, nanos);
+        conteos.getAndIncrement(cubeta(valor));
+        suma.add(valor);
+        if (valor > maximo.get()) {
+            maximo.accumulateAndGet(valor, Math::max);
+        }
+    }
+
+    /**
+     * Copia el estado actual del histograma.
+     *
+     * @return Instantánea de los conteos.
+     */
+    public Instantanea instantanea() {
+        long[] copia = new long[CUBETAS];
+        for (int i = 0; i < CUBETAS; i++) {
+            copia[i] = conteos.get(i);
+        }
+        return new Instantanea(copia, suma.sum(), maximo.get());
+    }
+
+    /**
+     * Calcula la cubeta de un valor.
+     *
+     * @param valor Valor no negativo.
+     * @return Índice de la cubeta.
+     */
+    private static int cubeta(long valor) {
+        if (valor < EXACTAS) {
+            return (int) valor;
+        }
+        int exponente = 63 - Long.numberOfLeadingZeros(valor); // Al menos BITS_SUBCUBETA + 1
+        int sub = (int) (valor >>> (exponente - BITS_SUBCUBETA)) & (SUBCUBETAS - 1);
+        return EXACTAS + (exponente - BITS_SUBCUBETA - 1) * SUBCUBETAS + sub;
+    }
+
+    /**
+     * Calcula el mayor valor que cae en una cubeta.
+     *
+     * @param cubeta Índice de la cubeta.
+     * @return Límite superior (inclusive) de la cubeta.
+     */
+    private static long limiteSuperior(int cubeta) {
+        if (cubeta < EXACTAS) {
+            return cubeta;
+        }
+        int exponente = (cubeta - EXACTAS) / SUBCUBETAS + BITS_SUBCUBETA + 1;
+        int sub = (cubeta - EXACTAS) % SUBCUBETAS;
+        long ancho = 1L << (exponente - BITS_SUBCUBETA);
+        return ((long) (SUBCUBETAS + sub) << (exponente - BITS_SUBCUBETA)) + ancho - 1;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,706 @@
+package com.sistemateatromoro;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * Bitácora (journal) de solo anexado para las ventas y anulaciones del Teatro Moro.
+ * Los registros se acumulan en memoria y un hilo escritor los graba en lote con un único fsync
+ * (group commit): muchas ventas concurrentes comparten el costo de cada fsync. Periódicamente se
+ * guarda en segundo plano una instantánea del estado, de modo que al reiniciar solo se reproduce la cola
+ * del journal.
+ *
+ * Formato de cada registro: longitud (int), tipo (byte), contenido y CRC32 (int) del tipo y el contenido.
+ * Una venta guarda la entrada completa; una anulación guarda solo el id de la entrada.
+ * Cada lote grabado puede copiarse tal cual a una réplica (ver {@link Replica}); una copia byte a byte del
+ * archivo es a su vez un journal válido que puede recuperarse en otro nodo.
+ */
+public class JournalVentas implements AutoCloseable {
+    static final byte VENTA = 1;      // Registro de una venta
+    static final byte ANULACION = 2;  // Registro de una entrada eliminada
+
+    static final int MAXIMO_REGISTRO = 1 << 20;  // Bytes de un registro, como máximo
+    static final int MAXIMO_TEXTO = 0xFFFF;      // Bytes UTF-8 de cada texto de una entrada (su largo se guarda en 16 bits)
+
+    private static final int INSTANTANEA_CADA = 100_000; // Registros entre instantáneas
+
+    private final Path archivoJournal;    // Archivo de registros
+    private final Path archivoInstantanea; // Archivo con la última instantánea
+    private final FileChannel canal;       // Canal de escritura del journal
+    private final Thread escritor;         // Hilo que graba los lotes pendientes
+
+    private ByteBuffer pendiente;          // Registros anexados que aún no se escriben
+    private long posicionAnexada;          // Bytes anexados al journal (incluidos los pendientes)
+    private long posicionDurable;          // Bytes del journal que ya pasaron por fsync
+    private long registrosDesdeInstantanea; // Registros anexados desde la última instantánea
+    private boolean cerrado;               // Indica si se solicitó cerrar el journal
+    private boolean tomandoInstantanea;    // Indica si un hilo está armando una instantánea
+    private IOException error;             // Error del hilo escritor, si ocurrió
+    private volatile Replica replica;      // Copia remota de los registros grabados, o null si no se replica
+
+    /**
+     * Destino al que se copian los registros del journal apenas se graban, por ejemplo el nodo seguidor de un
+     * cluster. Se llama desde el hilo escritor antes de confirmar el lote, así una venta se confirma solo
+     * después de copiarla.
+     */
+    interface Replica {
+        /**
+         * Copia un lote de registros ya grabados con fsync. Si la copia falla, el lote no se confirma y el journal
+         * deja de aceptar registros, igual que ante un error de escritura: las ventas que esperaban el lote se
+         * deshacen. Una réplica que admite seguir sin copia (por ejemplo, mientras el seguidor no responde) vuelve
+         * sin lanzar la excepción y pone la copia al día más adelante.
+         *
+         * @param posicion  Posición del journal donde comienza el lote.
+         * @param registros Bytes del lote; el búfer se reutiliza después de la llamada.
+         * @throws IOException Si no se pudo copiar el lote.
+         */
+        void replicar(long posicion, ByteBuffer registros) throws IOException;
+    }
+
+    /**
+     * Abre (o crea) el journal en un directorio.
+     *
+     * @param directorio Directorio donde se guardan el journal y la instantánea.
+     * @throws IOException Si no se puede abrir el archivo del journal.
+     */
+    public JournalVentas(Path directorio) throws IOException {
+        Files.createDirectories(directorio);
+        this.archivoJournal = directorio.resolve("ventas.journal");
+        this.archivoInstantanea = directorio.resolve("ventas.instantanea");
+        this.canal = FileChannel.open(archivoJournal, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        this.pendiente = ByteBuffer.allocate(1 << 16);
+        this.escritor = new Thread(this::escribirLotes, "journal-ventas");
+        this.escritor.setDaemon(true);
+    }
+
+    /**
+     * Reconstruye el estado de un sistema de ventas a partir de la última instantánea y la cola del journal,
+     * y luego habilita la escritura de nuevos registros. Debe llamarse una sola vez, antes de vender.
+     * Si el final del journal quedó incompleto por una caída, se descarta desde el primer registro inválido.
+     *
+     * @param ventaEntradas Sistema de ventas vacío que se va a restaurar.
+     * @throws IOException Si no se pueden leer los archivos.
+     */
+    public void recuperar(VentaEntradas ventaEntradas) throws IOException {
+        recuperar(ventaEntradas, -1);
+    }
+
+    /**
+     * Reconstruye el estado de un sistema de ventas cuyos asientos ya reflejan el journal hasta una posición, por
+     * ejemplo un estado de asientos mapeado que se cerró correctamente: las entradas de la instantánea y de los
+     * registros anteriores se restauran sin tocar los asientos, y solo los registros posteriores los reservan o
+     * liberan. Luego habilita la escritura de nuevos registros. Debe llamarse una sola vez, antes de vender.
+     *
+     * @param ventaEntradas Sistema de ventas vacío que se va a restaurar.
+     * @param aplicadoHasta Posición del journal que ya reflejan los asientos, o -1 para aplicar todo.
+     * @return true si los registros coinciden con esa posición (o si se aplicó todo); false si la instantánea
+     *         es posterior o ningún registro termina en ella, en cuyo caso los asientos deben conciliarse con
+     *         las entradas.
+     * @throws IOException Si no se pueden leer los archivos.
+     */
+    public synchronized boolean recuperar(VentaEntradas ventaEntradas, long aplicadoHasta) throws IOException {
+        long desde = leerInstantanea(restaurador(ventaEntradas, aplicadoHasta < 0, false));
+        long posicion = desde;
+        boolean coincide = true;
+        if (aplicadoHasta >= 0) {
+            posicion = leerRegistros(desde, aplicadoHasta, restaurador(ventaEntradas, false, true));
+            coincide = desde <= aplicadoHasta && posicion == aplicadoHasta;
+        }
+        posicion = leerRegistros(posicion, Long.MAX_VALUE, restaurador(ventaEntradas, true, true));
+
+        // Se descarta una cola incompleta para que los nuevos registros queden a continuación del último válido
+        canal.truncate(posicion);
+        canal.position(posicion);
+        canal.force(true);
+        posicionAnexada = posicion;
+        posicionDurable = posicion;
+        escritor.start();
+        return coincide;
+    }
+
+    /**
+     * Receptor de los registros leídos de la instantánea y del journal, en orden.
+     */
+    private interface Lector {
+        /**
+         * Recibe una venta.
+         *
+         * @param entrada Entrada vendida.
+         */
+        void venta(Entrada entrada);
+
+        /**
+         * Recibe una anulación.
+         *
+         * @param id Id de la entrada anulada.
+         */
+        void anulacion(long id);
+    }
+
+    /**
+     * Crea el receptor que restaura en un sistema de ventas las entradas y anulaciones leídas.
+     *
+     * @param ventaEntradas Sistema de ventas que se restaura.
+     * @param conAsientos   true para reservar y liberar los asientos; false si los asientos ya las reflejan.
+     * @param contar        true para contar los registros leídos como posteriores a la instantánea.
+     * @return Receptor de los registros.
+     */
+    private Lector restaurador(VentaEntradas ventaEntradas, boolean conAsientos, boolean contar) {
+        return new Lector() {
+            @Override
+            public void venta(Entrada entrada) {
+                ventaEntradas.restaurarEntrada(entrada, conAsientos);
+                if (contar) {
+                    registrosDesdeInstantanea++;
+                }
+            }
+
+            @Override
+            public void anulacion(long id) {
+                ventaEntradas.restaurarAnulacion(id, conAsientos);
+                if (contar) {
+                    registrosDesdeInstantanea++;
+                }
+            }
+        };
+    }
+
+    /**
+     * Lee las entradas de la última instantánea, si existe.
+     *
+     * @param lector Receptor de las entradas.
+     * @return Posición del journal desde la que se deben leer los registros posteriores a la instantánea.
+     * @throws IOException Si no se puede leer la instantánea.
+     */
+    private long leerInstantanea(Lector lector) throws IOException {
+        if (!Files.exists(archivoInstantanea)) {
+            return 0;
+        }
+        try (DataInputStream entrada = new DataInputStream(
+                new BufferedInputStream(Files.newInputStream(archivoInstantanea), 1 << 16))) {
+            long desde = entrada.readLong();
+            int cantidad = entrada.readInt();
+            byte[] datos = new byte[256];
+            for (int i = 0; i < cantidad; i++) {
+                int longitud = entrada.readInt();
+                if (datos.length < longitud) {
+                    datos = new byte[longitud];
+                }
+                entrada.readFully(datos, 0, longitud);
+                lector.venta(decodificar(ByteBuffer.wrap(datos, 0, longitud)));
+            }
+            return desde;
+        }
+    }
+
+    /**
+     * Lee los registros válidos del journal entre dos posiciones, deteniéndose en el primero incompleto o dañado.
+     * Un registro en cero o que no alcanza a estar completo en el archivo es la cola de una escritura
+     * interrumpida; un largo mayor que {@link #MAXIMO_REGISTRO}, o un registro que no se puede decodificar, indica
+     * un journal dañado y detiene la lectura con un error, en lugar de descartar todo lo que sigue.
+     *
+     * @param desde  Posición del primer registro.
+     * @param hasta  Posición en la que se deja de leer.
+     * @param lector Receptor de los registros.
+     * @return Posición al final del último registro válido leído.
+     * @throws IOException Si no se puede leer el journal o está dañado.
+     */
+    private long leerRegistros(long desde, long hasta, Lector lector) throws IOException {
+        long posicion = desde;
+        try (FileChannel lectura = FileChannel.open(archivoJournal, StandardOpenOption.READ);
+             DataInputStream entrada = new DataInputStream(
+                     new BufferedInputStream(Channels.newInputStream(lectura.position(desde)), 1 << 16))) {
+            long tamano = lectura.size();
+            CRC32 crc = new CRC32();
+            byte[] datos = new byte[256];
+            while (posicion < hasta) {
+                int longitud;
+                try {
+                    longitud = entrada.readInt();
+                    if (longitud > MAXIMO_REGISTRO) { // Ningún registro escrito puede medir tanto
+                        throw new IOException("Registro de " + longitud + " bytes en la posición " + posicion
+                                + " del journal " + archivoJournal + ": el journal está dañado.");
+                    }
+                    if (longitud < 1 || posicion + longitud + 8 > tamano) {
+                        break; // Cola en cero o incompleta: la escritura se interrumpió
+                    }
+                    if (datos.length < longitud) {
+                        datos = new byte[longitud];
+                    }
+                    entrada.readFully(datos, 0, longitud);
+                    crc.reset();
+                    crc.update(datos, 0, longitud);
+                    if ((int) crc.getValue() != entrada.readInt()) {
+                        break;
+                    }
+                } catch (EOFException e) {
+                    break;
+                }
+                ByteBuffer registro = ByteBuffer.wrap(datos, 0, longitud);
+                byte tipo = registro.get();
+                Entrada venta;
+                try {
+                    venta = tipo == VENTA ? decodificar(registro) : null;
+                } catch (RuntimeException e) { // El CRC coincide pero el contenido no: se escribió mal
+                    throw new IOException("Registro ilegible en la posición " + posicion + " del journal "
+                            + archivoJournal + ": el journal está dañado.", e);
+                }
+                if (venta != null) {
+                    lector.venta(venta);
+                } else if (tipo == ANULACION) {
+                    lector.anulacion(registro.getLong());
+                }
+                posicion += longitud + 8;
+            }
+        }
+        return posicion;
+    }
+
+    /**
+     * Anexa los registros de un lote de ventas, todos o ninguno. Debe llamarse antes de publicar las entradas,
+     * así una anulación de cualquiera de ellas siempre queda después en el journal. Los registros se codifican
+     * fuera del bloqueo del journal, que solo se toma para copiarlos al búfer pendiente.
+     *
+     * @param lote Entradas vendidas.
+     * @return Posición del journal que debe ser durable para confirmar todo el lote.
+     * @throws IllegalArgumentException Si algún texto de una entrada es demasiado largo para el journal.
+     * @throws IllegalStateException    Si el journal está cerrado.
+     */
+    public long registrarVentas(List<Entrada> lote) {
+        byte[][] registros = new byte[lote.size()][];
+        for (int i = 0; i < registros.length; i++) {
+            registros[i] = armarRegistro(VENTA, codificar(lote.get(i)));
+        }
+        return anexar(registros);
+    }
+
+    /**
+     * Anexa el registro de una entrada anulada.
+     *
+     * @param id Id de la entrada anulada.
+     * @return Posición del journal que debe ser durable para confirmar la anulación.
+     * @throws IllegalStateException Si el journal está cerrado.
+     */
+    public long registrarAnulacion(long id) {
+        return anexar(armarRegistro(ANULACION, ByteBuffer.allocate(8).putLong(id).array()));
+    }
+
+    /**
+     * Codifica una entrada vendida en bytes.
+     *
+     * @param entrada Entrada vendida.
+     * @return Bytes de la entrada.
+     * @throws IllegalArgumentException Si algún texto supera {@link #MAXIMO_TEXTO} bytes.
+     */
+    static byte[] codificar(Entrada entrada) {
+        Cliente cliente = entrada.getCliente();
+        byte[] seccion = entrada.getSeccion().getBytes(StandardCharsets.UTF_8);
+        byte[] nombre = cliente.getNombre().getBytes(StandardCharsets.UTF_8);
+        byte[] tipo = cliente.getTipo().getBytes(StandardCharsets.UTF_8);
+        byte[] sexo = cliente.getSexo().getBytes(StandardCharsets.UTF_8);
+        for (byte[] texto : new byte[][] {seccion, nombre, tipo, sexo}) {
+            if (texto.length > MAXIMO_TEXTO) { // Con un largo truncado el registro sería ilegible al recuperarlo
+                throw new IllegalArgumentException("Texto de " + texto.length + " bytes en la entrada "
+                        + entrada.getId() + ": el máximo es " + MAXIMO_TEXTO + ".");
+            }
+        }
+        ByteBuffer datos = ByteBuffer.allocate(8 + 4 + 8 + 8 + 8 + 4 + 1
+                + 4 * 2 + seccion.length + nombre.length + tipo.length + sexo.length);
+        datos.putLong(entrada.getId())
+                .putInt(entrada.getIndiceAsiento())
+                .putDouble(entrada.getPrecio())
+                .putDouble(entrada.getPorcentajeDescuento())
+                .putLong(entrada.getFechaVenta())
+                .putInt(cliente.getEdad())
+                .put((byte) (cliente.isEstudiante() ? 1 : 0));
+        for (byte[] texto : new byte[][] {seccion, nombre, tipo, sexo}) {
+            datos.putShort((short) texto.length).put(texto);
+        }
+        return datos.array();
+    }
+
+    /**
+     * Decodifica una entrada vendida desde bytes.
+     *
+     * @param datos Bytes de la entrada, desde la posición actual del búfer.
+     * @return Entrada vendida.
+     */
+    static Entrada decodificar(ByteBuffer datos) {
+        long id = datos.getLong();
+        int indice = datos.getInt();
+        double precio = datos.getDouble();
+        double descuento = datos.getDouble();
+        long fecha = datos.getLong();
+        int edad = datos.getInt();
+        boolean estudiante = datos.get() == 1;
+        String seccion = leerTexto(datos);
+        String nombre = leerTexto(datos);
+        String tipo = leerTexto(datos);
+        String sexo = leerTexto(datos);
+        Cliente cliente = new Cliente(nombre, edad, tipo, sexo, estudiante);
+        return new Entrada(id, indice, seccion, cliente, precio, descuento, fecha);
+    }
+
+    /**
+     * Lee un texto UTF-8 precedido por su largo.
+     *
+     * @param datos Búfer de lectura.
+     * @return Texto leído.
+     */
+    private static String leerTexto(ByteBuffer datos) {
+        int largo = datos.getShort() & 0xFFFF;
+        String texto = new String(datos.array(), datos.arrayOffset() + datos.position(), largo, StandardCharsets.UTF_8);
+        datos.position(datos.position() + largo);
+        return texto;
+    }
+
+    /**
+     * Arma un registro completo: longitud, tipo, contenido y CRC32 del tipo y el contenido.
+     *
+     * @param tipo      Tipo de registro.
+     * @param contenido Contenido del registro.
+     * @return Bytes del registro.
+     * @throws IllegalArgumentException Si el registro supera {@link #MAXIMO_REGISTRO} bytes.
+     */
+    private static byte[] armarRegistro(byte tipo, byte[] contenido) {
+        int longitud = 1 + contenido.length;
+        if (longitud > MAXIMO_REGISTRO) {
+            throw new IllegalArgumentException("Registro de " + longitud + " bytes: el máximo es " + MAXIMO_REGISTRO + ".");
+        }
+        ByteBuffer registro = ByteBuffer.allocate(longitud + 8);
+        registro.putInt(longitud).put(tipo).put(contenido);
+        CRC32 crc = new CRC32();
+        crc.update(registro.array(), 4, longitud);
+        registro.putInt((int) crc.getValue());
+        return registro.array();
+    }
+
+    /**
+     * Copia registros ya armados al final del búfer pendiente y despierta al hilo escritor.
+     *
+     * @param registros Registros completos, en orden.
+     * @return Posición del journal al final del último registro.
+     * @throws IllegalStateException Si el journal está cerrado.
+     */
+    private synchronized long anexar(byte[]... registros) {
+        if (cerrado) {
+            throw new IllegalStateException("El journal está cerrado.");
+        }
+        int largo = 0;
+        for (byte[] registro : registros) {
+            largo += registro.length;
+        }
+        if (pendiente.remaining() < largo) {
+            ByteBuffer mayor = ByteBuffer.allocate(Math.max(pendiente.capacity() * 2, pendiente.position() + largo));
+            pendiente.flip();
+            mayor.put(pendiente);
+            pendiente = mayor;
+        }
+        for (byte[] registro : registros) {
+            pendiente.put(registro);
+        }
+        posicionAnexada += largo;
+        registrosDesdeInstantanea += registros.length;
+        notifyAll();
+        return posicionAnexada;
+    }
+
+    /**
+     * Espera hasta que el journal haya grabado con fsync todo lo anexado hasta la posición indicada.
+     *
+     * @param posicion Posición devuelta al anexar el registro.
+     * @throws UncheckedIOException Si el hilo escritor no pudo grabar el journal.
+     */
+    public synchronized void esperarDurable(long posicion) {
+        boolean interrumpido = false;
+        while (posicionDurable < posicion && error == null) {
+            try {
+                wait();
+            } catch (InterruptedException e) {
+                interrumpido = true;
+            }
+        }
+        if (interrumpido) {
+            Thread.currentThread().interrupt();
+        }
+        if (error != null) {
+            throw new UncheckedIOException("No se pudo grabar el journal de ventas.", error);
+        }
+    }
+
+    /**
+     * Verifica que el journal todavía acepte registros.
+     *
+     * @throws UncheckedIOException  Si el hilo escritor no pudo grabar el journal.
+     * @throws IllegalStateException Si el journal está cerrado.
+     */
+    public synchronized void verificarDisponible() {
+        if (error != null) {
+            throw new UncheckedIOException("No se pudo grabar el journal de ventas.", error);
+        }
+        if (cerrado) {
+            throw new IllegalStateException("El journal está cerrado.");
+        }
+    }
+
+    /**
+     * Indica si ya se anexaron suficientes registros como para tomar una nueva instantánea.
+     *
+     * @return true si conviene tomar una instantánea.
+     */
+    public synchronized boolean necesitaInstantanea() {
+        return registrosDesdeInstantanea >= INSTANTANEA_CADA;
+    }
+
+    /**
+     * Obtiene la posición actual del journal, incluidos los registros pendientes.
+     *
+     * @return Posición al final del último registro anexado.
+     */
+    public synchronized long getPosicion() {
+        return posicionAnexada;
+    }
+
+    /**
+     * Si ya se anexaron suficientes registros, toma una nueva instantánea en un hilo aparte, sin detener las
+     * ventas: la instantánea se arma desde la anterior y los registros grabados desde entonces, no desde el
+     * estado en memoria, así refleja exactamente la posición marcada. Si ya hay una en curso, no hace nada.
+     */
+    public void solicitarInstantanea() {
+        long hasta;
+        synchronized (this) {
+            if (registrosDesdeInstantanea < INSTANTANEA_CADA || tomandoInstantanea || cerrado || error != null) {
+                return;
+            }
+            tomandoInstantanea = true;
+            registrosDesdeInstantanea = 0;
+            hasta = posicionAnexada;
+        }
+        Thread hilo = new Thread(() -> tomarInstantanea(hasta), "instantanea-ventas");
+        hilo.setDaemon(true);
+        hilo.start();
+    }
+
+    /**
+     * Arma y guarda la instantánea del estado en una posición del journal. Si falla, las ventas siguen
+     * confirmándose y se reintenta con la próxima solicitud.
+     *
+     * @param hasta Posición del journal que reflejará la instantánea.
+     */
+    private void tomarInstantanea(long hasta) {
+        try {
+            // La instantánea no puede apuntar a registros que todavía podrían perderse
+            esperarDurable(hasta);
+            Map<Long, Entrada> vigentes = new LinkedHashMap<>();
+            Lector lector = new Lector() {
+                @Override
+                public void venta(Entrada entrada) {
+                    vigentes.put(entrada.getId(), entrada);
+                }
+
+                @Override
+                public void anulacion(long id) {
+                    vigentes.remove(id);
+                }
+            };
+            long leido = leerRegistros(leerInstantanea(lector), hasta, lector);
+            if (leido != hasta) {
+                throw new IOException("El journal termina en " + leido + " y se esperaba " + hasta + ".");
+            }
+            escribirInstantanea(hasta, vigentes.values());
+        } catch (IOException | RuntimeException e) {
+            System.err.println("No se pudo guardar la instantánea de ventas: " + e.getMessage());
+        } finally {
+            synchronized (this) {
+                tomandoInstantanea = false;
+                notifyAll();
+            }
+        }
+    }
+
+    /**
+     * Guarda una instantánea del estado en la posición indicada del journal.
+     * El archivo se escribe aparte y se reemplaza de forma atómica, así una caída a mitad
+     * de la escritura conserva la instantánea anterior.
+     *
+     * @param posicion Posición del journal que refleja el estado copiado.
+     * @param entradas Entradas vendidas en esa posición.
+     * @throws IOException Si no se puede escribir la instantánea.
+     */
+    private void escribirInstantanea(long posicion, Collection<Entrada> entradas) throws IOException {
+        Path temporal = archivoInstantanea.resolveSibling(archivoInstantanea.getFileName() + ".tmp");
+        try (FileChannel salidaCanal = FileChannel.open(temporal, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+             DataOutputStream salida = new DataOutputStream(
+                     new BufferedOutputStream(Channels.newOutputStream(salidaCanal), 1 << 16))) {
+            salida.writeLong(posicion);
+            salida.writeInt(entradas.size());
+            for (Entrada entrada : entradas) {
+                byte[] datos = codificar(entrada);
+                salida.writeInt(datos.length);
+                salida.write(datos);
+            }
+            salida.flush();
+            salidaCanal.force(true);
+        }
+        Files.move(temporal, archivoInstantanea, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Configura la réplica a la que se copia cada lote grabado desde ahora.
+     *
+     * @param replica Réplica del journal, o null para dejar de replicar.
+     */
+    void setReplica(Replica replica) {
+        this.replica = replica;
+    }
+
+    /**
+     * Lee bytes ya grabados del journal, por ejemplo para poner al día una réplica atrasada.
+     * Puede llamarse mientras el hilo escritor sigue anexando.
+     *
+     * @param posicion Posición desde la que se lee.
+     * @param destino  Búfer donde se copian los bytes, hasta llenarlo o llegar a lo grabado con fsync.
+     * @throws IOException Si no se puede leer el archivo.
+     */
+    void leer(long posicion, ByteBuffer destino) throws IOException {
+        long hasta;
+        synchronized (this) {
+            hasta = posicionDurable;
+        }
+        if (hasta - posicion < destino.remaining()) {
+            destino.limit(destino.position() + (int) Math.max(0, hasta - posicion));
+        }
+        while (destino.hasRemaining()) {
+            int leidos = canal.read(destino, posicion);
+            if (leidos < 0) {
+                throw new EOFException("El journal terminó antes de lo esperado.");
+            }
+            posicion += leidos;
+        }
+    }
+
+    /**
+     * Ciclo del hilo escritor: toma todo lo pendiente, lo escribe y hace un único fsync por lote.
+     * Si hay una réplica, le copia el lote antes de confirmarlo; si la escritura o la copia fallan, el archivo se
+     * recorta al final del último lote confirmado, para que el lote fallido no se reproduzca ni se copie al
+     * reiniciar, y el journal queda fallido.
+     */
+    private void escribirLotes() {
+        ByteBuffer enEscritura = ByteBuffer.allocate(pendiente.capacity());
+        while (true) {
+            long hasta;
+            synchronized (this) {
+                while (pendiente.position() == 0 && !cerrado) {
+                    try {
+                        wait();
+                    } catch (InterruptedException e) {
+                        // El cierre se indica con la bandera, no con la interrupción
+                    }
+                }
+                if (pendiente.position() == 0) {
+                    return;
+                }
+                // Se intercambian los búferes para que las ventas sigan anexando mientras se escribe
+                ByteBuffer lleno = pendiente;
+                pendiente = enEscritura.capacity() >= lleno.capacity() ? enEscritura : ByteBuffer.allocate(lleno.capacity());
+                enEscritura = lleno;
+                hasta = posicionAnexada;
+            }
+            try {
+                enEscritura.flip();
+                while (enEscritura.hasRemaining()) {
+                    canal.write(enEscritura);
+                }
+                canal.force(false);
+                Replica destino = replica;
+                if (destino != null) {
+                    enEscritura.rewind();
+                    destino.replicar(hasta - enEscritura.remaining(), enEscritura);
+                }
+                enEscritura.clear();
+            } catch (IOException e) {
+                try {
+                    canal.truncate(hasta - enEscritura.limit()); // Las ventas del lote se deshacen: no deben recuperarse
+                    canal.force(true);
+                } catch (IOException recorte) {
+                    e.addSuppressed(recorte);
+                    System.err.println("No se pudo recortar el lote fallido del journal " + archivoJournal
+                            + "; se recuperará al reiniciar: " + recorte);
+                }
+                synchronized (this) {
+                    error = e;
+                    notifyAll();
+                }
+                return;
+            }
+            synchronized (this) {
+                posicionDurable = hasta;
+                notifyAll();
+            }
+        }
+    }
+
+    /**
+     * Obtiene la posición hasta la que el journal confirmó registros, por ejemplo para guardarla junto a un estado
+     * de asientos al cerrar.
+     *
+     * @return Posición del final del último lote confirmado, o -1 si el journal falló.
+     */
+    public synchronized long getPosicionConfirmada() {
+        return error == null ? posicionDurable : -1;
+    }
+
+    /**
+     * Graba los registros pendientes, detiene el hilo escritor y cierra el archivo.
+     *
+     * @throws IOException Si no se puede cerrar el archivo.
+     */
+    @Override
+    public void close() throws IOException {
+        synchronized (this) {
+            cerrado = true;
+            notifyAll();
+        }
+        if (escritor.isAlive()) {
+            try {
+                escritor.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        synchronized (this) {
+            boolean interrumpido = false;
+            while (tomandoInstantanea) { // Se deja terminar la instantánea en curso
+                try {
+                    wait();
+                } catch (InterruptedException e) {
+                    interrumpido = true;
+                }
+            }
+            if (interrumpido) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        canal.close();
+    }
+}
\ No newline at end of file
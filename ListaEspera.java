@@ -0,0 +1,401 @@
+package com.sistemateatromoro;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Lista de espera de un evento del Teatro Moro, con una cola por sección.
+ * Cuando una sección está agotada, el cliente puede inscribirse en su cola; cada vez que se libera un asiento
+ * de la sección (una anulación, o una retención liberada o vencida), un despachador en segundo plano se lo
+ * vende al primero de la cola. Los clientes preferentes se atienden antes que los normales y, dentro de una
+ * misma prioridad, por orden de llegada.
+ *
+ * Liberar un asiento solo marca la sección como pendiente y, si no lo estaba, despierta al despachador: no se
+ * encola una tarea por asiento. Así, una anulación masiva (por ejemplo al reprogramar una función) se atiende
+ * con pocas pasadas del despachador, cada una de hasta {@link #LOTE} clientes por sección vendidos con un solo
+ * fsync del journal. Las colas tienen un máximo de solicitudes por sección: cuando se llena, la inscripción se
+ * rechaza en lugar de acumular clientes que no alcanzarán a ser atendidos.
+ *
+ * Una venta directa que llegue mientras un asiento liberado aún no se despacha puede tomarlo antes que la cola.
+ *
+ * Una solicitud asignada se conserva hasta que el cliente la consulta con {@link #consultar(long)}, o como
+ * máximo {@link #PLAZO_ASIGNADA_MILLIS}; después solo queda su entrada en las ventas del evento.
+ */
+public class ListaEspera implements AutoCloseable {
+    public static final int NORMAL = 0;     // Prioridad de un cliente común
+    public static final int PREFERENTE = 1; // Prioridad de un cliente preferente (se atiende antes)
+
+    public static final int ESPERANDO = 0;  // La solicitud está en la cola
+    public static final int ASIGNADA = 1;   // Se vendió un asiento al cliente
+    public static final int CANCELADA = 2;  // El cliente dejó la cola
+
+    static final int LOTE = 256; // Solicitudes atendidas por sección en cada pasada del despachador
+    static final long PLAZO_ASIGNADA_MILLIS = 15 * 60_000; // Tiempo que una solicitud asignada espera su consulta
+
+    private static final Comparator<Solicitud> ORDEN =
+            Comparator.comparingInt((Solicitud solicitud) -> -solicitud.prioridad).thenComparingLong(solicitud -> solicitud.id);
+
+    private final VentaEntradas ventaEntradas;         // Ventas del evento
+    private final MotorReservas motor;                 // Asientos libres de cada sección
+    private final int capacidad;                       // Solicitudes en espera por sección, como máximo
+    private final RuedaTemporizadores rueda;           // Descarta las solicitudes asignadas que no se consultan
+    private final List<PriorityQueue<Solicitud>> colas; // Cola de cada sección (protegida por la propia cola)
+    private final AtomicIntegerArray esperando;        // Solicitudes en la cola de cada sección
+    private final AtomicIntegerArray pendientes;       // 1 = la sección liberó asientos desde la última pasada
+    private final ConcurrentHashMap<Long, Solicitud> solicitudes; // Solicitudes en espera o asignadas, por id
+    private final AtomicLong siguienteId;              // Id de la próxima solicitud
+    private final LongAdder asignadas;                 // Solicitudes atendidas con un asiento
+    private final LongAdder rechazadas;                // Inscripciones rechazadas por cola llena
+    private final Thread despachador;                  // Hilo que vende los asientos liberados
+    private volatile boolean activa;                   // false cuando se cierra la lista
+
+    /**
+     * Solicitud de un cliente en la lista de espera.
+     */
+    public static class Solicitud {
+        private final long id;              // Identificador de la solicitud (orden de llegada)
+        private final int idSeccion;        // Sección pedida
+        private final Cliente cliente;      // Cliente que espera
+        private final int prioridad;        // NORMAL o PREFERENTE
+        private volatile int estado;        // ESPERANDO, ASIGNADA o CANCELADA
+        private volatile Entrada entrada;   // Entrada vendida, cuando la solicitud se asigna
+        private RuedaTemporizadores.Temporizador temporizador; // Descarte de la solicitud asignada (rueda)
+
+        /**
+         * Constructor para inicializar una solicitud en espera.
+         *
+         * @param id        Identificador de la solicitud.
+         * @param idSeccion Sección pedida.
+         * @param cliente   Cliente que espera.
+         * @param prioridad Prioridad del cliente.
+         */
+        Solicitud(long id, int idSeccion, Cliente cliente, int prioridad) {
+            this.id = id;
+            this.idSeccion = idSeccion;
+            this.cliente = cliente;
+            this.prioridad = prioridad;
+        }
+
+        /**
+         * Obtiene el identificador de la solicitud.
+         *
+         * @return El identificador.
+         */
+        public long getId() {
+            return id;
+        }
+
+        /**
+         * Obtiene la sección pedida.
+         *
+         * @return El id de la sección.
+         */
+        public int getIdSeccion() {
+            return idSeccion;
+        }
+
+        /**
+         * Obtiene el cliente que espera.
+         *
+         * @return El cliente.
+         */
+        public Cliente getCliente() {
+            return cliente;
+        }
+
+        /**
+         * Obtiene la prioridad de la solicitud.
+         *
+         * @return NORMAL o PREFERENTE.
+         */
+        public int getPrioridad() {
+            return prioridad;
+        }
+
+        /**
+         * Obtiene el estado de la solicitud.
+         *
+         * @return ESPERANDO, ASIGNADA o CANCELADA.
+         */
+        public int getEstado() {
+            return estado;
+        }
+
+        /**
+         * Obtiene la entrada vendida al cliente.
+         *
+         * @return La entrada, o null si la solicitud aún no se asigna.
+         */
+        public Entrada getEntrada() {
+            return entrada;
+        }
+    }
+
+    /**
+     * Crea la lista de espera de un evento e inicia su despachador.
+     *
+     * @param ventaEntradas Ventas del evento.
+     * @param motor         Motor de reservas del evento.
+     * @param capacidad     Solicitudes en espera por sección, como máximo.
+     * @param rueda         Rueda de temporizadores que descarta las solicitudes asignadas que no se consultan.
+     * @throws IllegalArgumentException Si la capacidad no es positiva.
+     */
+    ListaEspera(VentaEntradas ventaEntradas, MotorReservas motor, int capacidad, RuedaTemporizadores rueda) {
+        if (capacidad <= 0) {
+            throw new IllegalArgumentException("La capacidad de la lista de espera debe ser positiva.");
+        }
+        int secciones = motor.getMapa().getCantidadSecciones();
+        this.ventaEntradas = ventaEntradas;
+        this.motor = motor;
+        this.capacidad = capacidad;
+        this.rueda = rueda;
+        this.colas = new ArrayList<>(secciones);
+        for (int id = 0; id < secciones; id++) {
+            colas.add(new PriorityQueue<>(ORDEN));
+        }
+        this.esperando = new AtomicIntegerArray(secciones);
+        this.pendientes = new AtomicIntegerArray(secciones);
+        this.solicitudes = new ConcurrentHashMap<>();
+        this.siguienteId = new AtomicLong(1);
+        this.asignadas = new LongAdder();
+        this.rechazadas = new LongAdder();
+        this.activa = true;
+        this.despachador = new Thread(this::despachar, "lista-espera");
+        despachador.setDaemon(true);
+        despachador.start();
+    }
+
+    /**
+     * Inscribe a un cliente en la cola de una sección.
+     * Si la sección tiene asientos libres en ese momento, el despachador se lo asigna en su próxima pasada.
+     *
+     * @param idSeccion Id de la sección.
+     * @param cliente   Cliente que espera.
+     * @param prioridad NORMAL o PREFERENTE.
+     * @return La solicitud, o null si la cola de la sección está llena.
+     * @throws IllegalArgumentException Si la prioridad no es válida.
+     */
+    public Solicitud inscribir(int idSeccion, Cliente cliente, int prioridad) {
+        if (prioridad != NORMAL && prioridad != PREFERENTE) {
+            throw new IllegalArgumentException("Prioridad inválida: " + prioridad);
+        }
+        Solicitud solicitud = new Solicitud(siguienteId.getAndIncrement(), idSeccion, cliente, prioridad);
+        PriorityQueue<Solicitud> cola = colas.get(idSeccion);
+        synchronized (cola) {
+            if (cola.size() >= capacidad) {
+                rechazadas.increment();
+                return null;
+            }
+            solicitudes.put(solicitud.id, solicitud);
+            cola.add(solicitud);
+            esperando.incrementAndGet(idSeccion);
+        }
+        if (motor.disponibles(idSeccion) > 0) { // Se liberó un asiento mientras el cliente se inscribía
+            avisar(idSeccion);
+        }
+        return solicitud;
+    }
+
+    /**
+     * Retira a un cliente de la cola antes de que se le asigne un asiento.
+     *
+     * @param id Id de la solicitud.
+     * @return true si la solicitud estaba esperando, false si no existe, ya se asignó o se está asignando.
+     */
+    public boolean cancelar(long id) {
+        Solicitud solicitud = solicitudes.get(id);
+        if (solicitud == null) {
+            return false;
+        }
+        PriorityQueue<Solicitud> cola = colas.get(solicitud.idSeccion);
+        synchronized (cola) {
+            if (!cola.remove(solicitud)) { // El despachador ya la sacó de la cola
+                return false;
+            }
+            solicitud.estado = CANCELADA;
+            esperando.decrementAndGet(solicitud.idSeccion);
+        }
+        solicitudes.remove(id);
+        return true;
+    }
+
+    /**
+     * Busca una solicitud en espera o ya asignada, sin consumirla.
+     *
+     * @param id Id de la solicitud.
+     * @return La solicitud, o null si no existe, fue cancelada o ya se descartó.
+     */
+    public Solicitud buscar(long id) {
+        return solicitudes.get(id);
+    }
+
+    /**
+     * Consulta una solicitud en nombre de su cliente. Si ya está asignada, se entrega por última vez y se
+     * descarta: la entrada vendida sigue disponible en las ventas del evento.
+     *
+     * @param id Id de la solicitud.
+     * @return La solicitud, o null si no existe, fue cancelada o ya se descartó.
+     */
+    public Solicitud consultar(long id) {
+        Solicitud solicitud = solicitudes.get(id);
+        if (solicitud != null && solicitud.estado == ASIGNADA && descartar(solicitud)) {
+            RuedaTemporizadores.Temporizador temporizador;
+            synchronized (solicitud) {
+                temporizador = solicitud.temporizador;
+            }
+            if (temporizador != null) {
+                rueda.cancelar(temporizador);
+            }
+        }
+        return solicitud;
+    }
+
+    /**
+     * Quita una solicitud asignada del índice.
+     *
+     * @param solicitud Solicitud asignada.
+     * @return true si todavía estaba en el índice.
+     */
+    private boolean descartar(Solicitud solicitud) {
+        return solicitudes.remove(solicitud.id, solicitud);
+    }
+
+    /**
+     * Avisa que se liberó un asiento de una sección. Es llamado por el motor de reservas en cada liberación,
+     * por lo que solo marca la sección y despierta al despachador si hay clientes esperando.
+     *
+     * @param idSeccion Id de la sección del asiento liberado.
+     */
+    void avisar(int idSeccion) {
+        if (esperando.get(idSeccion) > 0 && pendientes.get(idSeccion) == 0 && pendientes.getAndSet(idSeccion, 1) == 0) {
+            LockSupport.unpark(despachador);
+        }
+    }
+
+    /**
+     * Ciclo del despachador: atiende las secciones marcadas y se duerme cuando no queda trabajo.
+     */
+    private void despachar() {
+        while (activa) {
+            boolean trabajo = false;
+            for (int id = 0; id < colas.size(); id++) {
+                if (pendientes.get(id) != 0 && pendientes.getAndSet(id, 0) != 0) {
+                    trabajo |= atender(id);
+                }
+            }
+            if (!trabajo) {
+                LockSupport.park(this);
+            }
+        }
+    }
+
+    /**
+     * Vende los asientos libres de una sección a los primeros de su cola, hasta {@link #LOTE} clientes.
+     *
+     * @param idSeccion Id de la sección.
+     * @return true si quedaron clientes y asientos para otra pasada.
+     */
+    private boolean atender(int idSeccion) {
+        int libres = motor.disponibles(idSeccion);
+        if (libres <= 0) {
+            return false;
+        }
+        List<Solicitud> lote = new ArrayList<>(Math.min(libres, LOTE));
+        PriorityQueue<Solicitud> cola = colas.get(idSeccion);
+        synchronized (cola) {
+            while (lote.size() < libres && lote.size() < LOTE && !cola.isEmpty()) {
+                lote.add(cola.poll());
+            }
+        }
+        if (lote.isEmpty()) {
+            return false;
+        }
+        List<Cliente> clientes = new ArrayList<>(lote.size());
+        for (Solicitud solicitud : lote) {
+            clientes.add(solicitud.cliente);
+        }
+        List<Entrada> vendidas;
+        try {
+            vendidas = ventaEntradas.venderEnLote(idSeccion, clientes);
+        } catch (RuntimeException e) { // venderEnLote ya liberó los asientos que alcanzó a reservar
+            System.err.println("Error al despachar la lista de espera: " + e);
+            vendidas = List.of();
+        }
+        for (int i = 0; i < vendidas.size(); i++) {
+            Solicitud solicitud = lote.get(i);
+            solicitud.entrada = vendidas.get(i);
+            solicitud.estado = ASIGNADA;
+            synchronized (solicitud) { // Antes de consultarla, el cliente puede descartarla
+                if (solicitudes.get(solicitud.id) == solicitud) {
+                    solicitud.temporizador = rueda.programar(PLAZO_ASIGNADA_MILLIS, () -> descartar(solicitud));
+                }
+            }
+        }
+        asignadas.add(vendidas.size());
+        ventaEntradas.emitirBoletas(vendidas);
+        synchronized (cola) {
+            esperando.addAndGet(idSeccion, -vendidas.size());
+            for (int i = vendidas.size(); i < lote.size(); i++) {
+                cola.add(lote.get(i)); // Una venta directa tomó el asiento: vuelven a su lugar en la cola
+            }
+        }
+        if (vendidas.size() == lote.size() && esperando.get(idSeccion) > 0 && motor.disponibles(idSeccion) > 0) {
+            pendientes.set(idSeccion, 1); // Quedan asientos y clientes: otra pasada, sin acaparar al despachador
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Obtiene la cantidad de clientes esperando en una sección.
+     *
+     * @param idSeccion Id de la sección.
+     * @return Solicitudes en espera.
+     */
+    public int getEsperando(int idSeccion) {
+        return esperando.get(idSeccion);
+    }
+
+    /**
+     * Obtiene la cantidad máxima de solicitudes en espera por sección.
+     *
+     * @return Capacidad de cada cola.
+     */
+    public int getCapacidad() {
+        return capacidad;
+    }
+
+    /**
+     * Obtiene la cantidad de solicitudes atendidas con un asiento.
+     *
+     * @return Solicitudes asignadas.
+     */
+    public long getAsignadas() {
+        return asignadas.sum();
+    }
+
+    /**
+     * Obtiene la cantidad de inscripciones rechazadas porque la cola estaba llena.
+     *
+     * @return Inscripciones rechazadas.
+     */
+    public long getRechazadas() {
+        return rechazadas.sum();
+    }
+
+    /**
+     * Detiene el despachador. Las solicitudes en espera ya no se atienden.
+     */
+    @Override
+    public void close() {
+        activa = false;
+        LockSupport.unpark(despachador);
+    }
+}
\ No newline at end of file
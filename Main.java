@@ -1,5 +1,12 @@
 package com.sistemateatromoro;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Locale;
+import java.util.Properties;
 import java.util.Scanner;
 
 /**
@@ -8,18 +15,90 @@ import java.util.Scanner;
  * gestionar entradas y salir del sistema.
  */
 public class Main {
+    private static final int ESPERA_POR_SECCION = 10_000; // Clientes en espera por sección en el servidor
+
     public static void main(String[] args) {
+        Path directorioEstados = null;
+        String nodosCluster = null;
+        String nodoPropio = null;
+        Path directorioJournales = null;
+        Path estadosConsultados = null;
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            if (args[i].equals("--ver-estado")) {
+                estadosConsultados = Paths.get(args[i + 1]); // Solo lectura, aunque otro proceso esté vendiendo
+            } else if (args[i].equals("--journal")) {
+                directorioJournales = Paths.get(args[i + 1]); // Se activa antes de cualquier importación
+            } else if (args[i].equals("--estado")) {
+                directorioEstados = Paths.get(args[i + 1]); // Se lee antes porque los eventos se crean sobre él
+            } else if (args[i].equals("--cluster")) {
+                nodosCluster = args[i + 1]; // Direcciones de los nodos, separadas por comas
+            } else if (args[i].equals("--nodo")) {
+                nodoPropio = args[i + 1];
+            }
+        }
+        if (estadosConsultados != null) {
+            verEstados(crearCatalogo(null), estadosConsultados);
+            return;
+        }
+        if (directorioEstados != null && directorioJournales == null) {
+            // Sin journal no se recupera ninguna entrada: los asientos vendidos y retenidos quedarían ocupados para siempre
+            System.out.println("El estado de asientos (--estado) requiere --journal. Se usará solo la memoria.");
+            directorioEstados = null;
+        }
+        CatalogoEventos catalogo = crearCatalogo(directorioEstados);
+        NodoCluster cluster = null;
+        if (nodosCluster != null) { // Antes de los journals: las ventas restauradas usan el tramo de ids del nodo
+            cluster = crearNodo(catalogo, nodosCluster, nodoPropio);
+            if (cluster == null) {
+                return;
+            }
+        }
+        if (directorioJournales != null) {
+            // Sea cual sea el orden de las opciones: una importación anterior al journal no quedaría grabada
+            activarJournales(catalogo, directorioJournales); // Ventas durables entre reinicios
+        }
+        RegistroClientes clientes = new RegistroClientes(); // Clientes que vuelven, compartidos por todos los eventos
+        String puertoServidor = null;
+        Path directorioExportacion = null;
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            if (args[i].equals("--servidor")) {
+                puertoServidor = args[i + 1];
+            } else if (args[i].equals("--importar")) {
+                importarEntradas(catalogo, Paths.get(args[i + 1])); // Asientos vendidos por canales asociados
+            } else if (args[i].equals("--exportar")) {
+                directorioExportacion = Paths.get(args[i + 1]);
+            } else if (args[i].equals("--boletas")) {
+                activarBoletas(catalogo, Paths.get(args[i + 1])); // Boletas en archivos, generadas en segundo plano
+            }
+        }
+        if (cluster != null && !activarReplicas(cluster, directorioJournales)) {
+            cerrarEventos(catalogo);
+            return;
+        }
+        if (directorioExportacion != null) {
+            exportarEntradas(catalogo, directorioExportacion);
+            cerrarEventos(catalogo);
+            return;
+        }
+        if (puertoServidor != null) {
+            iniciarServidor(catalogo, clientes, puertoServidor, cluster);
+            return;
+        }
+
         Scanner scanner = new Scanner(System.in);
-        VentaEntradas ventaEntradas = new VentaEntradas(100); // Sistema con 100 asientos
+        Evento evento = catalogo.getEventos().get(0); // Evento seleccionado al iniciar
+        VentaEntradas ventaEntradas = evento.getVentaEntradas();
         int opcion;
 
         do {
             // Menú principal del sistema
             System.out.println("\n===== SISTEMA DE VENTA DE ENTRADAS =====");
+            System.out.println("Evento: " + evento.getNombre() + " (" + evento.getSala() + ")");
             System.out.println("1. Ver disponibilidad de asientos");
             System.out.println("2. Realizar venta de entradas");
             System.out.println("3. Lista y gestión de entradas vendidas");
-            System.out.println("4. Salir");
+            System.out.println("4. Seleccionar evento");
+            System.out.println("5. Salir");
             System.out.print("Seleccione una opción: ");
 
             while (!scanner.hasNextInt()) {
@@ -35,34 +114,465 @@ public class Main {
                     ventaEntradas.verDisponibilidadAsientos();
                     break;
                 case 2:
-                    realizarVenta(scanner, ventaEntradas);
+                    realizarVenta(scanner, ventaEntradas, clientes);
                     break;
                 case 3:
                     listarYGestionarEntradas(scanner, ventaEntradas);
                     break;
                 case 4:
+                    evento = seleccionarEvento(scanner, catalogo, evento);
+                    ventaEntradas = evento.getVentaEntradas();
+                    break;
+                case 5:
                     System.out.println("Saliendo del sistema. ¡Gracias por usar el sistema de venta de entradas!");
                     break;
                 default:
-                    System.out.println("Opción inválida. Por favor, seleccione una opción entre 1 y 4.");
+                    System.out.println("Opción inválida. Por favor, seleccione una opción entre 1 y 5.");
             }
-        } while (opcion != 4);
+        } while (opcion != 5);
 
         scanner.close();
+        cerrarEventos(catalogo);
+    }
+
+    /**
+     * Crea el catálogo de eventos de la noche.
+     * Cada evento tiene su propia distribución de asientos e inventario independiente.
+     *
+     * @param directorioEstados Directorio donde se conserva el estado de los asientos de cada evento, o null.
+     * @return Catálogo con los eventos disponibles.
+     */
+    private static CatalogoEventos crearCatalogo(Path directorioEstados) {
+        CatalogoEventos catalogo = new CatalogoEventos();
+        MapaAsientos salaPrincipal = MapaAsientos.teatroMoro(100);
+        catalogo.registrar(crearEvento("F1", "Función principal", "Sala principal", salaPrincipal,
+                TablaPrecios.teatroMoro(salaPrincipal), directorioEstados));
+        MapaAsientos salaCamara = MapaAsientos.desdeConfiguracion("VIP:6,Platea baja:14,Platea alta:10,Galería:20");
+        Properties preciosCamara = new Properties();
+        preciosCamara.setProperty("precio.VIP", "25000");
+        preciosCamara.setProperty("precio.Platea baja", "18000");
+        preciosCamara.setProperty("precio.Platea alta", "12000");
+        preciosCamara.setProperty("precio.Galería", "8000");
+        preciosCamara.setProperty("promo.CAMARA2X1", "0.5");
+        catalogo.registrar(crearEvento("F2", "Función de cámara", "Sala de cámara", salaCamara,
+                TablaPrecios.desdePropiedades(preciosCamara, salaCamara), directorioEstados));
+        return catalogo;
+    }
+
+    /**
+     * Crea un evento. Si se indicó un directorio de estados, sus asientos se guardan en el archivo mapeado
+     * {@code <directorio>/<evento>.asientos} y se retoman tal como quedaron en la ejecución anterior.
+     *
+     * @param id                Identificador del evento.
+     * @param nombre            Nombre de la función.
+     * @param sala              Sala del evento.
+     * @param mapa              Distribución de secciones.
+     * @param tablaPrecios      Precios del evento.
+     * @param directorioEstados Directorio de estados de asientos, o null para mantenerlos solo en memoria.
+     * @return Evento creado.
+     */
+    private static Evento crearEvento(String id, String nombre, String sala, MapaAsientos mapa,
+                                      TablaPrecios tablaPrecios, Path directorioEstados) {
+        if (directorioEstados != null) {
+            try {
+                MapaPersistente estado = MapaPersistente.abrir(directorioEstados.resolve(id + ".asientos"), mapa);
+                return new Evento(id, nombre, sala, new VentaEntradas(estado, tablaPrecios));
+            } catch (IOException e) {
+                System.out.println("No se pudo abrir el estado de asientos del evento " + id + ": " + e.getMessage()
+                        + " Se usará solo la memoria.");
+            }
+        }
+        return new Evento(id, nombre, sala, mapa, tablaPrecios);
+    }
+
+    /**
+     * Muestra los asientos libres de cada sección leyendo los estados de asientos mapeados en modo de lectura,
+     * sin recuperar journals ni copiar los asientos. Puede usarse mientras otro proceso vende sobre esos
+     * estados: se lee la misma memoria que ese proceso escribe.
+     *
+     * @param catalogo   Catálogo de eventos, con la distribución de secciones de cada uno.
+     * @param directorio Directorio de los estados de asientos ({@code <evento>.asientos}).
+     */
+    private static void verEstados(CatalogoEventos catalogo, Path directorio) {
+        for (Evento evento : catalogo.getEventos()) {
+            MapaAsientos mapa = evento.getVentaEntradas().getMapa();
+            try (MapaPersistente estado = MapaPersistente.abrirLectura(directorio.resolve(evento.getId() + ".asientos"), mapa)) {
+                System.out.println("Evento " + evento.getId() + (estado.isCerradoLimpio() ? ":" : " (en uso o sin cerrar):"));
+                for (int id = 0; id < mapa.getCantidadSecciones(); id++) {
+                    System.out.println("  " + mapa.nombreSeccion(id) + ": " + estado.disponibles(id) + " de "
+                            + (mapa.fin(id) - mapa.inicio(id)) + " asientos libres");
+                }
+            } catch (IOException e) {
+                System.out.println("No se pudo leer el estado de asientos del evento " + evento.getId() + ": " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Activa la generación asíncrona de boletas de cada evento hacia un archivo por evento.
+     *
+     * @param catalogo   Catálogo de eventos.
+     * @param directorio Directorio de las boletas; cada evento anexa las suyas a {@code <evento>.boletas}.
+     */
+    private static void activarBoletas(CatalogoEventos catalogo, Path directorio) {
+        for (Evento evento : catalogo.getEventos()) {
+            try {
+                evento.getVentaEntradas().activarBoletas(
+                        DestinoBoletas.archivo(directorio.resolve(evento.getId() + ".boletas")));
+            } catch (IOException e) {
+                System.out.println("No se pudieron abrir las boletas del evento " + evento.getId() + ": " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Cierra los recursos de los eventos al terminar: libera las retenciones vigentes, graba el último lote de los
+     * journals y detiene sus hilos escritores, escribe las boletas pendientes y cierra los estados de asientos
+     * mapeados con la posición del journal que reflejan, para que la próxima ejecución los retome sin volver a
+     * contar los asientos libres ni reproducir el journal sobre ellos.
+     *
+     * @param catalogo Catálogo de eventos.
+     */
+    private static void cerrarEventos(CatalogoEventos catalogo) {
+        for (Evento evento : catalogo.getEventos()) {
+            VentaEntradas ventaEntradas = evento.getVentaEntradas();
+            GestorRetenciones retenciones = ventaEntradas.getRetenciones();
+            if (retenciones != null) {
+                retenciones.liberarTodas(); // Antes del journal: los asientos guardados deben coincidir con él
+            }
+            JournalVentas journal = ventaEntradas.getJournal();
+            if (journal != null) {
+                try {
+                    journal.close(); // Espera a que el escritor grabe lo pendiente antes de detenerlo
+                } catch (IOException e) {
+                    System.out.println("No se pudo cerrar el journal del evento " + evento.getId() + ": "
+                            + e.getMessage());
+                }
+            }
+            GeneradorBoletas boletas = ventaEntradas.getBoletas();
+            if (boletas != null) {
+                try {
+                    boletas.close();
+                } catch (IOException e) {
+                    System.out.println("No se pudieron escribir las boletas del evento " + evento.getId() + ": "
+                            + e.getMessage());
+                }
+            }
+            MapaPersistente estado = ventaEntradas.getEstadoPersistente();
+            if (estado != null) {
+                try {
+                    estado.setPosicionJournal(journal == null ? -1 : journal.getPosicionConfirmada());
+                    estado.close();
+                } catch (IOException e) {
+                    System.out.println("No se pudo cerrar el estado de asientos del evento " + evento.getId() + ": "
+                            + e.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * Inicia el servidor HTTP de ventas sobre el catálogo, en lugar del menú por consola,
+     * con retenciones temporales de asientos y listas de espera activadas.
+     * El servidor sigue atendiendo hasta que se detiene el proceso.
+     *
+     * @param catalogo Catálogo de eventos.
+     * @param clientes Registro de clientes.
+     * @param puerto   Puerto de escucha.
+     * @param cluster  Nodo del cluster, o null para vender sin cluster.
+     */
+    private static void iniciarServidor(CatalogoEventos catalogo, RegistroClientes clientes, String puerto,
+                                        NodoCluster cluster) {
+        try {
+            ServidorVentas servidor = new ServidorVentas(catalogo, clientes, Integer.parseInt(puerto), cluster);
+            // Las compras en línea retienen el asiento mientras se paga; una sola rueda vence las retenciones
+            // y descarta las solicitudes asignadas de la lista de espera de todos los eventos
+            RuedaTemporizadores rueda = new RuedaTemporizadores(100);
+            rueda.iniciar();
+            for (Evento evento : catalogo.getEventos()) {
+                evento.getVentaEntradas().activarRetenciones(rueda);
+                evento.getVentaEntradas().activarListaEspera(ESPERA_POR_SECCION, rueda);
+            }
+            servidor.iniciar();
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> { // Sin ventas en curso al cerrar los eventos
+                servidor.detener();
+                cerrarEventos(catalogo);
+            }));
+            System.out.println("Servidor de ventas escuchando en el puerto " + servidor.getPuerto());
+        } catch (NumberFormatException e) {
+            System.out.println("Puerto inválido: " + puerto);
+        } catch (IOException e) {
+            System.out.println("No se pudo iniciar el servidor: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Activa un journal de ventas por evento, restaurando las ventas guardadas en ejecuciones anteriores.
+     *
+     * @param catalogo   Catálogo de eventos.
+     * @param directorio Directorio base de los journals; cada evento usa un subdirectorio con su identificador.
+     */
+    private static void activarJournales(CatalogoEventos catalogo, Path directorio) {
+        for (Evento evento : catalogo.getEventos()) {
+            try {
+                evento.getVentaEntradas().activarJournal(new JournalVentas(directorio.resolve(evento.getId())));
+            } catch (IOException e) {
+                System.out.println("No se pudo abrir el journal del evento " + evento.getId() + ": " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Crea el nodo de cluster de este proceso, que vende solo las secciones de su partición.
+     *
+     * @param catalogo Catálogo de eventos.
+     * @param nodos    Direcciones de los nodos, separadas por comas.
+     * @param propio   Número de este nodo, desde 0.
+     * @return Nodo del cluster, o null si los datos son inválidos.
+     */
+    private static NodoCluster crearNodo(CatalogoEventos catalogo, String nodos, String propio) {
+        if (propio == null) {
+            System.out.println("El modo cluster requiere --nodo con el número de este nodo.");
+            return null;
+        }
+        try {
+            return new NodoCluster(NodoCluster.leerNodos(nodos), Integer.parseInt(propio), catalogo);
+        } catch (NumberFormatException e) {
+            System.out.println("Número de nodo inválido: " + propio);
+        } catch (IllegalArgumentException e) {
+            System.out.println(e.getMessage());
+        }
+        return null;
+    }
+
+    /**
+     * Activa la copia de los journals al seguidor de este nodo. Las copias que recibe este nodo se guardan en
+     * el subdirectorio {@code replicas} de los journals.
+     *
+     * @param cluster             Nodo del cluster.
+     * @param directorioJournales Directorio base de los journals, o null si no se indicó.
+     * @return true si se activó; false si no puede funcionar como nodo.
+     */
+    private static boolean activarReplicas(NodoCluster cluster, Path directorioJournales) {
+        if (directorioJournales == null) {
+            System.out.println("El modo cluster requiere --journal: las ventas se replican desde el journal.");
+            return false;
+        }
+        try {
+            cluster.activar(directorioJournales.resolve("replicas"));
+            return true;
+        } catch (IOException | IllegalStateException e) {
+            System.out.println("No se pudo activar la replicación: " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Importa las entradas vendidas por otros canales, desde {@code <evento>.entradas} (binario)
+     * o {@code <evento>.csv} en el directorio indicado, para cada evento que tenga su archivo.
+     *
+     * @param catalogo   Catálogo de eventos.
+     * @param directorio Directorio con los archivos de importación.
+     */
+    private static void importarEntradas(CatalogoEventos catalogo, Path directorio) {
+        for (Evento evento : catalogo.getEventos()) {
+            Path binario = directorio.resolve(evento.getId() + ".entradas");
+            Path csv = directorio.resolve(evento.getId() + ".csv");
+            try {
+                ExportadorEntradas.ResultadoImportacion resultado;
+                if (Files.exists(binario)) {
+                    resultado = ExportadorEntradas.importarBinario(evento.getVentaEntradas(), binario);
+                } else if (Files.exists(csv)) {
+                    resultado = ExportadorEntradas.importarCsv(evento.getVentaEntradas(), csv);
+                } else {
+                    continue;
+                }
+                System.out.println("Evento " + evento.getId() + ": " + resultado.getImportadas() + " entradas importadas, "
+                        + resultado.getRechazadas() + " rechazadas.");
+            } catch (IOException e) {
+                System.out.println("No se pudieron importar las entradas del evento " + evento.getId() + ": " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Exporta las entradas vendidas de cada evento a {@code <evento>.entradas} y {@code <evento>.csv}
+     * en el directorio indicado, para la conciliación con contabilidad.
+     *
+     * @param catalogo   Catálogo de eventos.
+     * @param directorio Directorio de destino.
+     */
+    private static void exportarEntradas(CatalogoEventos catalogo, Path directorio) {
+        for (Evento evento : catalogo.getEventos()) {
+            try {
+                Files.createDirectories(directorio);
+                long cantidad = ExportadorEntradas.exportarBinario(evento.getVentaEntradas(),
+                        directorio.resolve(evento.getId() + ".entradas"));
+                ExportadorEntradas.exportarCsv(evento.getVentaEntradas(), directorio.resolve(evento.getId() + ".csv"));
+                System.out.println("Evento " + evento.getId() + ": " + cantidad + " entradas exportadas.");
+            } catch (IOException e) {
+                System.out.println("No se pudieron exportar las entradas del evento " + evento.getId() + ": " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Método para seleccionar el evento sobre el que se realizarán las ventas.
+     *
+     * @param scanner  Objeto Scanner para entrada de datos.
+     * @param catalogo Catálogo de eventos disponibles.
+     * @param actual   Evento seleccionado actualmente.
+     * @return Evento seleccionado, o el actual si la opción es inválida.
+     */
+    private static Evento seleccionarEvento(Scanner scanner, CatalogoEventos catalogo, Evento actual) {
+        List<Evento> eventos = catalogo.getEventos();
+        System.out.println("\n--- Eventos disponibles ---");
+        for (int i = 0; i < eventos.size(); i++) {
+            Evento evento = eventos.get(i);
+            System.out.println((i + 1) + ". " + evento.getNombre() + " (" + evento.getSala() + ", "
+                    + evento.getVentaEntradas().getCantidadAsientos() + " asientos)");
+        }
+        System.out.print("Seleccione un evento: ");
+        if (scanner.hasNextInt()) {
+            int opcion = scanner.nextInt();
+            if (opcion > 0 && opcion <= eventos.size()) {
+                return eventos.get(opcion - 1);
+            }
+            System.out.println("Opción inválida. Se mantiene el evento actual.");
+        } else {
+            System.out.println("Entrada inválida. Por favor, ingrese un número.");
+            scanner.next();
+        }
+        return actual;
     }
 
     /**
      * Método para realizar la venta de una entrada.
-     * Solicita datos del cliente, calcula el precio con descuentos y asigna un asiento.
+     * Solicita la sección y los datos del cliente, calcula el precio con descuentos y asigna un asiento.
+     * Si el evento o la sección elegida están agotados, se avisa antes de pedir los datos del cliente.
+     * Un cliente ya registrado solo indica su documento; a uno nuevo se le piden sus datos y se registra.
      *
      * @param scanner       Objeto Scanner para entrada de datos.
      * @param ventaEntradas Objeto VentaEntradas para gestionar la venta.
+     * @param clientes      Registro de clientes.
      */
-    private static void realizarVenta(Scanner scanner, VentaEntradas ventaEntradas) {
-        scanner.nextLine(); // Limpiar buffer
+    private static void realizarVenta(Scanner scanner, VentaEntradas ventaEntradas, RegistroClientes clientes) {
         System.out.println("\n--- Venta de entradas ---");
-        System.out.print("Ingrese su nombre: ");
-        String nombre = scanner.nextLine();
+        if (!ventaEntradas.hayDisponibles()) { // Evento agotado: no se piden datos del cliente
+            System.out.println("No quedan asientos disponibles para este evento.");
+            return;
+        }
+
+        MapaAsientos mapa = ventaEntradas.getMapa();
+        TablaPrecios tablaPrecios = ventaEntradas.getTablaPrecios();
+        int secciones = mapa.getCantidadSecciones();
+        String seccion = "";
+        while (true) { // Selección de sección
+            System.out.println("Seleccione la sección del asiento:");
+            for (int id = 0; id < secciones; id++) {
+                String nombreSeccion = mapa.nombreSeccion(id);
+                int disponibles = ventaEntradas.contarDisponibles(nombreSeccion);
+                System.out.println((id + 1) + ". " + nombreSeccion
+                        + String.format(Locale.US, " ($%,.0f)", tablaPrecios.precioBase(id))
+                        + (disponibles == 0 ? " - AGOTADA" : " - " + disponibles + " disponibles"));
+            }
+            System.out.print("Ingrese el número correspondiente a su selección: ");
+            if (scanner.hasNextInt()) {
+                int opcion = scanner.nextInt();
+                if (opcion < 1 || opcion > secciones) {
+                    System.out.println("Opción inválida. Por favor, seleccione un número entre 1 y " + secciones + ".");
+                } else if (ventaEntradas.estaAgotada(mapa.nombreSeccion(opcion - 1))) {
+                    System.out.println("La sección " + mapa.nombreSeccion(opcion - 1) + " está agotada. Seleccione otra sección.");
+                } else {
+                    seccion = mapa.nombreSeccion(opcion - 1);
+                    break;
+                }
+            } else {
+                System.out.println("Entrada inválida. Por favor, ingrese un número.");
+                scanner.next();
+            }
+        }
+
+        boolean mejorUbicacion;
+        while (true) { // Preferencia de ubicación
+            System.out.println("¿Cómo desea elegir su asiento?");
+            System.out.println("1. Mejor ubicación disponible (adelante y al centro)");
+            System.out.println("2. Primer asiento libre");
+            System.out.print("Ingrese el número correspondiente a su selección: ");
+            if (scanner.hasNextInt()) {
+                int opcion = scanner.nextInt();
+                if (opcion == 1 || opcion == 2) {
+                    mejorUbicacion = opcion == 1;
+                    break;
+                } else {
+                    System.out.println("Opción inválida. Por favor, ingrese 1 o 2.");
+                }
+            } else {
+                System.out.println("Entrada inválida. Por favor, ingrese un número.");
+                scanner.next();
+            }
+        }
+
+        scanner.nextLine(); // Limpiar buffer
+        Cliente cliente = null;
+        System.out.print("Ingrese su RUT o documento (deje en blanco para no registrarse): ");
+        String documento = scanner.nextLine().trim();
+        if (!documento.isEmpty()) {
+            try {
+                cliente = clientes.buscar(documento);
+            } catch (IllegalArgumentException e) {
+                System.out.println(e.getMessage() + ". La venta continúa sin registro.");
+                documento = "";
+            }
+        }
+        if (cliente != null) {
+            System.out.println("Bienvenido nuevamente, " + cliente.getNombre() + ".");
+        } else {
+            cliente = pedirDatosCliente(scanner);
+            if (!documento.isEmpty()) {
+                cliente = clientes.registrar(documento, cliente);
+            }
+        }
+
+        // Calcular precio final con descuentos
+        VentaEntradas.ResultadoDescuento resultado = ventaEntradas.calcularPrecioFinal(cliente, seccion);
+
+        System.out.println("\nCliente: " + cliente.getNombre());
+        System.out.println("Categoría: " + cliente.getTipo());
+        System.out.println("Sexo: " + cliente.getSexo());
+        System.out.println("Estudiante: " + (cliente.isEstudiante() ? "Sí" : "No"));
+        System.out.println("Porcentaje de descuento aplicado: " + resultado.getPorcentajeDescuento() + "%");
+        System.out.println("Precio final: $" + resultado.getPrecioFinal());
+
+        // Asignar asiento y generar boleta
+        Entrada entrada = mejorUbicacion
+                ? ventaEntradas.venderMejorUbicacion(cliente, seccion)
+                : ventaEntradas.venderEntrada(cliente, seccion);
+        if (entrada != null) {
+            System.out.println("Entrada N° " + entrada.getId() + ", asiento " + entrada.getNumeroAsiento()
+                    + " (" + mapa.describir(entrada.getIndiceAsiento()) + ")");
+            ventaEntradas.imprimirBoleta(entrada);
+        } else {
+            System.out.println("No se pudo asignar un asiento en la sección seleccionada.");
+        }
+    }
+
+    /**
+     * Pide los datos de un cliente nuevo: nombre, edad, sexo y si es estudiante.
+     *
+     * @param scanner Objeto Scanner para entrada de datos.
+     * @return Cliente con los datos ingresados.
+     */
+    private static Cliente pedirDatosCliente(Scanner scanner) {
+        String nombre;
+        while (true) { // Validar largo del nombre
+            System.out.print("Ingrese su nombre: ");
+            nombre = scanner.nextLine();
+            if (nombre.length() <= Cliente.LARGO_MAXIMO) {
+                break;
+            }
+            System.out.println("El nombre no puede superar " + Cliente.LARGO_MAXIMO + " caracteres.");
+        }
 
         int edad;
         while (true) { // Validar edad
@@ -76,7 +586,7 @@ public class Main {
             }
         }
 
-        String tipoCliente = (edad < 18) ? "niño" : (edad > 60) ? "tercera edad" : "adulto";
+        String tipoCliente = Cliente.tipoSegunEdad(edad);
 
         String sexo = "";
         while (true) { // Validar sexo
@@ -130,55 +640,7 @@ public class Main {
             }
         }
 
-        Cliente cliente = new Cliente(nombre, edad, tipoCliente, sexo, esEstudiante);
-
-        String seccion = "";
-        while (true) { // Selección de sección
-            System.out.println("Seleccione la sección del asiento:");
-            System.out.println("1. VIP ($30,000)");
-            System.out.println("2. Platea baja ($20,000)");
-            System.out.println("3. Platea alta ($15,000)");
-            System.out.println("4. Galería ($10,000)");
-            System.out.print("Ingrese el número correspondiente a su selección: ");
-            if (scanner.hasNextInt()) {
-                int opcion = scanner.nextInt();
-                if (opcion == 1) {
-                    seccion = "VIP";
-                    break;
-                } else if (opcion == 2) {
-                    seccion = "Platea baja";
-                    break;
-                } else if (opcion == 3) {
-                    seccion = "Platea alta";
-                    break;
-                } else if (opcion == 4) {
-                    seccion = "Galería";
-                    break;
-                } else {
-                    System.out.println("Opción inválida. Por favor, seleccione un número entre 1 y 4.");
-                }
-            } else {
-                System.out.println("Entrada inválida. Por favor, ingrese un número.");
-                scanner.next();
-            }
-        }
-
-        // Calcular precio final con descuentos
-        VentaEntradas.ResultadoDescuento resultado = ventaEntradas.calcularPrecioFinal(cliente, seccion);
-
-        System.out.println("\nCliente creado exitosamente: " + cliente.getNombre());
-        System.out.println("Categoría: " + tipoCliente);
-        System.out.println("Sexo: " + sexo);
-        System.out.println("Estudiante: " + (esEstudiante ? "Sí" : "No"));
-        System.out.println("Porcentaje de descuento aplicado: " + resultado.getPorcentajeDescuento() + "%");
-        System.out.println("Precio final: $" + resultado.getPrecioFinal());
-
-        // Asignar asiento y generar boleta
-        if (ventaEntradas.asignarAsiento(cliente, seccion)) {
-            ventaEntradas.imprimirBoleta(cliente, resultado.getPrecioFinal(), seccion, resultado.getPorcentajeDescuento());
-        } else {
-            System.out.println("No se pudo asignar un asiento en la sección seleccionada.");
-        }
+        return new Cliente(nombre, edad, tipoCliente, sexo, esEstudiante);
     }
 
     /**
@@ -189,15 +651,18 @@ public class Main {
      */
     private static void listarYGestionarEntradas(Scanner scanner, VentaEntradas ventaEntradas) {
         System.out.println("\n----- Registro de Entradas Vendidas -----");
-        if (ventaEntradas.getEntradasVendidas().isEmpty()) {
+        List<Entrada> entradas = ventaEntradas.getEntradas();
+        if (entradas.isEmpty()) {
             System.out.println("No hay entradas vendidas.");
         } else {
-            int index = 1;
-            for (String entrada : ventaEntradas.getEntradasVendidas()) {
-                System.out.println(index + ". " + entrada);
-                index++;
+            for (Entrada entrada : entradas) {
+                System.out.println("N° " + entrada.getId() + ". " + entrada);
             }
 
+            StringBuilder reporte = new StringBuilder("\n----- Reporte de ventas -----\n");
+            ventaEntradas.getAnalitica().generarReporte().escribir(reporte);
+            System.out.print(reporte);
+
             System.out.println("\n¿Desea eliminar alguna entrada?");
             System.out.println("1. Sí");
             System.out.println("2. No");
@@ -205,10 +670,9 @@ public class Main {
 
             if (scanner.hasNextInt() && scanner.nextInt() == 1) {
                 System.out.print("Ingrese el número de la entrada que desea eliminar: ");
-                if (scanner.hasNextInt()) {
-                    int entradaAEliminar = scanner.nextInt();
-                    if (entradaAEliminar > 0 && entradaAEliminar <= ventaEntradas.getEntradasVendidas().size()) {
-                        String eliminada = ventaEntradas.eliminarEntrada(entradaAEliminar - 1);
+                if (scanner.hasNextLong()) {
+                    Entrada eliminada = ventaEntradas.anularEntrada(scanner.nextLong());
+                    if (eliminada != null) {
                         System.out.println("Entrada eliminada exitosamente: " + eliminada);
                     } else {
                         System.out.println("Número de entrada inválido.");
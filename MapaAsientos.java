@@ -0,0 +1,307 @@
+package com.sistemateatromoro;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Distribución de los asientos del Teatro Moro por sección.
+ * Cada sección ocupa un rango contiguo de índices y se guarda una sola vez (nombre, inicio y fin),
+ * en lugar de repetir la sección en cada asiento. Dentro de una sección los asientos se ordenan en filas
+ * del mismo ancho, desde el escenario hacia atrás: la fila y la butaca de un asiento se calculan con su
+ * índice, sin guardarlas por asiento.
+ */
+public class MapaAsientos {
+    static final int ASIENTOS_POR_FILA = 10;         // Ancho de fila cuando la sección no lo indica
+
+    private final Map<String, Integer> idPorSeccion; // Nombre normalizado de la sección -> id de sección
+    private final Map<String, Integer> idPorNombre;  // Nombre original exacto de la sección -> id de sección
+    private final String[] nombres;                  // Nombre original de cada sección
+    private final int[] inicio;                      // Primer índice (inclusive) de cada sección
+    private final int[] fin;                         // Último índice (exclusive) de cada sección
+    private final int[] asientosPorFila;             // Ancho de las filas de cada sección
+
+    /**
+     * Construye el mapa a partir de las secciones y su cantidad de asientos, en orden,
+     * con filas de {@value #ASIENTOS_POR_FILA} asientos.
+     *
+     * @param nombres    Nombres de las secciones.
+     * @param cantidades Cantidad de asientos de cada sección.
+     * @throws IllegalArgumentException Si los arreglos no coinciden, hay cantidades negativas
+     *                                  o secciones repetidas.
+     */
+    public MapaAsientos(String[] nombres, int[] cantidades) {
+        this(nombres, cantidades, anchosPredeterminados(cantidades));
+    }
+
+    /**
+     * Construye el mapa a partir de las secciones, su cantidad de asientos y el ancho de sus filas, en orden.
+     * La última fila de una sección puede quedar incompleta.
+     *
+     * @param nombres         Nombres de las secciones.
+     * @param cantidades      Cantidad de asientos de cada sección.
+     * @param asientosPorFila Asientos por fila de cada sección.
+     * @throws IllegalArgumentException Si los arreglos no coinciden, hay cantidades negativas, anchos
+     *                                  no positivos o secciones repetidas.
+     */
+    public MapaAsientos(String[] nombres, int[] cantidades, int[] asientosPorFila) {
+        if (nombres.length != cantidades.length || nombres.length != asientosPorFila.length) {
+            throw new IllegalArgumentException("Cada sección debe tener una cantidad de asientos.");
+        }
+        this.idPorSeccion = new HashMap<>();
+        this.idPorNombre = new HashMap<>();
+        this.nombres = nombres.clone();
+        this.inicio = new int[nombres.length];
+        this.fin = new int[nombres.length];
+        this.asientosPorFila = asientosPorFila.clone();
+
+        int siguiente = 0;
+        for (int id = 0; id < nombres.length; id++) {
+            if (cantidades[id] < 0) {
+                throw new IllegalArgumentException("Cantidad de asientos inválida para la sección " + nombres[id]);
+            }
+            if (asientosPorFila[id] <= 0) {
+                throw new IllegalArgumentException("Ancho de fila inválido para la sección " + nombres[id]);
+            }
+            if (idPorSeccion.put(normalizar(nombres[id]), id) != null) {
+                throw new IllegalArgumentException("La sección " + nombres[id] + " está repetida.");
+            }
+            idPorNombre.put(nombres[id], id);
+            inicio[id] = siguiente;
+            siguiente += cantidades[id];
+            fin[id] = siguiente;
+        }
+    }
+
+    /**
+     * Calcula el ancho de fila predeterminado de cada sección.
+     *
+     * @param cantidades Cantidad de asientos de cada sección.
+     * @return {@value #ASIENTOS_POR_FILA} asientos por fila, o menos si la sección es más chica.
+     */
+    private static int[] anchosPredeterminados(int[] cantidades) {
+        int[] anchos = new int[cantidades.length];
+        for (int id = 0; id < cantidades.length; id++) {
+            anchos[id] = Math.max(1, Math.min(cantidades[id], ASIENTOS_POR_FILA));
+        }
+        return anchos;
+    }
+
+    /**
+     * Crea la distribución clásica del Teatro Moro: 10 asientos VIP, 20 de platea baja,
+     * 20 de platea alta y el resto en galería.
+     *
+     * @param cantidadAsientos Número total de asientos.
+     * @return Mapa de asientos con las secciones del Teatro Moro.
+     */
+    public static MapaAsientos teatroMoro(int cantidadAsientos) {
+        int vip = Math.min(cantidadAsientos, 10);
+        int plateaBaja = Math.min(cantidadAsientos - vip, 20);
+        int plateaAlta = Math.min(cantidadAsientos - vip - plateaBaja, 20);
+        int galeria = cantidadAsientos - vip - plateaBaja - plateaAlta;
+        return new MapaAsientos(new String[] {"VIP", "Platea baja", "Platea alta", "Galería"},
+                new int[] {vip, plateaBaja, plateaAlta, galeria});
+    }
+
+    /**
+     * Crea un mapa de asientos a partir de una configuración de texto con el formato
+     * {@code "Sección:cantidad,Sección:cantidad,..."}, por ejemplo {@code "VIP:10,Galería:90"}.
+     * La cantidad puede indicarse como {@code filasxancho}, por ejemplo {@code "Platea baja:4x12"};
+     * si no, las filas son de {@value #ASIENTOS_POR_FILA} asientos.
+     *
+     * @param configuracion Texto con las secciones en orden.
+     * @return Mapa de asientos configurado.
+     * @throws IllegalArgumentException Si la configuración no tiene el formato esperado.
+     */
+    public static MapaAsientos desdeConfiguracion(String configuracion) {
+        String[] partes = configuracion.split(",");
+        String[] nombres = new String[partes.length];
+        int[] cantidades = new int[partes.length];
+        int[] anchos = new int[partes.length];
+        for (int i = 0; i < partes.length; i++) {
+            int separador = partes[i].lastIndexOf(':');
+            if (separador <= 0) {
+                throw new IllegalArgumentException("Sección mal configurada: " + partes[i]);
+            }
+            nombres[i] = partes[i].substring(0, separador).trim();
+            String cantidad = partes[i].substring(separador + 1).trim();
+            int x = cantidad.indexOf('x');
+            try {
+                if (x < 0) {
+                    cantidades[i] = Integer.parseInt(cantidad);
+                    anchos[i] = Math.max(1, Math.min(cantidades[i], ASIENTOS_POR_FILA));
+                } else {
+                    anchos[i] = Integer.parseInt(cantidad.substring(x + 1).trim());
+                    cantidades[i] = Integer.parseInt(cantidad.substring(0, x).trim()) * anchos[i];
+                }
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Cantidad de asientos inválida: " + partes[i], e);
+            }
+        }
+        return new MapaAsientos(nombres, cantidades, anchos);
+    }
+
+    /**
+     * Normaliza un nombre para compararlo sin distinguir mayúsculas ni tildes.
+     * Se recorre el texto una sola vez, en lugar de encadenar reemplazos por cada vocal.
+     *
+     * @param texto Texto original.
+     * @return Texto sin tildes y en mayúsculas.
+     */
+    static String normalizar(String texto) {
+        char[] caracteres = texto.toCharArray();
+        for (int i = 0; i < caracteres.length; i++) {
+            char c = Character.toUpperCase(caracteres[i]);
+            switch (c) {
+                case 'Á': c = 'A'; break;
+                case 'É': c = 'E'; break;
+                case 'Í': c = 'I'; break;
+                case 'Ó': c = 'O'; break;
+                case 'Ú': c = 'U'; break;
+                default: break;
+            }
+            caracteres[i] = c;
+        }
+        return new String(caracteres);
+    }
+
+    /**
+     * Obtiene el id de una sección a partir de su nombre.
+     *
+     * @param seccion Nombre de la sección (sin distinguir mayúsculas ni tildes).
+     * @return Id de la sección, o -1 si no existe.
+     */
+    public int idSeccion(String seccion) {
+        Integer id = idPorNombre.get(seccion); // Caso común: el nombre llega tal cual, sin normalizar
+        if (id == null) {
+            id = idPorSeccion.get(normalizar(seccion));
+        }
+        return id != null ? id : -1;
+    }
+
+    /**
+     * Obtiene el id de la sección a la que pertenece un asiento mediante búsqueda binaria sobre los rangos.
+     *
+     * @param indice Índice del asiento.
+     * @return Id de la sección.
+     * @throws IndexOutOfBoundsException Si el índice está fuera del mapa.
+     */
+    public int seccionDe(int indice) {
+        if (indice < 0 || indice >= getCapacidad()) {
+            throw new IndexOutOfBoundsException("Índice de asiento inválido: " + indice);
+        }
+        int bajo = 0;
+        int alto = fin.length - 1;
+        while (bajo < alto) {
+            int medio = (bajo + alto) >>> 1;
+            if (indice < fin[medio]) {
+                alto = medio;
+            } else {
+                bajo = medio + 1;
+            }
+        }
+        return bajo;
+    }
+
+    /**
+     * Obtiene la cantidad de secciones.
+     *
+     * @return Número de secciones.
+     */
+    public int getCantidadSecciones() {
+        return nombres.length;
+    }
+
+    /**
+     * Obtiene el nombre original de una sección.
+     *
+     * @param idSeccion Id de la sección.
+     * @return Nombre de la sección.
+     */
+    public String nombreSeccion(int idSeccion) {
+        return nombres[idSeccion];
+    }
+
+    /**
+     * Obtiene el primer índice de una sección.
+     *
+     * @param idSeccion Id de la sección.
+     * @return Primer índice (inclusive).
+     */
+    public int inicio(int idSeccion) {
+        return inicio[idSeccion];
+    }
+
+    /**
+     * Obtiene el índice siguiente al último asiento de una sección.
+     *
+     * @param idSeccion Id de la sección.
+     * @return Último índice (exclusive).
+     */
+    public int fin(int idSeccion) {
+        return fin[idSeccion];
+    }
+
+    /**
+     * Obtiene el ancho de las filas de una sección.
+     *
+     * @param idSeccion Id de la sección.
+     * @return Asientos por fila.
+     */
+    public int asientosPorFila(int idSeccion) {
+        return asientosPorFila[idSeccion];
+    }
+
+    /**
+     * Obtiene la cantidad de filas de una sección, contando la última aunque esté incompleta.
+     *
+     * @param idSeccion Id de la sección.
+     * @return Número de filas.
+     */
+    public int cantidadFilas(int idSeccion) {
+        return (fin[idSeccion] - inicio[idSeccion] + asientosPorFila[idSeccion] - 1) / asientosPorFila[idSeccion];
+    }
+
+    /**
+     * Obtiene la fila de un asiento dentro de su sección.
+     *
+     * @param indice Índice del asiento.
+     * @return Fila desde 0, la más cercana al escenario.
+     * @throws IndexOutOfBoundsException Si el índice está fuera del mapa.
+     */
+    public int filaDe(int indice) {
+        int id = seccionDe(indice);
+        return (indice - inicio[id]) / asientosPorFila[id];
+    }
+
+    /**
+     * Obtiene la butaca de un asiento dentro de su fila.
+     *
+     * @param indice Índice del asiento.
+     * @return Butaca desde 0, de izquierda a derecha.
+     * @throws IndexOutOfBoundsException Si el índice está fuera del mapa.
+     */
+    public int butacaDe(int indice) {
+        int id = seccionDe(indice);
+        return (indice - inicio[id]) % asientosPorFila[id];
+    }
+
+    /**
+     * Describe la ubicación de un asiento para mostrarla al cliente.
+     *
+     * @param indice Índice del asiento.
+     * @return Texto como {@code "fila 2, butaca 5"} (ambas desde 1).
+     * @throws IndexOutOfBoundsException Si el índice está fuera del mapa.
+     */
+    public String describir(int indice) {
+        return "fila " + (filaDe(indice) + 1) + ", butaca " + (butacaDe(indice) + 1);
+    }
+
+    /**
+     * Obtiene la cantidad total de asientos del mapa.
+     *
+     * @return Número total de asientos.
+     */
+    public int getCapacidad() {
+        return fin.length == 0 ? 0 : fin[fin.length - 1];
+    }
+}
\ No newline at end of file
@@ -0,0 +1,400 @@
+package com.sistemateatromoro;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Estado de los asientos de un evento guardado en un archivo mapeado en memoria.
+ * El motor de reservas guarda directamente en el archivo su mapa de bits de asientos ocupados y los contadores
+ * de cada sección, así que cada cambio de estado cuesta lo mismo que en el heap (una escritura en memoria) y
+ * el sistema operativo lo lleva al disco. Al reiniciar, el archivo se vuelve a mapear tal cual, sin reconstruir
+ * los asientos ni repetir las ventas. Otros procesos del mismo equipo pueden abrirlo en modo de lectura y
+ * consultar la disponibilidad sobre la misma memoria, sin copiarla ni pasar por el servidor (por ejemplo con
+ * {@code --ver-estado}).
+ *
+ * Formato (en el orden de bytes del equipo): una cabecera de 64 bytes con la marca {@link #MAGIA}, la versión,
+ * la capacidad, la cantidad de secciones, una huella de la distribución de secciones, el estado de cierre y la
+ * posición del journal de ventas que reflejan los asientos al cerrar (ver {@link #setPosicionJournal}); luego un contador de 64 bits por sección (asientos libres y reservas acumuladas) y, alineado a 64 bytes,
+ * el mapa de bits de asientos ocupados.
+ *
+ * Si el proceso que escribía terminó sin cerrar el archivo, los contadores pueden no coincidir con el mapa de
+ * bits (un asiento se marca y su contador se actualiza en dos pasos), por lo que el motor los vuelve a contar
+ * desde el mapa de bits al abrirlo, y la posición del journal guardada no vale: los asientos se concilian con
+ * las entradas del journal. Un solo proceso puede abrir el archivo para escribir.
+ */
+public class MapaPersistente implements AutoCloseable {
+    public static final int MAGIA = 0x544D4D31; // "TMM1"
+    public static final int VERSION = 2;        // Versión del formato (la 1 no guardaba la posición del journal)
+
+    private static final int CABECERA = 64;          // Bytes de la cabecera
+    private static final int POS_CAPACIDAD = 8;      // Capacidad del mapa de asientos (int)
+    private static final int POS_SECCIONES = 12;     // Cantidad de secciones (int)
+    private static final int POS_HUELLA = 16;        // Huella de la distribución de secciones (long)
+    private static final int POS_ABIERTO = 24;       // 1 mientras un proceso lo tiene abierto para escribir (int)
+    private static final int POS_JOURNAL = 32;       // Posición del journal reflejada al cerrar, o -1 (long)
+    private static final VarHandle LARGOS = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.nativeOrder());
+    private static final VarHandle ENTEROS = MethodHandles.byteBufferViewVarHandle(int[].class, ByteOrder.nativeOrder());
+
+    private final FileChannel canal;         // Canal del archivo, abierto mientras dure el mapeo
+    private final FileLock bloqueo;          // Bloqueo de escritura, o null en modo de lectura
+    private final MappedByteBuffer memoria;  // Contenido completo del archivo
+    private final MapaAsientos mapa;         // Distribución de secciones guardada
+    private final PalabrasMapeadas disponibles; // Contador de cada sección
+    private final PalabrasMapeadas ocupados;    // Mapa de bits de asientos ocupados
+    private final boolean nuevo;             // true si el archivo se creó al abrirlo
+    private final boolean cerradoLimpio;     // true si el último proceso que escribió lo cerró correctamente
+    private final long posicionJournal;      // Posición del journal que reflejan los asientos al abrirlo, o -1
+
+    /**
+     * Palabras de 64 bits de una región del archivo, con las mismas operaciones atómicas que un
+     * {@code AtomicLongArray}. El archivo está alineado a 8 bytes, por lo que son atómicas también entre procesos.
+     */
+    static final class PalabrasMapeadas implements MotorReservas.Palabras {
+        private final MappedByteBuffer memoria; // Contenido del archivo
+        private final int base;                 // Posición en bytes de la primera palabra
+
+        /**
+         * Constructor para inicializar una región de palabras.
+         *
+         * @param memoria Contenido del archivo.
+         * @param base    Posición en bytes de la primera palabra (múltiplo de 8).
+         */
+        PalabrasMapeadas(MappedByteBuffer memoria, int base) {
+            this.memoria = memoria;
+            this.base = base;
+        }
+
+        @Override
+        public long get(int i) {
+            return (long) LARGOS.getVolatile(memoria, base + (i << 3));
+        }
+
+        @Override
+        public void set(int i, long valor) {
+            LARGOS.setVolatile(memoria, base + (i << 3), valor);
+        }
+
+        @Override
+        public boolean compareAndSet(int i, long esperado, long nuevo) {
+            return LARGOS.compareAndSet(memoria, base + (i << 3), esperado, nuevo);
+        }
+
+        @Override
+        public long getAndAdd(int i, long delta) {
+            return (long) LARGOS.getAndAdd(memoria, base + (i << 3), delta);
+        }
+    }
+
+    /**
+     * Constructor privado: se usan {@link #abrir} y {@link #abrirLectura}.
+     *
+     * @param canal         Canal del archivo.
+     * @param bloqueo       Bloqueo de escritura, o null en modo de lectura.
+     * @param memoria       Contenido del archivo.
+     * @param mapa          Distribución de secciones.
+     * @param nuevo         true si el archivo se creó al abrirlo.
+     * @param cerradoLimpio   true si el último proceso que escribió lo cerró correctamente.
+     * @param posicionJournal Posición del journal que reflejan los asientos, o -1 si no se conoce.
+     */
+    private MapaPersistente(FileChannel canal, FileLock bloqueo, MappedByteBuffer memoria,
+                            MapaAsientos mapa, boolean nuevo, boolean cerradoLimpio, long posicionJournal) {
+        this.canal = canal;
+        this.bloqueo = bloqueo;
+        this.memoria = memoria;
+        this.mapa = mapa;
+        this.nuevo = nuevo;
+        this.cerradoLimpio = cerradoLimpio;
+        this.posicionJournal = posicionJournal;
+        int secciones = mapa.getCantidadSecciones();
+        this.disponibles = new PalabrasMapeadas(memoria, CABECERA);
+        this.ocupados = new PalabrasMapeadas(memoria, inicioOcupados(secciones));
+    }
+
+    /**
+     * Abre el estado de asientos de un evento para escribirlo, creándolo si el archivo no existe.
+     *
+     * @param archivo Archivo del estado de asientos.
+     * @param mapa    Distribución de secciones del evento; debe ser la misma con la que se creó el archivo.
+     * @return Estado abierto; si es nuevo, el motor que lo use marca todos los asientos como libres.
+     * @throws IOException Si no se puede abrir o mapear el archivo, si ya está abierto para escribir,
+     *                     o si corresponde a otra distribución de secciones.
+     */
+    public static MapaPersistente abrir(Path archivo, MapaAsientos mapa) throws IOException {
+        long largo = largo(mapa);
+        if (archivo.getParent() != null) {
+            Files.createDirectories(archivo.getParent());
+        }
+        FileChannel canal = FileChannel.open(archivo, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        try {
+            FileLock bloqueo;
+            try {
+                bloqueo = canal.tryLock();
+            } catch (OverlappingFileLockException e) {
+                bloqueo = null; // Ya lo tiene abierto este mismo proceso
+            }
+            if (bloqueo == null) {
+                throw new IOException("El estado de asientos " + archivo + " ya está abierto para escribir.");
+            }
+            boolean nuevo = canal.size() == 0;
+            if (!nuevo && canal.size() != largo) {
+                throw new IOException("El estado de asientos " + archivo + " no corresponde a la distribución del evento.");
+            }
+            MappedByteBuffer memoria = canal.map(FileChannel.MapMode.READ_WRITE, 0, largo);
+            if (!nuevo && (int) ENTEROS.getVolatile(memoria, 0) == 0) {
+                nuevo = true; // El proceso que lo creaba terminó antes de escribir la marca: el contenido sigue en cero
+            }
+            boolean cerradoLimpio = true;
+            long posicionJournal = -1;
+            if (nuevo) {
+                ENTEROS.set(memoria, POS_CAPACIDAD, mapa.getCapacidad());
+                ENTEROS.set(memoria, POS_SECCIONES, mapa.getCantidadSecciones());
+                LARGOS.set(memoria, POS_HUELLA, huella(mapa));
+                ENTEROS.set(memoria, 4, VERSION);
+                ENTEROS.setVolatile(memoria, 0, MAGIA); // La marca va al final: un archivo a medio crear no es válido
+            } else {
+                validar(memoria, mapa, archivo);
+                cerradoLimpio = (int) ENTEROS.getVolatile(memoria, POS_ABIERTO) == 0;
+                posicionJournal = leerPosicionJournal(memoria, cerradoLimpio);
+                ENTEROS.set(memoria, 4, VERSION);
+            }
+            // Mientras esté abierto los asientos se adelantan al journal: si el proceso cae, la posición no vale
+            LARGOS.setVolatile(memoria, POS_JOURNAL, -1L);
+            ENTEROS.setVolatile(memoria, POS_ABIERTO, 1);
+            return new MapaPersistente(canal, bloqueo, memoria, mapa, nuevo, cerradoLimpio, posicionJournal);
+        } catch (IOException | RuntimeException e) {
+            canal.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Abre el estado de asientos de un evento solo para consultarlo, por ejemplo desde otro proceso que muestra
+     * la disponibilidad. Las consultas leen la misma memoria que escribe el proceso que vende.
+     *
+     * @param archivo Archivo del estado de asientos.
+     * @param mapa    Distribución de secciones del evento.
+     * @return Estado abierto en modo de lectura.
+     * @throws IOException Si el archivo no existe, no se puede mapear o corresponde a otra distribución.
+     */
+    public static MapaPersistente abrirLectura(Path archivo, MapaAsientos mapa) throws IOException {
+        FileChannel canal = FileChannel.open(archivo, StandardOpenOption.READ);
+        try {
+            if (canal.size() != largo(mapa)) {
+                throw new IOException("El estado de asientos " + archivo + " no corresponde a la distribución del evento.");
+            }
+            MappedByteBuffer memoria = canal.map(FileChannel.MapMode.READ_ONLY, 0, canal.size());
+            validar(memoria, mapa, archivo);
+            boolean cerradoLimpio = (int) ENTEROS.getVolatile(memoria, POS_ABIERTO) == 0;
+            return new MapaPersistente(canal, null, memoria, mapa, false, cerradoLimpio,
+                    leerPosicionJournal(memoria, cerradoLimpio));
+        } catch (IOException | RuntimeException e) {
+            canal.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Verifica la cabecera de un archivo ya existente.
+     *
+     * @param memoria Contenido del archivo.
+     * @param mapa    Distribución de secciones esperada.
+     * @param archivo Archivo, para los mensajes de error.
+     * @throws IOException Si la cabecera no es válida o corresponde a otra distribución.
+     */
+    private static void validar(MappedByteBuffer memoria, MapaAsientos mapa, Path archivo) throws IOException {
+        if ((int) ENTEROS.getVolatile(memoria, 0) != MAGIA) {
+            throw new IOException("El archivo " + archivo + " no es un estado de asientos válido.");
+        }
+        int version = (int) ENTEROS.get(memoria, 4);
+        if (version != VERSION && version != 1) {
+            throw new IOException("Versión no soportada del estado de asientos " + archivo + ": " + version);
+        }
+        if ((int) ENTEROS.get(memoria, POS_CAPACIDAD) != mapa.getCapacidad()
+                || (int) ENTEROS.get(memoria, POS_SECCIONES) != mapa.getCantidadSecciones()
+                || (long) LARGOS.get(memoria, POS_HUELLA) != huella(mapa)) {
+            throw new IOException("El estado de asientos " + archivo + " no corresponde a la distribución del evento.");
+        }
+    }
+
+    /**
+     * Lee la posición del journal guardada en la cabecera de un archivo ya validado.
+     *
+     * @param memoria       Contenido del archivo.
+     * @param cerradoLimpio true si el último proceso que escribió lo cerró correctamente.
+     * @return Posición del journal, o -1 si no se guardó (versión 1) o el proceso no cerró el archivo.
+     */
+    private static long leerPosicionJournal(MappedByteBuffer memoria, boolean cerradoLimpio) {
+        if (!cerradoLimpio || (int) ENTEROS.get(memoria, 4) < 2) {
+            return -1;
+        }
+        return (long) LARGOS.getVolatile(memoria, POS_JOURNAL);
+    }
+
+    /**
+     * Calcula una huella de la distribución de secciones: nombres, rangos y ancho de las filas.
+     *
+     * @param mapa Distribución de secciones.
+     * @return Huella de 64 bits.
+     */
+    private static long huella(MapaAsientos mapa) {
+        long huella = mapa.getCapacidad();
+        for (int id = 0; id < mapa.getCantidadSecciones(); id++) {
+            huella = huella * 31 + mapa.nombreSeccion(id).hashCode();
+            huella = huella * 31 + mapa.inicio(id);
+            huella = huella * 31 + mapa.fin(id);
+            huella = huella * 31 + mapa.asientosPorFila(id);
+        }
+        return huella;
+    }
+
+    /**
+     * Obtiene la posición en bytes del mapa de bits, después de los contadores y alineada a 64 bytes.
+     *
+     * @param secciones Cantidad de secciones.
+     * @return Posición del mapa de bits.
+     */
+    private static int inicioOcupados(int secciones) {
+        return (CABECERA + secciones * 8 + 63) & ~63;
+    }
+
+    /**
+     * Obtiene el tamaño del archivo para una distribución de secciones.
+     *
+     * @param mapa Distribución de secciones.
+     * @return Tamaño en bytes.
+     * @throws IOException Si el archivo superaría el tamaño que se puede mapear de una vez.
+     */
+    private static long largo(MapaAsientos mapa) throws IOException {
+        long largo = inicioOcupados(mapa.getCantidadSecciones()) + (long) ((mapa.getCapacidad() + 63) >>> 6) * 8;
+        if (largo > Integer.MAX_VALUE) {
+            throw new IOException("La distribución es demasiado grande para un estado de asientos mapeado.");
+        }
+        return largo;
+    }
+
+    /**
+     * Obtiene los contadores de cada sección, para el motor de reservas.
+     *
+     * @return Contador por sección.
+     */
+    MotorReservas.Palabras getDisponibles() {
+        return disponibles;
+    }
+
+    /**
+     * Obtiene el mapa de bits de asientos ocupados, para el motor de reservas.
+     *
+     * @return Palabras del mapa de bits.
+     */
+    MotorReservas.Palabras getOcupados() {
+        return ocupados;
+    }
+
+    /**
+     * Indica si el archivo se creó al abrirlo, sin estado anterior.
+     *
+     * @return true si es nuevo.
+     */
+    public boolean isNuevo() {
+        return nuevo;
+    }
+
+    /**
+     * Indica si el último proceso que escribió el archivo lo cerró correctamente, de modo que sus contadores
+     * coinciden con el mapa de bits.
+     *
+     * @return true si se cerró correctamente (o si es nuevo).
+     */
+    public boolean isCerradoLimpio() {
+        return cerradoLimpio;
+    }
+
+    /**
+     * Obtiene la posición del journal de ventas que reflejaban los asientos cuando se cerró el archivo: los
+     * registros anteriores ya están aplicados a los asientos y solo hace falta aplicar los posteriores.
+     *
+     * @return Posición del journal, o -1 si no se conoce (archivo nuevo, sin cerrar o cerrado sin journal).
+     */
+    public long getPosicionJournal() {
+        return posicionJournal;
+    }
+
+    /**
+     * Guarda la posición del journal de ventas que reflejan los asientos, para que la próxima ejecución aplique
+     * solo los registros posteriores. Debe llamarse justo antes de {@link #close()}, con el journal ya cerrado y
+     * sin retenciones ni ventas en curso; el valor se descarta si el archivo no llega a cerrarse.
+     *
+     * @param posicion Posición del final del journal, o -1 si los asientos no coinciden con él.
+     */
+    public void setPosicionJournal(long posicion) {
+        if (bloqueo != null) {
+            LARGOS.setVolatile(memoria, POS_JOURNAL, posicion);
+        }
+    }
+
+    /**
+     * Obtiene la distribución de secciones del archivo.
+     *
+     * @return Mapa de asientos.
+     */
+    public MapaAsientos getMapa() {
+        return mapa;
+    }
+
+    /**
+     * Obtiene la cantidad de asientos disponibles en una sección, leída directamente del archivo.
+     *
+     * @param idSeccion Id de la sección.
+     * @return Cantidad de asientos libres.
+     */
+    public int disponibles(int idSeccion) {
+        return (int) disponibles.get(idSeccion);
+    }
+
+    /**
+     * Indica si un asiento está libre, leído directamente del archivo.
+     *
+     * @param indice Índice del asiento.
+     * @return true si el asiento está libre.
+     */
+    public boolean estaDisponible(int indice) {
+        return (ocupados.get(indice >>> 6) & (1L << indice)) == 0;
+    }
+
+    /**
+     * Pide al sistema operativo que escriba en el disco los cambios hechos hasta ahora.
+     * Sin llamarlo, los cambios igual llegan al disco, pero en el momento que decida el sistema operativo.
+     */
+    public void sincronizar() {
+        if (bloqueo != null) {
+            memoria.force();
+        }
+    }
+
+    /**
+     * Escribe los cambios pendientes, marca el archivo como cerrado correctamente y libera el bloqueo de escritura.
+     * El motor que lo usa no debe seguir modificando asientos después de cerrarlo.
+     *
+     * @throws IOException Si no se puede cerrar el archivo.
+     */
+    @Override
+    public void close() throws IOException {
+        if (bloqueo != null && bloqueo.isValid()) {
+            memoria.force();
+            ENTEROS.setVolatile(memoria, POS_ABIERTO, 0);
+            memoria.force();
+            bloqueo.release();
+        }
+        canal.close();
+    }
+}
\ No newline at end of file
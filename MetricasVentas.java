@@ -0,0 +1,259 @@
+package com.sistemateatromoro;
+
+import java.util.Locale;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Métricas de ejecución de la venta de entradas de un evento.
+ * Cuenta los resultados de cada operación por sección sin bloqueos y mide la latencia de las operaciones
+ * principales en histogramas logarítmicos. Para que la instrumentación casi no cueste en el camino crítico:
+ * <ul>
+ *     <li>las reservas y liberaciones de asientos las cuenta el motor de reservas en la misma operación
+ *         atómica que toma o devuelve el permiso, sin agregar trabajo a la venta;</li>
+ *     <li>los demás resultados (sección agotada, retenciones) ocurren fuera del camino de una venta exitosa
+ *         y se cuentan con {@link LongAdder};</li>
+ *     <li>la latencia de las operaciones rápidas se mide solo en una de cada {@value #MUESTREO} llamadas,
+ *         elegida al azar por hilo; las lentas (como imprimir una boleta) se miden siempre.</li>
+ * </ul>
+ */
+public class MetricasVentas {
+    public static final int RESERVADA = 0;  // Asiento tomado: venta, lote o retención (lo cuenta el motor)
+    public static final int LIBERADA = 1;   // Asiento devuelto: anulación o retención liberada o vencida (lo cuenta el motor)
+    public static final int AGOTADA = 2;    // Venta o retención rechazada por falta de asientos
+    public static final int RETENIDA = 3;   // Asiento retenido mientras se paga
+    public static final int CONFIRMADA = 4; // Retención convertida en venta
+    public static final int RESULTADOS = 5; // Cantidad de resultados
+
+    public static final int ASIGNACION = 0; // asignarAsiento / venderEntrada
+    public static final int PRECIO = 1;     // calcularPrecioFinal
+    public static final int BOLETA = 2;     // imprimirBoleta
+    public static final int ANULACION = 3;  // anularEntrada
+    public static final int OPERACIONES = 4; // Cantidad de operaciones medidas
+
+    private static final String[] NOMBRES_RESULTADO = {"reservada", "liberada", "agotada", "retenida", "confirmada"};
+    private static final String[] NOMBRES_OPERACION = {"asignarAsiento", "calcularPrecioFinal", "imprimirBoleta", "anularEntrada"};
+    private static final double[] PERCENTILES = {50, 90, 99, 99.9};
+    private static final int MUESTREO = 256; // Se mide la latencia de una de cada MUESTREO llamadas (potencia de 2)
+
+    private final MotorReservas motor;                // Motor del evento, que cuenta reservas y liberaciones
+    private final LongAdder[] conteos;                // Conteo por [sección * RESULTADOS + resultado]
+    private final LongAdder seccionInexistente;       // Ventas pedidas en secciones que no existen
+    private final HistogramaLatencia[] latencias;     // Latencia por operación
+
+    /**
+     * Instantánea de las métricas en un momento dado.
+     */
+    public static class Instantanea {
+        private final long[] conteos;                            // Conteo por [sección * RESULTADOS + resultado]
+        private final long seccionInexistente;                   // Ventas en secciones inexistentes
+        private final HistogramaLatencia.Instantanea[] latencias; // Latencia por operación
+
+        /**
+         * Constructor para inicializar una instantánea.
+         *
+         * @param conteos            Conteo por sección y resultado.
+         * @param seccionInexistente Ventas en secciones inexistentes.
+         * @param latencias          Latencia por operación.
+         */
+        Instantanea(long[] conteos, long seccionInexistente, HistogramaLatencia.Instantanea[] latencias) {
+            this.conteos = conteos;
+            this.seccionInexistente = seccionInexistente;
+            this.latencias = latencias;
+        }
+
+        /**
+         * Obtiene la cantidad de operaciones de una sección con un resultado.
+         *
+         * @param idSeccion Id de la sección.
+         * @param resultado Resultado ({@link #RESERVADA}, {@link #LIBERADA}, {@link #AGOTADA}, {@link #RETENIDA}
+         *                  o {@link #CONFIRMADA}).
+         * @return Cantidad de operaciones.
+         */
+        public long getConteo(int idSeccion, int resultado) {
+            return conteos[idSeccion * RESULTADOS + resultado];
+        }
+
+        /**
+         * Obtiene la cantidad total de operaciones con un resultado, sumando todas las secciones.
+         *
+         * @param resultado Resultado.
+         * @return Cantidad de operaciones.
+         */
+        public long getTotal(int resultado) {
+            long total = 0;
+            for (int i = resultado; i < conteos.length; i += RESULTADOS) {
+                total += conteos[i];
+            }
+            return total;
+        }
+
+        /**
+         * Obtiene la cantidad de ventas pedidas en secciones que no existen.
+         *
+         * @return Cantidad de ventas rechazadas.
+         */
+        public long getSeccionInexistente() {
+            return seccionInexistente;
+        }
+
+        /**
+         * Obtiene el histograma de latencia de una operación.
+         *
+         * @param operacion Operación ({@link #ASIGNACION}, {@link #PRECIO}, {@link #BOLETA} o {@link #ANULACION}).
+         * @return Instantánea del histograma (solo con las llamadas muestreadas).
+         */
+        public HistogramaLatencia.Instantanea getLatencia(int operacion) {
+            return latencias[operacion];
+        }
+    }
+
+    /**
+     * Constructor para inicializar las métricas de un evento.
+     *
+     * @param motor Motor de reservas del evento.
+     */
+    public MetricasVentas(MotorReservas motor) {
+        this.motor = motor;
+        this.conteos = new LongAdder[motor.getMapa().getCantidadSecciones() * RESULTADOS];
+        for (int i = 0; i < conteos.length; i++) {
+            conteos[i] = new LongAdder();
+        }
+        this.seccionInexistente = new LongAdder();
+        this.latencias = new HistogramaLatencia[OPERACIONES];
+        for (int i = 0; i < OPERACIONES; i++) {
+            latencias[i] = new HistogramaLatencia();
+        }
+    }
+
+    /**
+     * Cuenta una operación de una sección. Las reservas y liberaciones no se cuentan aquí: las cuenta el motor.
+     *
+     * @param idSeccion Id de la sección.
+     * @param resultado {@link #AGOTADA}, {@link #RETENIDA} o {@link #CONFIRMADA}.
+     */
+    public void contar(int idSeccion, int resultado) {
+        conteos[idSeccion * RESULTADOS + resultado].increment();
+    }
+
+    /**
+     * Cuenta una venta pedida en una sección que no existe.
+     */
+    public void contarSeccionInexistente() {
+        seccionInexistente.increment();
+    }
+
+    /**
+     * Decide si se mide la latencia de esta llamada y, en ese caso, toma el instante de inicio.
+     *
+     * @return Instante de inicio en System.nanoTime(), o 0 si esta llamada no se mide.
+     */
+    public long iniciar() {
+        return (ThreadLocalRandom.current().nextInt() & (MUESTREO - 1)) == 0 ? System.nanoTime() : 0;
+    }
+
+    /**
+     * Toma el instante de inicio de una llamada que se mide siempre, para operaciones lentas donde
+     * leer el reloj no pesa.
+     *
+     * @return Instante de inicio en System.nanoTime().
+     */
+    public long iniciarSinMuestreo() {
+        return System.nanoTime();
+    }
+
+    /**
+     * Registra la latencia de una llamada iniciada con {@link #iniciar()}, si fue elegida para medirse.
+     *
+     * @param operacion Operación medida.
+     * @param inicio    Valor devuelto por {@link #iniciar()}.
+     */
+    public void registrar(int operacion, long inicio) {
+        if (inicio != 0) {
+            latencias[operacion].registrar(System.nanoTime() - inicio);
+        }
+    }
+
+    /**
+     * Copia el estado actual de las métricas.
+     *
+     * @return Instantánea de contadores e histogramas.
+     */
+    public Instantanea instantanea() {
+        long[] copia = new long[conteos.length];
+        for (int i = 0; i < conteos.length; i++) {
+            copia[i] = conteos[i].sum();
+        }
+        for (int id = 0; id < motor.getMapa().getCantidadSecciones(); id++) {
+            copia[id * RESULTADOS + RESERVADA] = motor.reservasAcumuladas(id);
+            copia[id * RESULTADOS + LIBERADA] = motor.liberacionesAcumuladas(id);
+        }
+        HistogramaLatencia.Instantanea[] histogramas = new HistogramaLatencia.Instantanea[OPERACIONES];
+        for (int i = 0; i < OPERACIONES; i++) {
+            histogramas[i] = latencias[i].instantanea();
+        }
+        return new Instantanea(copia, seccionInexistente.sum(), histogramas);
+    }
+
+    /**
+     * Escribe las métricas en formato de texto, una por línea con sus etiquetas, por ejemplo
+     * {@code ventas_total{evento="F1",seccion="VIP",resultado="reservada"} 12}.
+     * Los valores de las etiquetas se escapan como pide el formato de exposición de Prometheus.
+     *
+     * @param evento Identificador del evento, para las etiquetas.
+     * @param salida Buffer donde se agregan las líneas.
+     */
+    public void exponer(String evento, StringBuilder salida) {
+        Instantanea instantanea = instantanea();
+        MapaAsientos mapa = motor.getMapa();
+        evento = escaparEtiqueta(evento);
+        for (int id = 0; id < mapa.getCantidadSecciones(); id++) {
+            String seccion = escaparEtiqueta(mapa.nombreSeccion(id));
+            for (int resultado = 0; resultado < RESULTADOS; resultado++) {
+                salida.append("ventas_total{evento=\"").append(evento)
+                        .append("\",seccion=\"").append(seccion)
+                        .append("\",resultado=\"").append(NOMBRES_RESULTADO[resultado]).append("\"} ")
+                        .append(instantanea.getConteo(id, resultado)).append('\n');
+            }
+        }
+        salida.append("ventas_seccion_inexistente_total{evento=\"").append(evento).append("\"} ")
+                .append(instantanea.getSeccionInexistente()).append('\n');
+        for (int operacion = 0; operacion < OPERACIONES; operacion++) {
+            HistogramaLatencia.Instantanea latencia = instantanea.getLatencia(operacion);
+            String etiquetas = "{evento=\"" + evento + "\",operacion=\"" + NOMBRES_OPERACION[operacion] + "\"";
+            for (double percentil : PERCENTILES) {
+                salida.append("latencia_ns").append(etiquetas)
+                        .append(",percentil=\"").append(percentil).append("\"} ")
+                        .append(latencia.percentil(percentil)).append('\n');
+            }
+            salida.append("latencia_ns_max").append(etiquetas).append("} ").append(latencia.getMaximo()).append('\n');
+            salida.append("latencia_ns_promedio").append(etiquetas).append("} ")
+                    .append(String.format(Locale.ROOT, "%.1f", latencia.getPromedio())).append('\n');
+            salida.append("latencia_muestras").append(etiquetas).append("} ").append(latencia.getCantidad()).append('\n');
+        }
+    }
+
+    /**
+     * Escapa el valor de una etiqueta: barra invertida, comillas y saltos de línea.
+     *
+     * @param valor Valor de la etiqueta.
+     * @return Valor escapado, listo para ir entre comillas.
+     */
+    static String escaparEtiqueta(String valor) {
+        if (valor.indexOf('\\') < 0 && valor.indexOf('"') < 0 && valor.indexOf('\n') < 0) {
+            return valor;
+        }
+        StringBuilder escapado = new StringBuilder(valor.length() + 8);
+        for (int i = 0; i < valor.length(); i++) {
+            char c = valor.charAt(i);
+            if (c == '\\' || c == '"') {
+                escapado.append('\\').append(c);
+            } else if (c == '\n') {
+                escapado.append("\\n");
+            } else {
+                escapado.append(c);
+            }
+        }
+        return escapado.toString();
+    }
+}
\ No newline at end of file
@@ -0,0 +1,662 @@
+package com.sistemateatromoro;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.IntConsumer;
+
+/**
+ * Motor de reservas concurrente del Teatro Moro.
+ * El estado de los asientos se guarda en un mapa de bits empaquetado (un bit por asiento)
+ * y se modifica con operaciones compare-and-set, por lo que varias boleterías pueden
+ * vender al mismo tiempo sin un bloqueo global y sin vender dos veces el mismo asiento.
+ * Las secciones se toman del mapa de asientos, que guarda sus rangos una sola vez.
+ * Cada cambio de estado incrementa una versión y queda en un registro circular de cambios recientes,
+ * para que las vistas puedan pedir solo los asientos que cambiaron desde una versión conocida.
+ */
+public class MotorReservas {
+    private static final int CAMBIOS_RECIENTES = 1 << 14; // Capacidad del registro circular (potencia de 2)
+    private static final int PESO_FILA = 3;               // Puntaje de alejarse una fila (1,5 butacas hacia el costado)
+
+    private final MapaAsientos mapa;              // Distribución de secciones
+    private final Palabras ocupados;              // Bit encendido = asiento ocupado
+    private final Palabras disponibles;           // Por sección: permisos (asientos libres) en los 32 bits bajos
+                                                  // y reservas acumuladas en los 32 bits altos
+    private final AtomicIntegerArray pista;       // Índice sugerido para empezar a buscar en cada sección
+    private final AtomicLong version;             // Cantidad de cambios de estado realizados
+    private final AtomicLongArray cambios;        // Registro circular: versión + 1 (32 bits altos) y asiento cambiado
+    private volatile IntConsumer alLiberar;       // Recibe la sección de cada asiento liberado, o null
+
+    /**
+     * Palabras de 64 bits con operaciones atómicas donde el motor guarda el mapa de bits y los contadores.
+     * Normalmente viven en el heap; con {@link MapaPersistente} viven en un archivo mapeado en memoria.
+     */
+    interface Palabras {
+        /**
+         * Lee una palabra con semántica volátil.
+         *
+         * @param i Índice de la palabra.
+         * @return Valor de la palabra.
+         */
+        long get(int i);
+
+        /**
+         * Escribe una palabra con semántica volátil.
+         *
+         * @param i     Índice de la palabra.
+         * @param valor Nuevo valor.
+         */
+        void set(int i, long valor);
+
+        /**
+         * Reemplaza una palabra solo si tiene el valor esperado.
+         *
+         * @param i        Índice de la palabra.
+         * @param esperado Valor esperado.
+         * @param nuevo    Nuevo valor.
+         * @return true si se reemplazó.
+         */
+        boolean compareAndSet(int i, long esperado, long nuevo);
+
+        /**
+         * Suma atómicamente a una palabra.
+         *
+         * @param i     Índice de la palabra.
+         * @param delta Valor a sumar.
+         * @return Valor anterior.
+         */
+        long getAndAdd(int i, long delta);
+    }
+
+    /**
+     * Palabras en el heap: las operaciones son directamente las de {@link AtomicLongArray}.
+     */
+    private static final class PalabrasEnMemoria extends AtomicLongArray implements Palabras {
+        private static final long serialVersionUID = 1L;
+
+        PalabrasEnMemoria(int cantidad) {
+            super(cantidad);
+        }
+    }
+
+    /**
+     * Construye el motor con todos los asientos del mapa disponibles.
+     *
+     * @param mapa Distribución de secciones del teatro.
+     */
+    public MotorReservas(MapaAsientos mapa) {
+        this(mapa, new PalabrasEnMemoria((mapa.getCapacidad() + 63) >>> 6),
+                new PalabrasEnMemoria(mapa.getCantidadSecciones()));
+        for (int id = 0; id < mapa.getCantidadSecciones(); id++) {
+            disponibles.set(id, mapa.fin(id) - mapa.inicio(id));
+        }
+    }
+
+    /**
+     * Construye el motor sobre un estado de asientos mapeado en memoria, que conserva los asientos ocupados
+     * entre ejecuciones. Si el estado es nuevo, todos los asientos empiezan libres; si no, se retoma tal como
+     * quedó, volviendo a contar los asientos libres de cada sección solo si el proceso anterior no lo cerró.
+     *
+     * @param estado Estado de asientos abierto para escribir.
+     */
+    public MotorReservas(MapaPersistente estado) {
+        this(estado.getMapa(), estado.getOcupados(), estado.getDisponibles());
+        if (estado.isNuevo()) {
+            for (int id = 0; id < mapa.getCantidadSecciones(); id++) {
+                disponibles.set(id, mapa.fin(id) - mapa.inicio(id));
+            }
+        } else if (!estado.isCerradoLimpio()) {
+            recontarDisponibles();
+        }
+    }
+
+    /**
+     * Construye el motor sobre el almacenamiento indicado, sin inicializar los contadores.
+     *
+     * @param mapa        Distribución de secciones del teatro.
+     * @param ocupados    Mapa de bits de asientos ocupados.
+     * @param disponibles Contador de cada sección.
+     */
+    private MotorReservas(MapaAsientos mapa, Palabras ocupados, Palabras disponibles) {
+        this.mapa = mapa;
+        int secciones = mapa.getCantidadSecciones();
+        this.ocupados = ocupados;
+        this.disponibles = disponibles;
+        this.pista = new AtomicIntegerArray(secciones);
+        this.version = new AtomicLong();
+        this.cambios = new AtomicLongArray(CAMBIOS_RECIENTES);
+        for (int id = 0; id < secciones; id++) {
+            pista.set(id, mapa.inicio(id));
+        }
+    }
+
+    /**
+     * Vuelve a contar los asientos libres de cada sección desde el mapa de bits, conservando las reservas
+     * acumuladas. Se usa al retomar un estado que no se cerró correctamente, donde un asiento pudo quedar
+     * marcado sin que se descontara su permiso.
+     */
+    private void recontarDisponibles() {
+        for (int id = 0; id < mapa.getCantidadSecciones(); id++) {
+            int inicio = mapa.inicio(id);
+            int fin = mapa.fin(id);
+            int tomados = 0;
+            for (int palabra = inicio >>> 6; palabra <= (fin - 1) >>> 6 && inicio < fin; palabra++) {
+                tomados += Long.bitCount(ocupados.get(palabra) & mascaraRango(palabra, inicio, fin));
+            }
+            long reservas = disponibles.get(id) & 0xFFFFFFFF00000000L;
+            disponibles.set(id, reservas | (fin - inicio - tomados));
+        }
+    }
+
+    /**
+     * Obtiene la distribución de secciones del motor.
+     *
+     * @return Mapa de asientos.
+     */
+    public MapaAsientos getMapa() {
+        return mapa;
+    }
+
+    /**
+     * Reserva atómicamente un asiento libre de la sección.
+     * Primero se obtiene un permiso descontando un asiento disponible; quien lo obtiene tiene
+     * garantizado un bit libre en la sección, que luego reclama con compare-and-set.
+     *
+     * @param idSeccion Id de la sección.
+     * @return Índice del asiento reservado, o -1 si la sección está agotada.
+     */
+    public int reservar(int idSeccion) {
+        if (!tomarPermiso(idSeccion)) {
+            return -1;
+        }
+        int desde = pista.get(idSeccion);
+        while (true) {
+            int indice = reclamarEnRango(desde, mapa.fin(idSeccion));
+            if (indice < 0) {
+                indice = reclamarEnRango(mapa.inicio(idSeccion), desde);
+            }
+            if (indice >= 0) {
+                pista.set(idSeccion, indice + 1 < mapa.fin(idSeccion) ? indice + 1 : mapa.inicio(idSeccion));
+                registrarCambio(indice);
+                return indice;
+            }
+            // Otro hilo liberó y volvió a tomar asientos mientras se recorría; se reintenta desde el inicio
+            desde = mapa.inicio(idSeccion);
+        }
+    }
+
+    /**
+     * Reserva atómicamente varios asientos de una sección, todos o ninguno.
+     * Primero se obtienen todos los permisos de una vez; luego se prefiere un tramo de asientos contiguos
+     * y, si no existe, se toman los asientos libres de menor número.
+     *
+     * @param idSeccion Id de la sección.
+     * @param cantidad  Cantidad de asientos a reservar.
+     * @return Índices de los asientos reservados en orden, o null si no quedan suficientes asientos.
+     */
+    public int[] reservarLote(int idSeccion, int cantidad) {
+        if (cantidad <= 0 || !tomarPermisos(idSeccion, cantidad)) {
+            return null;
+        }
+        int[] indices = new int[cantidad];
+        int inicioSeccion = mapa.inicio(idSeccion);
+        int finSeccion = mapa.fin(idSeccion);
+        int desde = inicioSeccion;
+        int tramo;
+        while ((tramo = buscarTramoLibre(desde, finSeccion, cantidad)) >= 0) {
+            if (reclamarTramo(tramo, cantidad)) {
+                for (int i = 0; i < cantidad; i++) {
+                    indices[i] = tramo + i;
+                    registrarCambio(tramo + i);
+                }
+                return indices;
+            }
+            // Otro hilo tomó un asiento del tramo; se sigue buscando desde ese punto
+            desde = tramo;
+        }
+        // No hay asientos contiguos suficientes: los permisos garantizan que hay asientos sueltos
+        int reservados = 0;
+        while (reservados < cantidad) {
+            int indice = reclamarEnRango(inicioSeccion, finSeccion);
+            if (indice >= 0) {
+                indices[reservados++] = indice;
+                registrarCambio(indice);
+            }
+        }
+        Arrays.sort(indices);
+        return indices;
+    }
+
+    /**
+     * Reserva atómicamente la mejor ubicación disponible de una sección para un grupo que se sienta junto:
+     * asientos contiguos de una misma fila, lo más adelante y centrados posible.
+     * Cada tramo se evalúa con un puntaje fijo ({@value #PESO_FILA} por fila hacia atrás más la distancia
+     * en medias butacas desde el centro del tramo al centro de la fila); las filas se recorren desde el
+     * escenario y la búsqueda termina cuando ninguna fila siguiente puede superar al mejor tramo encontrado.
+     *
+     * @param idSeccion Id de la sección.
+     * @param cantidad  Cantidad de asientos contiguos.
+     * @return Índices de los asientos reservados en orden, o null si la sección no tiene un tramo libre
+     *         de ese largo en una fila.
+     */
+    public int[] reservarMejorUbicacion(int idSeccion, int cantidad) {
+        if (cantidad <= 0 || cantidad > mapa.asientosPorFila(idSeccion) || !tomarPermisos(idSeccion, cantidad)) {
+            return null;
+        }
+        while (true) {
+            int tramo = buscarMejorTramo(idSeccion, cantidad);
+            if (tramo < 0) {
+                // Hay asientos libres, pero no juntos: se devuelven los permisos y se descuentan las reservas
+                disponibles.getAndAdd(idSeccion, cantidad - ((long) cantidad << 32));
+                return null;
+            }
+            if (reclamarTramo(tramo, cantidad)) {
+                int[] indices = new int[cantidad];
+                for (int i = 0; i < cantidad; i++) {
+                    indices[i] = tramo + i;
+                    registrarCambio(tramo + i);
+                }
+                return indices;
+            }
+            // Otro hilo tomó un asiento del tramo; se vuelve a buscar
+        }
+    }
+
+    /**
+     * Busca el tramo libre de mejor puntaje de una sección. Los asientos ocupados se saltan de a palabras
+     * del mapa de bits, por lo que una sección casi llena se recorre sin revisar sus filas una por una.
+     *
+     * @param idSeccion Id de la sección.
+     * @param cantidad  Largo del tramo (no mayor que el ancho de las filas).
+     * @return Índice inicial del mejor tramo, o -1 si no existe.
+     */
+    private int buscarMejorTramo(int idSeccion, int cantidad) {
+        int inicioSeccion = mapa.inicio(idSeccion);
+        int finSeccion = mapa.fin(idSeccion);
+        int ancho = mapa.asientosPorFila(idSeccion);
+        int mejor = -1;
+        long mejorPuntaje = Long.MAX_VALUE;
+        int i = inicioSeccion;
+        while ((i = siguienteLibre(i, finSeccion)) < finSeccion) {
+            int fila = (i - inicioSeccion) / ancho;
+            long cota = (long) fila * PESO_FILA; // Puntaje de un tramo perfectamente centrado en esta fila
+            if (cota >= mejorPuntaje) {
+                break;
+            }
+            int desdeFila = inicioSeccion + fila * ancho;
+            int hastaFila = Math.min(desdeFila + ancho, finSeccion);
+            int ideal = desdeFila + (ancho - cantidad) / 2;
+            // Se recorren los tramos libres de la fila y se elige el inicio más cercano al centro
+            int libre = i;
+            while (libre < hastaFila) {
+                int ocupado = siguienteOcupado(libre, hastaFila);
+                if (ocupado - libre >= cantidad) {
+                    int inicioTramo = Math.max(libre, Math.min(ideal, ocupado - cantidad));
+                    long puntaje = cota + Math.abs(2 * (inicioTramo - desdeFila) + cantidad - ancho);
+                    if (puntaje < mejorPuntaje) {
+                        mejorPuntaje = puntaje;
+                        mejor = inicioTramo;
+                    }
+                }
+                libre = siguienteLibre(ocupado, hastaFila);
+            }
+            i = hastaFila;
+        }
+        return mejor;
+    }
+
+    /**
+     * Busca el primer asiento libre desde un índice.
+     *
+     * @param desde Primer índice donde buscar (inclusive).
+     * @param hasta Último índice donde buscar (exclusive).
+     * @return Índice del asiento libre, o {@code hasta} si no hay ninguno.
+     */
+    private int siguienteLibre(int desde, int hasta) {
+        for (int palabra = desde >>> 6; desde < hasta; palabra++) {
+            long libres = ~ocupados.get(palabra) & mascaraRango(palabra, desde, hasta);
+            if (libres != 0) {
+                return (palabra << 6) + Long.numberOfTrailingZeros(libres);
+            }
+            desde = (palabra + 1) << 6;
+        }
+        return hasta;
+    }
+
+    /**
+     * Busca el primer asiento ocupado desde un índice.
+     *
+     * @param desde Primer índice donde buscar (inclusive).
+     * @param hasta Último índice donde buscar (exclusive).
+     * @return Índice del asiento ocupado, o {@code hasta} si no hay ninguno.
+     */
+    private int siguienteOcupado(int desde, int hasta) {
+        for (int palabra = desde >>> 6; desde < hasta; palabra++) {
+            long tomados = ocupados.get(palabra) & mascaraRango(palabra, desde, hasta);
+            if (tomados != 0) {
+                return (palabra << 6) + Long.numberOfTrailingZeros(tomados);
+            }
+            desde = (palabra + 1) << 6;
+        }
+        return hasta;
+    }
+
+    /**
+     * Busca el primer tramo de asientos libres contiguos de un largo dado.
+     * Se recorre el mapa de bits por palabras, saltando de una vez los bloques libres y los ocupados.
+     *
+     * @param desde    Primer índice donde buscar (inclusive).
+     * @param hasta    Último índice donde buscar (exclusive).
+     * @param cantidad Largo del tramo.
+     * @return Índice inicial del tramo, o -1 si no existe.
+     */
+    private int buscarTramoLibre(int desde, int hasta, int cantidad) {
+        int tramo = desde; // Inicio del tramo libre actual
+        int i = desde;
+        while (i < hasta) {
+            int palabra = i >>> 6;
+            int limite = Math.min((palabra + 1) << 6, hasta);
+            long ocupadosDesde = ocupados.get(palabra) >>> (i & 63);
+            int ocupado = ocupadosDesde == 0 ? limite : Math.min(limite, i + Long.numberOfTrailingZeros(ocupadosDesde));
+            if (ocupado - tramo >= cantidad) {
+                return tramo;
+            }
+            if (ocupado == limite) {
+                i = limite;
+                continue;
+            }
+            // Se salta el bloque ocupado hasta el siguiente asiento libre
+            i = ocupado;
+            while (i < hasta) {
+                palabra = i >>> 6;
+                long libres = ~ocupados.get(palabra) & (-1L << (i & 63));
+                if (libres != 0) {
+                    i = (palabra << 6) + Long.numberOfTrailingZeros(libres);
+                    break;
+                }
+                i = (palabra + 1) << 6;
+            }
+            tramo = i;
+        }
+        return -1;
+    }
+
+    /**
+     * Reclama con compare-and-set un tramo completo de asientos, palabra por palabra.
+     * Si algún asiento del tramo ya fue tomado, se deshacen las palabras reclamadas.
+     *
+     * @param tramo    Índice inicial del tramo.
+     * @param cantidad Largo del tramo.
+     * @return true si se reclamó el tramo completo, false si hubo conflicto.
+     */
+    private boolean reclamarTramo(int tramo, int cantidad) {
+        int hasta = tramo + cantidad;
+        int primera = tramo >>> 6;
+        int ultima = (hasta - 1) >>> 6;
+        for (int palabra = primera; palabra <= ultima; palabra++) {
+            long mascara = mascaraRango(palabra, tramo, hasta);
+            while (true) {
+                long actual = ocupados.get(palabra);
+                if ((actual & mascara) != 0) {
+                    for (int anterior = primera; anterior < palabra; anterior++) {
+                        long deshacer = mascaraRango(anterior, tramo, hasta);
+                        long valor;
+                        do {
+                            valor = ocupados.get(anterior);
+                        } while (!ocupados.compareAndSet(anterior, valor, valor & ~deshacer));
+                    }
+                    return false;
+                }
+                if (ocupados.compareAndSet(palabra, actual, actual | mascara)) {
+                    break;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Reserva atómicamente un asiento específico.
+     *
+     * @param indice Índice del asiento.
+     * @return true si el asiento estaba libre y quedó reservado, false de lo contrario.
+     */
+    public boolean reservarAsiento(int indice) {
+        int idSeccion = mapa.seccionDe(indice);
+        if (!tomarPermiso(idSeccion)) {
+            return false;
+        }
+        int palabra = indice >>> 6;
+        long bit = 1L << indice;
+        while (true) {
+            long actual = ocupados.get(palabra);
+            if ((actual & bit) != 0) {
+                disponibles.getAndAdd(idSeccion, 1 - (1L << 32)); // Se devuelve el permiso y se descuenta la reserva
+                return false;
+            }
+            if (ocupados.compareAndSet(palabra, actual, actual | bit)) {
+                registrarCambio(indice);
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Libera atómicamente un asiento ocupado.
+     *
+     * @param indice Índice del asiento.
+     * @return true si el asiento estaba ocupado y fue liberado, false si ya estaba libre.
+     */
+    public boolean liberar(int indice) {
+        int palabra = indice >>> 6;
+        long bit = 1L << indice;
+        while (true) {
+            long actual = ocupados.get(palabra);
+            if ((actual & bit) == 0) {
+                return false;
+            }
+            if (ocupados.compareAndSet(palabra, actual, actual & ~bit)) {
+                break;
+            }
+        }
+        int idSeccion = mapa.seccionDe(indice);
+        // El bit se limpia antes de devolver el permiso, así quien lo tome siempre encuentra un asiento libre
+        disponibles.getAndAdd(idSeccion, 1);
+        registrarCambio(indice);
+        int sugerido;
+        do {
+            sugerido = pista.get(idSeccion);
+        } while (indice < sugerido && !pista.compareAndSet(idSeccion, sugerido, indice));
+        IntConsumer oyente = alLiberar;
+        if (oyente != null) {
+            oyente.accept(idSeccion);
+        }
+        return true;
+    }
+
+    /**
+     * Registra quién debe enterarse de cada asiento liberado (por ejemplo, la lista de espera del evento).
+     * Se llama en el mismo hilo que libera el asiento, así que debe ser breve y no bloquearse.
+     *
+     * @param oyente Recibe el id de la sección del asiento liberado, o null para no avisar.
+     */
+    public void setAlLiberar(IntConsumer oyente) {
+        this.alLiberar = oyente;
+    }
+
+    /**
+     * Indica si un asiento está libre.
+     *
+     * @param indice Índice del asiento.
+     * @return true si el asiento está libre, false si está ocupado.
+     */
+    public boolean estaDisponible(int indice) {
+        return (ocupados.get(indice >>> 6) & (1L << indice)) == 0;
+    }
+
+    /**
+     * Obtiene la cantidad de asientos disponibles en una sección.
+     *
+     * @param idSeccion Id de la sección.
+     * @return Cantidad de asientos libres.
+     */
+    public int disponibles(int idSeccion) {
+        return (int) disponibles.get(idSeccion);
+    }
+
+    /**
+     * Obtiene la cantidad de reservas hechas en una sección desde que se creó el motor
+     * (ventas, lotes, retenciones y ventas recuperadas del journal).
+     * Se cuenta en la misma operación atómica que toma el permiso, por lo que no agrega costo a la reserva.
+     *
+     * @param idSeccion Id de la sección.
+     * @return Reservas acumuladas (módulo 2^32).
+     */
+    public long reservasAcumuladas(int idSeccion) {
+        return disponibles.get(idSeccion) >>> 32;
+    }
+
+    /**
+     * Obtiene la cantidad de asientos liberados en una sección desde que se creó el motor.
+     * Se deriva de las reservas acumuladas menos los asientos que siguen ocupados.
+     *
+     * @param idSeccion Id de la sección.
+     * @return Liberaciones acumuladas (módulo 2^32).
+     */
+    public long liberacionesAcumuladas(int idSeccion) {
+        long estado = disponibles.get(idSeccion);
+        long ocupados = (mapa.fin(idSeccion) - mapa.inicio(idSeccion)) - (int) estado;
+        return ((estado >>> 32) - ocupados) & 0xFFFFFFFFL;
+    }
+
+    /**
+     * Obtiene la versión actual del estado de los asientos, que aumenta con cada reserva o liberación.
+     *
+     * @return Cantidad de cambios realizados desde que se creó el motor.
+     */
+    public long getVersion() {
+        return version.get();
+    }
+
+    /**
+     * Obtiene los asientos que cambiaron entre dos versiones.
+     * Solo se conservan los últimos cambios; si la versión pedida es más antigua, o es posterior a la final
+     * (un cliente que viene de antes de un reinicio), el llamador debe volver a leer el estado completo.
+     *
+     * @param desde Versión inicial (inclusive).
+     * @param hasta Versión final (exclusive), normalmente obtenida con {@link #getVersion()}.
+     * @return Índices de los asientos cambiados, ordenados y sin repetir, o null si ya no se conservan.
+     */
+    public int[] cambiosEntre(long desde, long hasta) {
+        // Una versión posterior a la actual (por ejemplo de antes de un reinicio) se trata como cambios perdidos
+        if (desde < 0 || desde > hasta || hasta - desde > CAMBIOS_RECIENTES || hasta > version.get()) {
+            return desde == hasta ? new int[0] : null;
+        }
+        int[] indices = new int[(int) (hasta - desde)];
+        for (long v = desde; v < hasta; v++) {
+            int posicion = (int) v & (CAMBIOS_RECIENTES - 1);
+            long registro;
+            int diferencia;
+            // La versión se reserva antes de escribir su registro: se espera al escritor si aún no termina
+            while ((diferencia = (int) ((registro = cambios.get(posicion)) >>> 32) - (int) (v + 1)) < 0) {
+                Thread.onSpinWait();
+            }
+            if (diferencia > 0) {
+                return null; // El registro ya fue sobrescrito por un cambio más reciente
+            }
+            indices[(int) (v - desde)] = (int) registro;
+        }
+        Arrays.sort(indices);
+        int distintos = 0;
+        for (int i = 0; i < indices.length; i++) {
+            if (i == 0 || indices[i] != indices[i - 1]) {
+                indices[distintos++] = indices[i];
+            }
+        }
+        return Arrays.copyOf(indices, distintos);
+    }
+
+    /**
+     * Anota en el registro circular que un asiento cambió de estado.
+     *
+     * @param indice Índice del asiento.
+     */
+    private void registrarCambio(int indice) {
+        long v = version.getAndIncrement();
+        cambios.lazySet((int) v & (CAMBIOS_RECIENTES - 1), ((v + 1) << 32) | indice);
+    }
+
+    /**
+     * Descuenta un asiento disponible de la sección si queda alguno.
+     *
+     * @param idSeccion Id de la sección.
+     * @return true si se obtuvo el permiso, false si la sección está agotada.
+     */
+    private boolean tomarPermiso(int idSeccion) {
+        return tomarPermisos(idSeccion, 1);
+    }
+
+    /**
+     * Descuenta varios asientos disponibles de la sección, solo si quedan todos.
+     *
+     * @param idSeccion Id de la sección.
+     * @param cantidad  Cantidad de permisos.
+     * @return true si se obtuvieron todos los permisos, false si no quedan suficientes asientos.
+     */
+    private boolean tomarPermisos(int idSeccion, int cantidad) {
+        while (true) {
+            long estado = disponibles.get(idSeccion);
+            if ((int) estado < cantidad) {
+                return false;
+            }
+            if (disponibles.compareAndSet(idSeccion, estado, estado - cantidad + ((long) cantidad << 32))) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Busca y reclama con compare-and-set el primer asiento libre en un rango de índices.
+     *
+     * @param desde Primer índice del rango (inclusive).
+     * @param hasta Último índice del rango (exclusive).
+     * @return Índice del asiento reclamado, o -1 si no quedó ninguno libre en el rango.
+     */
+    private int reclamarEnRango(int desde, int hasta) {
+        for (int palabra = desde >>> 6; palabra <= (hasta - 1) >>> 6 && desde < hasta; palabra++) {
+            long mascara = mascaraRango(palabra, desde, hasta);
+            long actual = ocupados.get(palabra);
+            long libres = ~actual & mascara;
+            while (libres != 0) {
+                long bit = Long.lowestOneBit(libres);
+                if (ocupados.compareAndSet(palabra, actual, actual | bit)) {
+                    return (palabra << 6) + Long.numberOfTrailingZeros(bit);
+                }
+                actual = ocupados.get(palabra);
+                libres = ~actual & mascara;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Calcula la máscara de bits de una palabra que cae dentro de un rango de índices.
+     *
+     * @param palabra Número de palabra del mapa de bits.
+     * @param desde   Primer índice del rango (inclusive).
+     * @param hasta   Último índice del rango (exclusive).
+     * @return Máscara con los bits del rango encendidos.
+     */
+    private static long mascaraRango(int palabra, int desde, int hasta) {
+        int base = palabra << 6;
+        long mascara = -1L;
+        if (desde > base) {
+            mascara &= -1L << (desde - base);
+        }
+        if (hasta < base + 64) {
+            mascara &= -1L >>> (64 - (hasta - base));
+        }
+        return mascara;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,673 @@
+package com.sistemateatromoro;
+
+import com.sun.net.httpserver.HttpExchange;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.net.ConnectException;
+import java.net.URI;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpConnectTimeoutException;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Nodo de un cluster de venta de entradas del Teatro Moro.
+ * Las secciones de cada evento se reparten entre los nodos: la sección i pertenece a la partición i % nodos, y la
+ * partición k la atiende al comienzo el nodo k. Cada nodo reserva solo los asientos de las particiones que atiende,
+ * sin coordinarse con los demás, y vende con su propio tramo de ids, así el id de una entrada indica la partición
+ * que la vendió. Cualquier nodo recibe cualquier solicitud: las ventas, consultas y anulaciones de una partición
+ * que atiende otro nodo se le reenvían.
+ *
+ * Cada lote del journal de un nodo se copia, antes de confirmar sus ventas, a su seguidor (el nodo siguiente),
+ * que lo guarda byte a byte. Si un nodo no acepta conexiones al reenviarle una solicitud, se le pide a su seguidor
+ * que lo asuma: recupera la copia del journal, adopta sus entradas y desde entonces atiende sus particiones.
+ * El nodo asumido puede seguir vivo (por ejemplo, sobrecargado): el seguidor rechaza sus copias desde entonces,
+ * así que su siguiente lote falla, sus ventas pendientes se deshacen y su journal deja de aceptar ventas; además
+ * sus ventas verifican en cada operación que la sección siga siendo suya. Si el seguidor no responde, el nodo
+ * sigue vendiendo sin copia: esas ventas solo quedan en el nodo, la métrica {@code cluster_copia_al_dia} del
+ * evento queda en 0 y cada {@link #PAUSA_REPLICA} se vuelve a intentar la copia, que se pone al día con lo que
+ * le falta; si el nodo cae antes, esas ventas se pierden.
+ * Las retenciones y las solicitudes de espera quedan en el nodo que atiende su sección, que se informa en la
+ * cabecera {@code X-Nodo-Cluster} de la respuesta reenviada; su confirmación, liberación o consulta debe enviarse
+ * a ese nodo.
+ *
+ * Operaciones entre nodos (HTTP):
+ * <ul>
+ *     <li>{@code POST /cluster/replica?nodo=0&evento=F1&desde=1024} con los bytes del lote: responde el largo de la
+ *         copia, con 200 si se anexó o 409 si {@code desde} no coincide; 410 si el nodo ya fue asumido</li>
+ *     <li>{@code POST /cluster/asumir?nodo=0}: el seguidor del nodo 0 asume sus particiones</li>
+ *     <li>{@code GET /cluster/estado}: nodo que atiende cada partición, separados por comas</li>
+ * </ul>
+ */
+public class NodoCluster {
+    static final String CABECERA_REENVIO = "X-Reenvio-Cluster"; // Marca las solicitudes que ya reenvió otro nodo
+    static final String CABECERA_NODO = "X-Nodo-Cluster";       // Nodo que atendió una solicitud reenviada
+    private static final int PUESTA_AL_DIA = 1 << 20;            // Bytes por envío al poner al día una copia
+    private static final long PAUSA_REPLICA = 1_000_000_000L;     // Nanosegundos sin replicar tras una falla
+
+    private final URI[] nodos;                  // Dirección base de cada nodo
+    private final int propio;                   // Número de este nodo
+    private final CatalogoEventos catalogo;     // Eventos que vende el cluster
+    private final AtomicIntegerArray atiende;   // Nodo que atiende cada partición
+    private final HttpClient http;              // Cliente para reenviar y replicar
+    private final Map<String, FileChannel> copias; // Copias de journals recibidas, por "nodo/evento"
+    private final boolean[] asumidos;           // Nodos cuyas particiones asumió este nodo (protegido por el monitor)
+    private final Map<String, Replicador> replicadores; // Replicación del journal de cada evento, por evento
+    private Path directorioCopias;              // Directorio de las copias de los journals de otros nodos
+
+    /**
+     * Constructor para inicializar el nodo. Asigna a las ventas de cada evento el tramo de ids del nodo, por lo
+     * que debe crearse antes de activar los journals y de vender.
+     *
+     * @param nodos    Dirección base de cada nodo, por ejemplo {@code http://127.0.0.1:9001}, en el mismo orden en
+     *                 todos los nodos.
+     * @param propio   Número de este nodo (su posición en la lista).
+     * @param catalogo Eventos que vende el cluster, con la misma distribución de secciones en todos los nodos.
+     * @throws IllegalArgumentException Si el número de nodo no está en la lista o hay menos de dos nodos.
+     */
+    public NodoCluster(List<String> nodos, int propio, CatalogoEventos catalogo) {
+        if (nodos.size() < 2) {
+            throw new IllegalArgumentException("Un cluster necesita al menos dos nodos.");
+        }
+        if (propio < 0 || propio >= nodos.size()) {
+            throw new IllegalArgumentException("Número de nodo fuera del cluster: " + propio);
+        }
+        this.nodos = new URI[nodos.size()];
+        for (int i = 0; i < nodos.size(); i++) {
+            String direccion = nodos.get(i).trim();
+            this.nodos[i] = URI.create(direccion.endsWith("/") ? direccion.substring(0, direccion.length() - 1) : direccion);
+        }
+        this.propio = propio;
+        this.catalogo = catalogo;
+        this.atiende = new AtomicIntegerArray(nodos.size());
+        for (int particion = 0; particion < nodos.size(); particion++) {
+            atiende.set(particion, particion);
+        }
+        this.http = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(1))
+                .build();
+        this.copias = new HashMap<>();
+        this.asumidos = new boolean[nodos.size()];
+        this.replicadores = new ConcurrentHashMap<>();
+        AtomicIntegerArray tabla = atiende;
+        int particiones = nodos.size();
+        for (Evento evento : catalogo.getEventos()) {
+            evento.getVentaEntradas().usarTramoIds(propio);
+            // La sección i es de la partición i % nodos (ver particionDeSeccion)
+            evento.getVentaEntradas().usarSeccionesPropias(idSeccion -> tabla.get(idSeccion % particiones) == propio);
+        }
+    }
+
+    /**
+     * Activa la replicación: el journal de cada evento se copia al seguidor de este nodo, y las copias que envía
+     * el nodo anterior se guardan en el directorio indicado. Retoma los nodos que ya había asumido antes de
+     * reiniciarse y pregunta al seguidor si este nodo fue reemplazado mientras estaba detenido.
+     *
+     * @param directorioCopias Directorio de las copias de los journals de otros nodos.
+     * @throws IOException              Si no se puede crear el directorio.
+     * @throws IllegalStateException    Si algún evento no tiene el journal activado.
+     */
+    public void activar(Path directorioCopias) throws IOException {
+        Files.createDirectories(directorioCopias);
+        synchronized (this) {
+            this.directorioCopias = directorioCopias;
+            for (int nodo = 0; nodo < nodos.length; nodo++) {
+                if (nodo != propio && Files.exists(marcaAsumido(nodo))) {
+                    asumidos[nodo] = true;
+                    reasignar(nodo, propio);
+                }
+            }
+        }
+        for (Evento evento : catalogo.getEventos()) {
+            JournalVentas journal = evento.getVentaEntradas().getJournal();
+            if (journal == null) {
+                throw new IllegalStateException("El modo cluster requiere el journal de ventas del evento " + evento.getId());
+            }
+            Replicador replicador = new Replicador(evento.getId(), journal);
+            replicadores.put(evento.getId(), replicador);
+            journal.setReplica(replicador);
+        }
+        try {
+            HttpResponse<String> estado = http.send(HttpRequest.newBuilder(direccion(seguidor(propio), "/cluster/estado"))
+                    .timeout(Duration.ofSeconds(5)).GET().build(), HttpResponse.BodyHandlers.ofString());
+            if (estado.statusCode() == 200) {
+                int[] tabla = leerTabla(estado.body());
+                if (tabla[propio] != propio) {
+                    System.err.println("El nodo " + propio + " fue asumido por el nodo " + tabla[propio]
+                            + ": sus secciones se reenviarán.");
+                    reasignar(propio, tabla[propio]);
+                }
+            }
+        } catch (IOException e) {
+            // El seguidor no responde: este nodo retoma sus particiones
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Obtiene el número de este nodo.
+     *
+     * @return Número de nodo.
+     */
+    public int getPropio() {
+        return propio;
+    }
+
+    /**
+     * Obtiene el número de nodos del cluster.
+     *
+     * @return Cantidad de nodos.
+     */
+    public int getCantidadNodos() {
+        return nodos.length;
+    }
+
+    /**
+     * Obtiene la partición a la que pertenece una sección.
+     *
+     * @param idSeccion Id de la sección.
+     * @return Número de partición.
+     */
+    public int particionDeSeccion(int idSeccion) {
+        return idSeccion % nodos.length;
+    }
+
+    /**
+     * Obtiene la partición que vendió una entrada, según el tramo de su id.
+     *
+     * @param id Id de la entrada.
+     * @return Número de partición, o -1 si el id no corresponde a ninguna.
+     */
+    public int particionDeEntrada(long id) {
+        long tramo = id >>> VentaEntradas.BITS_ID_TRAMO;
+        return tramo < nodos.length ? (int) tramo : -1;
+    }
+
+    /**
+     * Obtiene el nodo que atiende una partición en este momento.
+     *
+     * @param particion Número de partición.
+     * @return Número de nodo.
+     */
+    public int nodoDe(int particion) {
+        return atiende.get(particion);
+    }
+
+    /**
+     * Determina a qué partición va dirigida una solicitud del servidor de ventas. Se enrutan las ventas,
+     * retenciones y esperas (por sección) y las consultas y anulaciones de entradas (por id); las demás
+     * operaciones se atienden en el nodo que las recibe.
+     *
+     * @param ruta       Ruta de la solicitud, por ejemplo {@code /venta}.
+     * @param parametros Parámetros de la URL.
+     * @return Partición de la solicitud, o -1 si se atiende en este nodo.
+     */
+    int particionDe(String ruta, Map<String, String> parametros) {
+        Evento evento = parametros.containsKey("evento") ? catalogo.buscar(parametros.get("evento")) : null;
+        if (evento == null) {
+            return -1;
+        }
+        switch (ruta) {
+            case "/venta":
+            case "/retencion":
+            case "/espera": {
+                String seccion = parametros.get("seccion");
+                int idSeccion = seccion == null ? -1 : evento.getVentaEntradas().getMapa().idSeccion(seccion);
+                return idSeccion < 0 ? -1 : particionDeSeccion(idSeccion);
+            }
+            case "/entrada":
+            case "/anulacion":
+                try {
+                    return particionDeEntrada(Long.parseLong(parametros.getOrDefault("id", "")));
+                } catch (NumberFormatException e) {
+                    return -1;
+                }
+            default:
+                return -1;
+        }
+    }
+
+    /**
+     * Reenvía una solicitud al nodo que atiende su partición. Si ese nodo no acepta conexiones, se le pide a
+     * su seguidor que lo asuma y se reintenta con él.
+     *
+     * @param particion     Partición de la solicitud.
+     * @param metodo        Método HTTP.
+     * @param rutaYConsulta Ruta y consulta sin decodificar, por ejemplo {@code /venta?evento=F1&seccion=VIP}.
+     * @return Respuesta del nodo, o null si después de una falla la partición pasó a este nodo y debe atenderse aquí.
+     * @throws IOException Si el nodo no responde y no se pudo asumir, o la respuesta no llega a tiempo.
+     */
+    HttpResponse<String> reenviar(int particion, String metodo, String rutaYConsulta) throws IOException {
+        for (int intento = 0; intento < nodos.length; intento++) {
+            int nodo = atiende.get(particion);
+            if (nodo == propio) {
+                return null;
+            }
+            HttpRequest solicitud = HttpRequest.newBuilder(direccion(nodo, rutaYConsulta))
+                    .timeout(Duration.ofSeconds(30))
+                    .header(CABECERA_REENVIO, String.valueOf(propio))
+                    .method(metodo, HttpRequest.BodyPublishers.noBody())
+                    .build();
+            try {
+                return http.send(solicitud, HttpResponse.BodyHandlers.ofString());
+            } catch (ConnectException | HttpConnectTimeoutException e) {
+                asumirCaido(nodo); // La solicitud no llegó: reintentarla en otro nodo no la duplica
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Reenvío interrumpido.");
+            }
+        }
+        throw new IOException("Ningún nodo atiende la partición " + particion + ".");
+    }
+
+    /**
+     * Reemplaza un nodo que no acepta conexiones por su seguidor, que guarda la copia de su journal.
+     *
+     * @param caido Nodo caído.
+     * @throws IOException Si el seguidor tampoco responde.
+     */
+    private void asumirCaido(int caido) throws IOException {
+        int seguidor = seguidor(caido);
+        if (seguidor == propio) {
+            asumir(caido);
+            return;
+        }
+        try {
+            HttpResponse<String> respuesta = http.send(HttpRequest.newBuilder(direccion(seguidor, "/cluster/asumir?nodo=" + caido))
+                    .timeout(Duration.ofSeconds(60)).POST(HttpRequest.BodyPublishers.noBody()).build(),
+                    HttpResponse.BodyHandlers.ofString());
+            if (respuesta.statusCode() != 200) {
+                throw new IOException("El nodo " + seguidor + " no pudo asumir el nodo " + caido + ": " + respuesta.body());
+            }
+            int[] tabla = leerTabla(respuesta.body());
+            for (int particion = 0; particion < tabla.length; particion++) {
+                if (atiende.get(particion) == caido) {
+                    atiende.set(particion, tabla[particion]);
+                }
+            }
+        } catch (ConnectException | HttpConnectTimeoutException e) {
+            throw new IOException("El nodo " + caido + " y su seguidor " + seguidor + " no responden.", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Se interrumpió el reemplazo del nodo " + caido + ".");
+        }
+    }
+
+    /**
+     * Asume las particiones de un nodo caído del que este nodo es seguidor: deja de aceptar su copia, la recupera
+     * como un journal y adopta sus entradas en cada evento. Si ya lo había asumido, no hace nada.
+     *
+     * @param caido Nodo caído.
+     * @throws IOException              Si no se puede leer la copia de su journal.
+     * @throws IllegalArgumentException Si este nodo no es su seguidor.
+     */
+    synchronized void asumir(int caido) throws IOException {
+        if (caido < 0 || caido >= nodos.length || seguidor(caido) != propio) {
+            throw new IllegalArgumentException("El nodo " + propio + " no es seguidor del nodo " + caido + ".");
+        }
+        if (asumidos[caido]) {
+            return;
+        }
+        Files.createDirectories(marcaAsumido(caido).getParent());
+        Files.createFile(marcaAsumido(caido)); // Desde aquí se rechazan sus copias, incluso tras un reinicio
+        asumidos[caido] = true;
+        int adoptadas = 0;
+        for (Evento evento : catalogo.getEventos()) {
+            FileChannel copia = copias.remove(caido + "/" + evento.getId());
+            if (copia != null) {
+                copia.close();
+            }
+            Path directorio = directorioCopia(caido, evento.getId());
+            if (Files.exists(directorio.resolve("ventas.journal"))) {
+                VentaEntradas ventasDelCaido = new VentaEntradas(evento.getVentaEntradas().getMapa());
+                try (JournalVentas journal = new JournalVentas(directorio)) {
+                    journal.recuperar(ventasDelCaido);
+                }
+                adoptadas += evento.getVentaEntradas().adoptarEntradas(ventasDelCaido.recorrerEntradas());
+            }
+        }
+        reasignar(caido, propio);
+        System.err.println("El nodo " + propio + " asumió el nodo " + caido + " con " + adoptadas + " entradas.");
+    }
+
+    /**
+     * Pasa a otro nodo todas las particiones que atendía un nodo.
+     *
+     * @param anterior Nodo que las atendía.
+     * @param nuevo    Nodo que las atiende desde ahora.
+     */
+    private void reasignar(int anterior, int nuevo) {
+        for (int particion = 0; particion < nodos.length; particion++) {
+            if (atiende.get(particion) == anterior) {
+                atiende.set(particion, nuevo);
+            }
+        }
+    }
+
+    /**
+     * Atiende las operaciones internas del cluster ({@code /cluster/...}).
+     *
+     * @param intercambio Solicitud HTTP.
+     * @throws IOException Si no se puede leer la solicitud o enviar la respuesta.
+     */
+    void atender(HttpExchange intercambio) throws IOException {
+        String ruta = intercambio.getRequestURI().getPath();
+        Map<String, String> parametros = new HashMap<>();
+        String consulta = intercambio.getRequestURI().getRawQuery();
+        if (consulta != null) {
+            for (String par : consulta.split("&")) {
+                int igual = par.indexOf('=');
+                if (igual > 0) {
+                    parametros.put(par.substring(0, igual),
+                            URLDecoder.decode(par.substring(igual + 1), StandardCharsets.UTF_8));
+                }
+            }
+        }
+        int codigo;
+        String cuerpo;
+        try {
+            switch (ruta) {
+                case "/cluster/replica": {
+                    byte[] datos = intercambio.getRequestBody().readAllBytes();
+                    long[] resultado = recibirCopia(Integer.parseInt(parametros.get("nodo")), parametros.get("evento"),
+                            Long.parseLong(parametros.get("desde")), datos);
+                    codigo = (int) resultado[0];
+                    cuerpo = String.valueOf(resultado[1]);
+                    break;
+                }
+                case "/cluster/asumir":
+                    asumir(Integer.parseInt(parametros.get("nodo")));
+                    codigo = 200;
+                    cuerpo = tabla();
+                    break;
+                case "/cluster/estado":
+                    codigo = 200;
+                    cuerpo = tabla();
+                    break;
+                default:
+                    codigo = 404;
+                    cuerpo = "Operación de cluster desconocida: " + ruta;
+            }
+        } catch (NumberFormatException | NullPointerException e) {
+            codigo = 400;
+            cuerpo = "Parámetros inválidos para " + ruta;
+        } catch (IllegalArgumentException e) {
+            codigo = 400;
+            cuerpo = e.getMessage();
+        } catch (IOException e) {
+            codigo = 500;
+            cuerpo = e.getMessage();
+        }
+        byte[] bytes = cuerpo.getBytes(StandardCharsets.UTF_8);
+        intercambio.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+        intercambio.sendResponseHeaders(codigo, bytes.length);
+        try (OutputStream salida = intercambio.getResponseBody()) {
+            salida.write(bytes);
+        }
+    }
+
+    /**
+     * Anexa un lote del journal de otro nodo a su copia, solo si comienza justo donde termina la copia.
+     *
+     * @param nodo   Nodo que envía el lote.
+     * @param evento Evento del journal.
+     * @param desde  Posición del journal donde comienza el lote.
+     * @param datos  Bytes del lote.
+     * @return Código de respuesta (200, 409 o 410) y largo de la copia.
+     * @throws IOException Si no se puede escribir la copia.
+     */
+    private synchronized long[] recibirCopia(int nodo, String evento, long desde, byte[] datos) throws IOException {
+        if (nodo < 0 || nodo >= nodos.length || seguidor(nodo) != propio || catalogo.buscar(evento) == null) {
+            throw new IllegalArgumentException("El nodo " + propio + " no guarda la copia de " + nodo + "/" + evento + ".");
+        }
+        if (asumidos[nodo]) {
+            return new long[] {410, 0};
+        }
+        String clave = nodo + "/" + evento;
+        FileChannel copia = copias.get(clave);
+        if (copia == null) {
+            Path directorio = directorioCopia(nodo, evento);
+            Files.createDirectories(directorio);
+            copia = FileChannel.open(directorio.resolve("ventas.journal"), StandardOpenOption.CREATE,
+                    StandardOpenOption.READ, StandardOpenOption.WRITE);
+            copias.put(clave, copia);
+        }
+        long largo = copia.size();
+        if (desde != largo) {
+            return new long[] {409, largo};
+        }
+        ByteBuffer bufer = ByteBuffer.wrap(datos);
+        while (bufer.hasRemaining()) {
+            copia.write(bufer, largo + bufer.position());
+        }
+        copia.force(false);
+        return new long[] {200, largo + datos.length};
+    }
+
+    /**
+     * Representa qué nodo atiende cada partición.
+     *
+     * @return Números de nodo separados por comas, en orden de partición.
+     */
+    private String tabla() {
+        StringBuilder tabla = new StringBuilder();
+        for (int particion = 0; particion < nodos.length; particion++) {
+            tabla.append(particion > 0 ? "," : "").append(atiende.get(particion));
+        }
+        return tabla.toString();
+    }
+
+    /**
+     * Lee la tabla de particiones de otro nodo.
+     *
+     * @param texto Tabla en el formato de {@link #tabla()}.
+     * @return Nodo que atiende cada partición.
+     * @throws IOException Si la tabla no corresponde a este cluster.
+     */
+    private int[] leerTabla(String texto) throws IOException {
+        String[] partes = texto.trim().split(",");
+        if (partes.length != nodos.length) {
+            throw new IOException("Tabla de particiones inválida: " + texto);
+        }
+        int[] tabla = new int[partes.length];
+        for (int i = 0; i < partes.length; i++) {
+            try {
+                tabla[i] = Integer.parseInt(partes[i]);
+            } catch (NumberFormatException e) {
+                throw new IOException("Tabla de particiones inválida: " + texto, e);
+            }
+            if (tabla[i] < 0 || tabla[i] >= nodos.length) {
+                throw new IOException("Tabla de particiones inválida: " + texto);
+            }
+        }
+        return tabla;
+    }
+
+    /**
+     * Obtiene el seguidor de un nodo, que guarda la copia de su journal.
+     *
+     * @param nodo Número de nodo.
+     * @return Número del nodo seguidor.
+     */
+    private int seguidor(int nodo) {
+        return (nodo + 1) % nodos.length;
+    }
+
+    /**
+     * Construye la dirección de una operación en otro nodo.
+     *
+     * @param nodo          Número de nodo.
+     * @param rutaYConsulta Ruta y consulta.
+     * @return Dirección completa.
+     */
+    private URI direccion(int nodo, String rutaYConsulta) {
+        return URI.create(nodos[nodo] + rutaYConsulta);
+    }
+
+    private Path directorioCopia(int nodo, String evento) {
+        return directorioCopias.resolve("nodo-" + nodo).resolve(evento);
+    }
+
+    private Path marcaAsumido(int nodo) {
+        return directorioCopias.resolve("nodo-" + nodo).resolve("asumido");
+    }
+
+    /**
+     * Copia los lotes del journal de un evento al seguidor de este nodo. Si el seguidor no tiene la copia al día
+     * (por ejemplo porque estuvo detenido), primero le envía lo que le falta, leyéndolo del journal.
+     * Si no responde, el lote se confirma sin copia y no se intenta replicar por {@link #PAUSA_REPLICA}, para no
+     * frenar cada venta con la espera de conexión; si ya asumió este nodo, el lote falla.
+     */
+    private final class Replicador implements JournalVentas.Replica {
+        private final String evento;         // Evento del journal
+        private final JournalVentas journal; // Journal que se copia
+        private long posicionSeguidor = -1;  // Largo de la copia del seguidor, o -1 si no se conoce
+        private long pausaHasta;             // Momento (nanoTime) hasta el que no se intenta replicar
+        private volatile boolean alDia = true; // Indica si la copia del seguidor tiene todos los lotes confirmados
+        private boolean reemplazado;         // Indica si el seguidor asumió este nodo
+
+        Replicador(String evento, JournalVentas journal) {
+            this.evento = evento;
+            this.journal = journal;
+        }
+
+        @Override
+        public void replicar(long posicion, ByteBuffer registros) throws IOException {
+            if (reemplazado) {
+                throw new IOException("El nodo " + seguidor(propio) + " asumió este nodo: el lote del evento "
+                        + evento + " no se confirma.");
+            }
+            if (!alDia && System.nanoTime() - pausaHasta < 0) {
+                return; // El seguidor no respondía: el lote queda solo en este nodo hasta el próximo intento
+            }
+            try {
+                copiar(posicion, registros);
+            } catch (IOException e) {
+                posicionSeguidor = -1;
+                if (reemplazado) {
+                    throw new IOException("El nodo " + seguidor(propio) + " asumió este nodo: el lote del evento "
+                            + evento + " no se confirma.", e);
+                }
+                pausaHasta = System.nanoTime() + PAUSA_REPLICA;
+                if (alDia) {
+                    alDia = false;
+                    System.err.println("No se pudo copiar el journal del evento " + evento + " al nodo "
+                            + seguidor(propio) + ": las ventas quedan solo en este nodo hasta que responda. " + e);
+                }
+                return;
+            }
+            if (!alDia) {
+                alDia = true;
+                System.err.println("La copia del journal del evento " + evento + " está al día.");
+            }
+        }
+
+        /**
+         * Envía al seguidor lo que le falta de la copia hasta el final de un lote.
+         *
+         * @param posicion  Posición del journal donde comienza el lote.
+         * @param registros Bytes del lote.
+         * @throws IOException Si el seguidor no responde, rechaza la copia o ya asumió este nodo.
+         */
+        private void copiar(long posicion, ByteBuffer registros) throws IOException {
+            long fin = posicion + registros.remaining();
+            while (posicionSeguidor < fin) {
+                if (posicionSeguidor < 0 || posicionSeguidor == posicion) {
+                    enviar(posicion, registros.duplicate());
+                } else if (posicionSeguidor < posicion) {
+                    ByteBuffer faltante = ByteBuffer.allocate((int) Math.min(PUESTA_AL_DIA, posicion - posicionSeguidor));
+                    journal.leer(posicionSeguidor, faltante);
+                    faltante.flip();
+                    if (!faltante.hasRemaining()) {
+                        throw new IOException("No se pudo leer el journal desde " + posicionSeguidor + ".");
+                    }
+                    enviar(posicionSeguidor, faltante);
+                } else {
+                    throw new IOException("La copia del seguidor no coincide con el journal del evento " + evento + ".");
+                }
+            }
+        }
+
+        /**
+         * Envía un tramo del journal al seguidor y actualiza el largo conocido de su copia.
+         *
+         * @param desde Posición del journal donde comienza el tramo.
+         * @param datos Bytes del tramo.
+         * @throws IOException Si el seguidor no responde, rechaza la copia o ya asumió este nodo.
+         */
+        private void enviar(long desde, ByteBuffer datos) throws IOException {
+            HttpRequest solicitud = HttpRequest.newBuilder(direccion(seguidor(propio), "/cluster/replica?nodo=" + propio
+                            + "&evento=" + URLEncoder.encode(evento, StandardCharsets.UTF_8) + "&desde=" + desde))
+                    .timeout(Duration.ofSeconds(5))
+                    .POST(HttpRequest.BodyPublishers.ofByteArray(datos.array(), datos.arrayOffset() + datos.position(),
+                            datos.remaining()))
+                    .build();
+            HttpResponse<String> respuesta;
+            try {
+                respuesta = http.send(solicitud, HttpResponse.BodyHandlers.ofString());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Copia del journal interrumpida.");
+            }
+            if (respuesta.statusCode() == 410) {
+                reemplazado = true; // Un nodo reemplazado no debe seguir vendiendo sus secciones
+                reasignar(propio, seguidor(propio));
+                System.err.println("El nodo " + seguidor(propio) + " asumió este nodo: sus secciones se reenviarán.");
+                throw new IOException("El nodo " + seguidor(propio) + " asumió este nodo.");
+            }
+            if (respuesta.statusCode() != 200 && respuesta.statusCode() != 409) {
+                throw new IOException("El seguidor respondió " + respuesta.statusCode() + ": " + respuesta.body());
+            }
+            posicionSeguidor = Long.parseLong(respuesta.body().trim());
+        }
+    }
+
+    /**
+     * Escribe el estado de la replicación de un evento en el formato de {@link MetricasVentas#exponer}, por ejemplo
+     * {@code cluster_copia_al_dia{evento="F1"} 0} si el seguidor no tiene todas las ventas confirmadas.
+     *
+     * @param evento Identificador del evento.
+     * @param salida Buffer donde se agregan las líneas.
+     */
+    public void exponer(String evento, StringBuilder salida) {
+        Replicador replicador = replicadores.get(evento);
+        if (replicador != null) {
+            salida.append("cluster_copia_al_dia{evento=\"").append(MetricasVentas.escaparEtiqueta(evento)).append("\"} ")
+                    .append(replicador.alDia ? 1 : 0).append('\n');
+        }
+    }
+
+    /**
+     * Lista las direcciones de un cluster escritas separadas por comas.
+     *
+     * @param direcciones Direcciones separadas por comas.
+     * @return Lista de direcciones.
+     */
+    public static List<String> leerNodos(String direcciones) {
+        List<String> lista = new ArrayList<>();
+        for (String direccion : direcciones.split(",")) {
+            if (!direccion.isBlank()) {
+                lista.add(direccion.trim());
+            }
+        }
+        return lista;
+    }
+}
\ No newline at end of file
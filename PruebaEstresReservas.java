@@ -0,0 +1,287 @@
+package com.sistemateatromoro;
+
+import java.util.Locale;
+import java.util.SplittableRandom;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Prueba de estrés del motor de reservas: varios hilos reservan y liberan asientos a la vez y al final se
+ * comprueba que ningún asiento se vendió dos veces. Cada reserva exitosa anota al asiento en un contador de
+ * dueños; si un asiento llega a tener dos dueños, hubo una doble venta.
+ *
+ * Se ejecutan dos fases:
+ * <ul>
+ *     <li>Agotamiento: todos los hilos reservan hasta que no queda ningún asiento libre; las reservas exitosas
+ *         deben ser exactamente la capacidad del teatro.</li>
+ *     <li>Rotación: cada hilo mezcla reservas sueltas, en lote, de asientos específicos y liberaciones de los
+ *         asientos que tiene; al final las reservas menos las liberaciones deben ser los bits ocupados.</li>
+ * </ul>
+ *
+ * Uso: {@code PruebaEstresReservas [--asientos 50000] [--hilos 8] [--operaciones 250000] [--semilla 7]}.
+ * El proceso termina con código 1 si encuentra alguna inconsistencia.
+ */
+public class PruebaEstresReservas {
+    private static final String[] SECCIONES = {"VIP", "Platea baja", "Platea alta", "Galería"};
+
+    private final int asientos;     // Capacidad del teatro de prueba
+    private final int hilos;        // Hilos que compiten por los asientos
+    private final int operaciones;  // Operaciones por hilo en la fase de rotación
+    private final long semilla;     // Semilla de las decisiones de cada hilo
+    private int fallas;             // Inconsistencias encontradas
+
+    /**
+     * Constructor para inicializar la prueba.
+     *
+     * @param asientos    Capacidad del teatro, repartida en cuatro secciones iguales.
+     * @param hilos       Cantidad de hilos.
+     * @param operaciones Operaciones por hilo en la fase de rotación.
+     * @param semilla     Semilla de las decisiones de cada hilo.
+     */
+    public PruebaEstresReservas(int asientos, int hilos, int operaciones, long semilla) {
+        this.asientos = asientos;
+        this.hilos = hilos;
+        this.operaciones = operaciones;
+        this.semilla = semilla;
+    }
+
+    /**
+     * Trabajo de un hilo de la prueba.
+     */
+    private interface Trabajo {
+        /**
+         * Ejecuta el trabajo del hilo.
+         *
+         * @param azar Generador propio del hilo.
+         */
+        void ejecutar(SplittableRandom azar);
+    }
+
+    /**
+     * Ejecuta las dos fases e informa el resultado.
+     *
+     * @return true si no se encontraron inconsistencias.
+     * @throws InterruptedException Si se interrumpe la espera de los hilos.
+     */
+    public boolean ejecutar() throws InterruptedException {
+        agotar();
+        rotar();
+        System.out.println(fallas == 0 ? "Sin dobles ventas." : fallas + " inconsistencias encontradas.");
+        return fallas == 0;
+    }
+
+    /**
+     * Fase de agotamiento: todos los hilos reservan asientos sueltos hasta agotar el teatro.
+     *
+     * @throws InterruptedException Si se interrumpe la espera de los hilos.
+     */
+    private void agotar() throws InterruptedException {
+        MotorReservas motor = new MotorReservas(crearMapa());
+        AtomicIntegerArray duenos = new AtomicIntegerArray(asientos);
+        LongAdder reservas = new LongAdder();
+        long nanos = correr(azar -> {
+            int agotadas = 0;
+            while (agotadas < SECCIONES.length) {
+                agotadas = 0;
+                int primera = azar.nextInt(SECCIONES.length); // Cada pasada recorre todas las secciones
+                for (int i = 0; i < SECCIONES.length; i++) {
+                    int indice = motor.reservar((primera + i) % SECCIONES.length);
+                    if (indice < 0) {
+                        agotadas++;
+                    } else {
+                        anotar(duenos, indice);
+                        reservas.increment();
+                    }
+                }
+            }
+        });
+        informar("agotamiento", reservas.sum(), nanos);
+        comprobar("agotamiento", reservas.sum() == asientos,
+                "reservas exitosas " + reservas.sum() + " distintas de la capacidad " + asientos);
+        verificar("agotamiento", motor, duenos, reservas.sum());
+    }
+
+    /**
+     * Fase de rotación: cada hilo reserva y libera asientos con distintas operaciones del motor.
+     *
+     * @throws InterruptedException Si se interrumpe la espera de los hilos.
+     */
+    private void rotar() throws InterruptedException {
+        MotorReservas motor = new MotorReservas(crearMapa());
+        AtomicIntegerArray duenos = new AtomicIntegerArray(asientos);
+        LongAdder reservas = new LongAdder();
+        LongAdder liberaciones = new LongAdder();
+        long nanos = correr(azar -> {
+            int[] propios = new int[Math.max(16, asientos / hilos)];
+            int cantidad = 0;
+            for (int i = 0; i < operaciones; i++) {
+                int operacion = azar.nextInt(8);
+                if (operacion < 4 && cantidad > 0) { // Libera un asiento propio
+                    int posicion = azar.nextInt(cantidad);
+                    int indice = propios[posicion];
+                    propios[posicion] = propios[--cantidad];
+                    duenos.decrementAndGet(indice); // Antes de liberar: otro hilo puede tomarlo enseguida
+                    if (!motor.liberar(indice)) {
+                        falla("rotación", "el asiento " + indice + " ya estaba libre al liberarlo");
+                    }
+                    liberaciones.increment();
+                    continue;
+                }
+                int idSeccion = azar.nextInt(SECCIONES.length);
+                int[] tomados;
+                if (operacion == 4) {
+                    tomados = motor.reservarLote(idSeccion, 1 + azar.nextInt(4));
+                } else if (operacion == 5) {
+                    int indice = azar.nextInt(asientos);
+                    tomados = motor.reservarAsiento(indice) ? new int[] {indice} : null;
+                } else {
+                    int indice = motor.reservar(idSeccion);
+                    tomados = indice < 0 ? null : new int[] {indice};
+                }
+                if (tomados == null) {
+                    continue;
+                }
+                for (int indice : tomados) {
+                    anotar(duenos, indice);
+                    reservas.increment();
+                    if (cantidad < propios.length) {
+                        propios[cantidad++] = indice;
+                    } else { // Sin espacio para recordarlo: se libera de inmediato
+                        duenos.decrementAndGet(indice);
+                        motor.liberar(indice);
+                        liberaciones.increment();
+                    }
+                }
+            }
+        });
+        informar("rotación", hilos * (long) operaciones, nanos);
+        verificar("rotación", motor, duenos, reservas.sum() - liberaciones.sum());
+    }
+
+    /**
+     * Anota un dueño más de un asiento; si ya tenía uno, es una doble venta.
+     *
+     * @param duenos Dueños de cada asiento.
+     * @param indice Índice del asiento reservado.
+     */
+    private void anotar(AtomicIntegerArray duenos, int indice) {
+        int anteriores = duenos.getAndIncrement(indice);
+        if (anteriores != 0) {
+            falla("reserva", "el asiento " + indice + " se vendió con " + anteriores + " dueños previos");
+        }
+    }
+
+    /**
+     * Compara el estado final del motor con las reservas vigentes de los hilos.
+     *
+     * @param fase     Nombre de la fase.
+     * @param motor    Motor de reservas.
+     * @param duenos   Dueños de cada asiento.
+     * @param vigentes Reservas exitosas que no se liberaron.
+     */
+    private void verificar(String fase, MotorReservas motor, AtomicIntegerArray duenos, long vigentes) {
+        MapaAsientos mapa = motor.getMapa();
+        long ocupados = 0;
+        for (int idSeccion = 0; idSeccion < mapa.getCantidadSecciones(); idSeccion++) {
+            int libres = 0;
+            for (int indice = mapa.inicio(idSeccion); indice < mapa.fin(idSeccion); indice++) {
+                boolean ocupado = !motor.estaDisponible(indice);
+                if (duenos.get(indice) != (ocupado ? 1 : 0)) {
+                    falla(fase, "el asiento " + indice + " tiene " + duenos.get(indice) + " dueños y está "
+                            + (ocupado ? "ocupado" : "libre"));
+                }
+                if (ocupado) {
+                    ocupados++;
+                } else {
+                    libres++;
+                }
+            }
+            comprobar(fase, motor.disponibles(idSeccion) == libres, "la sección " + mapa.nombreSeccion(idSeccion)
+                    + " informa " + motor.disponibles(idSeccion) + " disponibles y tiene " + libres + " libres");
+        }
+        comprobar(fase, ocupados == vigentes, ocupados + " asientos ocupados y " + vigentes + " reservas vigentes");
+    }
+
+    /**
+     * Ejecuta un trabajo en todos los hilos a la vez.
+     *
+     * @param trabajo Trabajo de cada hilo.
+     * @return Nanosegundos desde la partida hasta que termina el último hilo.
+     * @throws InterruptedException Si se interrumpe la espera de los hilos.
+     */
+    private long correr(Trabajo trabajo) throws InterruptedException {
+        CountDownLatch partida = new CountDownLatch(1);
+        Thread[] corredores = new Thread[hilos];
+        SplittableRandom raiz = new SplittableRandom(semilla);
+        for (int i = 0; i < hilos; i++) {
+            SplittableRandom azar = raiz.split();
+            corredores[i] = new Thread(() -> {
+                try {
+                    partida.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                trabajo.ejecutar(azar);
+            }, "estres-" + i);
+            corredores[i].start();
+        }
+        long inicio = System.nanoTime();
+        partida.countDown();
+        for (Thread corredor : corredores) {
+            corredor.join();
+        }
+        return System.nanoTime() - inicio;
+    }
+
+    private MapaAsientos crearMapa() {
+        int porSeccion = asientos / SECCIONES.length;
+        return new MapaAsientos(SECCIONES, new int[] {porSeccion, porSeccion, porSeccion,
+                asientos - 3 * porSeccion});
+    }
+
+    private void informar(String fase, long operacionesHechas, long nanos) {
+        System.out.printf(Locale.ROOT, "%-12s %,12d operaciones con %d hilos en %,.1f ms (%,.0f ops/s)%n", fase,
+                operacionesHechas, hilos, nanos / 1e6, operacionesHechas * 1e9 / nanos);
+    }
+
+    private void comprobar(String fase, boolean condicion, String detalle) {
+        if (!condicion) {
+            falla(fase, detalle);
+        }
+    }
+
+    private synchronized void falla(String fase, String detalle) {
+        if (fallas++ < 20) { // Basta con las primeras para diagnosticar
+            System.out.println("FALLA (" + fase + "): " + detalle);
+        }
+    }
+
+    /**
+     * Ejecuta la prueba de estrés.
+     *
+     * @param args Opciones {@code --asientos}, {@code --hilos}, {@code --operaciones} y {@code --semilla}.
+     * @throws InterruptedException Si se interrumpe la prueba.
+     */
+    public static void main(String[] args) throws InterruptedException {
+        int asientos = 50_000;
+        int hilos = Math.max(8, Runtime.getRuntime().availableProcessors());
+        int operaciones = 250_000;
+        long semilla = 7;
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            if (args[i].equals("--asientos")) {
+                asientos = Integer.parseInt(args[i + 1]);
+            } else if (args[i].equals("--hilos")) {
+                hilos = Integer.parseInt(args[i + 1]);
+            } else if (args[i].equals("--operaciones")) {
+                operaciones = Integer.parseInt(args[i + 1]);
+            } else if (args[i].equals("--semilla")) {
+                semilla = Long.parseLong(args[i + 1]);
+            }
+        }
+        if (!new PruebaEstresReservas(asientos, hilos, operaciones, semilla).ejecutar()) {
+            System.exit(1);
+        }
+    }
+}
\ No newline at end of file
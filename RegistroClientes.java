@@ -0,0 +1,181 @@
+package com.sistemateatromoro;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+/**
+ * Registro de clientes del Teatro Moro, compartido por todos los eventos.
+ * Permite reconocer a un cliente que vuelve a comprar por su documento (RUT, pasaporte u otro identificador)
+ * sin pedirle de nuevo sus datos, y evita duplicados: registrar dos veces el mismo documento devuelve
+ * siempre el mismo cliente, con su categoría de descuento ya calculada.
+ *
+ * Los clientes se guardan en una tabla de direccionamiento abierto con sondeo lineal: un solo arreglo con
+ * cada clave junto a su cliente, sin un nodo por entrada, de modo que millones de clientes ocupan poco más que los
+ * propios objetos y una búsqueda es O(1) en promedio. Las búsquedas no se bloquean: cada clave se publica
+ * después de su cliente, y al crecer la tabla se publica una tabla nueva ya completa. Los registros se
+ * serializan entre sí.
+ */
+public class RegistroClientes {
+    private static final int CAPACIDAD_INICIAL = 1024; // Casillas de la tabla al crearla (potencia de 2)
+    private static final VarHandle CASILLAS = MethodHandles.arrayElementVarHandle(Object[].class);
+
+    private volatile Tabla tabla; // Tabla vigente; se reemplaza entera al crecer
+    private int cantidad;         // Clientes registrados (protegido por el monitor del registro)
+
+    /**
+     * Tabla de casillas: la casilla i ocupa las posiciones 2i (clave normalizada) y 2i + 1 (su cliente)
+     * de un mismo arreglo, así que la clave y el cliente de una búsqueda suelen estar en la misma línea de caché.
+     */
+    private static final class Tabla {
+        final Object[] casillas;  // Clave (String) y cliente (Cliente) de cada casilla; clave null si está libre
+        final int mascara;        // Casillas - 1
+        final int desplazamiento; // 32 - log2(casillas), para el hash multiplicativo
+
+        Tabla(int casillas) {
+            this.casillas = new Object[casillas * 2];
+            this.mascara = casillas - 1;
+            this.desplazamiento = Integer.numberOfLeadingZeros(casillas) + 1;
+        }
+
+        /**
+         * Obtiene la primera casilla donde buscar una clave.
+         *
+         * @param hash Hash de la clave.
+         * @return Índice de la casilla.
+         */
+        int casilla(int hash) {
+            return (hash * 0x9E3779B9) >>> desplazamiento; // Mezcla los bits bajos de hashes parecidos
+        }
+    }
+
+    /**
+     * Constructor para inicializar un registro vacío.
+     */
+    public RegistroClientes() {
+        this.tabla = new Tabla(CAPACIDAD_INICIAL);
+    }
+
+    /**
+     * Normaliza un documento para usarlo como clave: sin distinguir mayúsculas ni tildes e ignorando
+     * puntos, guiones y espacios, de modo que "12.345.678-k" y "12345678K" son el mismo cliente.
+     *
+     * @param documento Documento del cliente.
+     * @return Documento normalizado.
+     * @throws IllegalArgumentException Si el documento no tiene letras ni dígitos.
+     */
+    static String normalizarClave(String documento) {
+        int i = 0;
+        while (i < documento.length() && esNormal(documento.charAt(i))) {
+            i++;
+        }
+        if (i == documento.length() && i > 0) {
+            return documento; // Caso común: el documento ya llega normalizado y no se copia
+        }
+        String mayusculas = MapaAsientos.normalizar(documento);
+        StringBuilder clave = new StringBuilder(mayusculas.length());
+        for (i = 0; i < mayusculas.length(); i++) {
+            char c = mayusculas.charAt(i);
+            if (Character.isLetterOrDigit(c)) {
+                clave.append(c);
+            }
+        }
+        if (clave.length() == 0) {
+            throw new IllegalArgumentException("Documento de cliente inválido: " + documento);
+        }
+        return clave.toString();
+    }
+
+    /**
+     * Indica si un carácter ya está en la forma normalizada de una clave (dígito o letra mayúscula sin tilde).
+     *
+     * @param c Carácter a revisar.
+     * @return true si el carácter no cambia al normalizar.
+     */
+    private static boolean esNormal(char c) {
+        return (c >= '0' && c <= '9') || (c >= 'A' && c <= 'Z');
+    }
+
+    /**
+     * Busca un cliente registrado por su documento.
+     *
+     * @param documento Documento del cliente (sin distinguir mayúsculas, tildes, puntos ni guiones).
+     * @return El cliente, o null si no está registrado.
+     * @throws IllegalArgumentException Si el documento no tiene letras ni dígitos.
+     */
+    public Cliente buscar(String documento) {
+        String clave = normalizarClave(documento);
+        Tabla actual = tabla;
+        for (int i = actual.casilla(clave.hashCode()); ; i = (i + 1) & actual.mascara) {
+            Object otra = CASILLAS.getAcquire(actual.casillas, 2 * i);
+            if (otra == null) {
+                return null;
+            }
+            if (otra.equals(clave)) {
+                return (Cliente) actual.casillas[2 * i + 1];
+            }
+        }
+    }
+
+    /**
+     * Registra un cliente con su documento. Si el documento ya estaba registrado, se conserva el cliente
+     * existente y se devuelve ese, de modo que un cliente que vuelve nunca queda duplicado.
+     *
+     * @param documento Documento del cliente (sin distinguir mayúsculas, tildes, puntos ni guiones).
+     * @param cliente   Datos del cliente.
+     * @return El cliente registrado con ese documento: el existente, o el recibido si es nuevo.
+     * @throws IllegalArgumentException Si el documento no tiene letras ni dígitos.
+     */
+    public Cliente registrar(String documento, Cliente cliente) {
+        String clave = normalizarClave(documento);
+        synchronized (this) {
+            Tabla actual = tabla;
+            int i = actual.casilla(clave.hashCode());
+            for (Object otra; (otra = actual.casillas[2 * i]) != null; i = (i + 1) & actual.mascara) {
+                if (otra.equals(clave)) {
+                    return (Cliente) actual.casillas[2 * i + 1];
+                }
+            }
+            actual.casillas[2 * i + 1] = cliente;
+            CASILLAS.setRelease(actual.casillas, 2 * i, clave); // Quien ve la clave ve también su cliente
+            int casillas = actual.mascara + 1;
+            if (++cantidad > casillas - (casillas >> 2)) { // Factor de carga sobre 3/4: las secuencias se alargan
+                crecer(actual);
+            }
+            return cliente;
+        }
+    }
+
+    /**
+     * Duplica la tabla, reubicando todos los clientes, y publica la nueva tabla cuando ya está completa.
+     * Las búsquedas que siguen usando la tabla anterior la encuentran intacta.
+     *
+     * @param anterior Tabla vigente.
+     */
+    private void crecer(Tabla anterior) {
+        if (anterior.mascara + 1 == 1 << 29) {
+            throw new IllegalStateException("El registro de clientes alcanzó su capacidad máxima.");
+        }
+        Tabla nueva = new Tabla((anterior.mascara + 1) * 2);
+        for (int j = 0; j <= anterior.mascara; j++) {
+            Object clave = anterior.casillas[2 * j];
+            if (clave != null) {
+                int i = nueva.casilla(clave.hashCode());
+                while (nueva.casillas[2 * i] != null) {
+                    i = (i + 1) & nueva.mascara;
+                }
+                nueva.casillas[2 * i] = clave;
+                nueva.casillas[2 * i + 1] = anterior.casillas[2 * j + 1];
+            }
+        }
+        tabla = nueva; // Publicación volátil de la tabla completa
+    }
+
+    /**
+     * Obtiene la cantidad de clientes registrados.
+     *
+     * @return Cantidad de clientes.
+     */
+    public synchronized int getCantidad() {
+        return cantidad;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,244 @@
+package com.sistemateatromoro;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Rueda de temporizadores jerárquica.
+ * Los temporizadores se agrupan en ranuras según el tick en que vencen: el primer nivel cubre los
+ * próximos 64 ticks y cada nivel siguiente cubre 64 veces más tiempo con la misma cantidad de ranuras.
+ * Al completar una vuelta de un nivel, la ranura que corresponde del nivel superior se reparte en los
+ * inferiores. Programar y cancelar son O(1) (una lista doblemente enlazada por ranura) y avanzar un tick
+ * solo toca la ranura que vence, sin recorrer todos los temporizadores pendientes.
+ *
+ * Las acciones vencidas se ejecutan en el hilo que avanza la rueda, fuera de su bloqueo, por lo que
+ * deben ser breves.
+ */
+public class RuedaTemporizadores implements AutoCloseable {
+    private static final int BITS_RANURA = 6;                  // 64 ranuras por nivel
+    private static final int RANURAS = 1 << BITS_RANURA;       // Ranuras por nivel
+    private static final int MASCARA = RANURAS - 1;            // Máscara del índice de ranura
+    private static final int NIVELES = 4;                      // Niveles de la rueda
+    private static final long ALCANCE = 1L << (BITS_RANURA * NIVELES); // Ticks que cubre la rueda completa
+
+    /**
+     * Temporizador programado en la rueda. Sirve para cancelarlo antes de que venza.
+     */
+    public static final class Temporizador {
+        private final Runnable accion;   // Acción a ejecutar al vencer (null en las cabeceras de ranura)
+        private final long venceReal;    // Tick en que debe vencer
+        private long vence;              // Tick usado para ubicarlo (acotado al alcance de la rueda)
+        private Temporizador anterior;   // Anterior en la lista de la ranura
+        private Temporizador siguiente;  // Siguiente en la lista de la ranura (null si no está programado)
+
+        /**
+         * Constructor para inicializar un temporizador.
+         *
+         * @param accion Acción a ejecutar al vencer.
+         * @param vence  Tick de vencimiento.
+         */
+        private Temporizador(Runnable accion, long vence) {
+            this.accion = accion;
+            this.venceReal = vence;
+            this.vence = vence;
+        }
+    }
+
+    private final long nanosPorTick;        // Duración de un tick en nanosegundos
+    private final long inicio;              // Instante de creación, en System.nanoTime()
+    private final Temporizador[][] ranuras; // Cabecera de la lista de cada [nivel][ranura]
+    private long tickActual;                // Último tick procesado
+    private int pendientes;                 // Temporizadores programados
+    private Thread reloj;                   // Hilo que avanza la rueda, o null si se avanza manualmente
+    private volatile boolean activa;        // false cuando se cierra la rueda
+
+    /**
+     * Constructor para inicializar una rueda vacía.
+     *
+     * @param milisPorTick Resolución de la rueda en milisegundos.
+     */
+    public RuedaTemporizadores(long milisPorTick) {
+        if (milisPorTick <= 0) {
+            throw new IllegalArgumentException("La duración del tick debe ser positiva.");
+        }
+        this.nanosPorTick = milisPorTick * 1_000_000L;
+        this.inicio = System.nanoTime();
+        this.ranuras = new Temporizador[NIVELES][RANURAS];
+        for (Temporizador[] nivel : ranuras) {
+            for (int i = 0; i < RANURAS; i++) {
+                Temporizador cabecera = new Temporizador(null, 0);
+                cabecera.anterior = cabecera;
+                cabecera.siguiente = cabecera;
+                nivel[i] = cabecera;
+            }
+        }
+        this.activa = true;
+    }
+
+    /**
+     * Inicia un hilo que avanza la rueda con el reloj del sistema, una vez por tick.
+     */
+    public synchronized void iniciar() {
+        if (reloj != null) {
+            return;
+        }
+        long milisPorTick = nanosPorTick / 1_000_000L;
+        reloj = new Thread(() -> {
+            while (activa) {
+                try {
+                    Thread.sleep(milisPorTick);
+                } catch (InterruptedException e) {
+                    return;
+                }
+                avanzarHasta(System.nanoTime());
+            }
+        }, "rueda-temporizadores");
+        reloj.setDaemon(true);
+        reloj.start();
+    }
+
+    /**
+     * Programa una acción para que se ejecute después de un retraso.
+     *
+     * @param retrasoMillis Retraso en milisegundos (se redondea hacia arriba al siguiente tick).
+     * @param accion        Acción a ejecutar.
+     * @return Temporizador programado, para cancelarlo.
+     */
+    public synchronized Temporizador programar(long retrasoMillis, Runnable accion) {
+        long ticks = Math.max(1, (retrasoMillis * 1_000_000L + nanosPorTick - 1) / nanosPorTick);
+        Temporizador temporizador = new Temporizador(accion, tickActual + ticks);
+        insertar(temporizador);
+        pendientes++;
+        return temporizador;
+    }
+
+    /**
+     * Cancela un temporizador que aún no vence.
+     *
+     * @param temporizador Temporizador a cancelar.
+     * @return true si se canceló, false si ya había vencido o sido cancelado.
+     */
+    public synchronized boolean cancelar(Temporizador temporizador) {
+        if (temporizador.siguiente == null) {
+            return false;
+        }
+        desenlazar(temporizador);
+        pendientes--;
+        return true;
+    }
+
+    /**
+     * Obtiene la cantidad de temporizadores programados.
+     *
+     * @return Temporizadores pendientes.
+     */
+    public synchronized int getPendientes() {
+        return pendientes;
+    }
+
+    /**
+     * Avanza la rueda hasta un instante y ejecuta las acciones de los temporizadores vencidos.
+     *
+     * @param ahoraNanos Instante actual, en la escala de System.nanoTime().
+     */
+    public void avanzarHasta(long ahoraNanos) {
+        List<Temporizador> vencidos = new ArrayList<>();
+        synchronized (this) {
+            long objetivo = (ahoraNanos - inicio) / nanosPorTick;
+            if (pendientes == 0 && objetivo > tickActual) {
+                tickActual = objetivo; // Sin temporizadores no hay nada que repartir ni vencer
+            }
+            while (tickActual < objetivo) {
+                avanzarTick(vencidos);
+            }
+        }
+        for (Temporizador temporizador : vencidos) {
+            try {
+                temporizador.accion.run();
+            } catch (RuntimeException e) {
+                System.err.println("Error en un temporizador: " + e);
+            }
+        }
+    }
+
+    /**
+     * Avanza un tick: reparte las ranuras de los niveles superiores que comienzan y retira las vencidas.
+     *
+     * @param vencidos Lista donde se agregan los temporizadores vencidos.
+     */
+    private void avanzarTick(List<Temporizador> vencidos) {
+        tickActual++;
+        int indice = (int) tickActual & MASCARA;
+        for (int nivel = 1; indice == 0 && nivel < NIVELES; nivel++) {
+            indice = (int) (tickActual >>> (BITS_RANURA * nivel)) & MASCARA;
+            Temporizador cabecera = ranuras[nivel][indice];
+            while (cabecera.siguiente != cabecera) {
+                Temporizador temporizador = cabecera.siguiente;
+                desenlazar(temporizador);
+                insertar(temporizador);
+            }
+        }
+        Temporizador cabecera = ranuras[0][(int) tickActual & MASCARA];
+        while (cabecera.siguiente != cabecera) {
+            Temporizador temporizador = cabecera.siguiente;
+            desenlazar(temporizador);
+            if (temporizador.venceReal > tickActual) {
+                // Vencimiento más allá del alcance de la rueda: se vuelve a ubicar con el resto del plazo
+                temporizador.vence = temporizador.venceReal;
+                insertar(temporizador);
+            } else {
+                pendientes--;
+                vencidos.add(temporizador);
+            }
+        }
+    }
+
+    /**
+     * Ubica un temporizador en la ranura del nivel que corresponde a su vencimiento.
+     *
+     * @param temporizador Temporizador a ubicar.
+     */
+    private void insertar(Temporizador temporizador) {
+        long delta = temporizador.vence - tickActual;
+        if (delta >= ALCANCE) {
+            temporizador.vence = tickActual + ALCANCE - 1;
+            delta = ALCANCE - 1;
+        }
+        int nivel = 0;
+        while (delta >= 1L << (BITS_RANURA * (nivel + 1))) {
+            nivel++;
+        }
+        Temporizador cabecera = ranuras[nivel][(int) (temporizador.vence >>> (BITS_RANURA * nivel)) & MASCARA];
+        temporizador.anterior = cabecera.anterior;
+        temporizador.siguiente = cabecera;
+        cabecera.anterior.siguiente = temporizador;
+        cabecera.anterior = temporizador;
+    }
+
+    /**
+     * Quita un temporizador de la lista de su ranura.
+     *
+     * @param temporizador Temporizador a quitar.
+     */
+    private static void desenlazar(Temporizador temporizador) {
+        temporizador.anterior.siguiente = temporizador.siguiente;
+        temporizador.siguiente.anterior = temporizador.anterior;
+        temporizador.anterior = null;
+        temporizador.siguiente = null;
+    }
+
+    /**
+     * Detiene el hilo que avanza la rueda. Los temporizadores pendientes no se ejecutan.
+     */
+    @Override
+    public void close() {
+        activa = false;
+        Thread hilo;
+        synchronized (this) {
+            hilo = reloj;
+        }
+        if (hilo != null) {
+            hilo.interrupt();
+        }
+    }
+}
\ No newline at end of file
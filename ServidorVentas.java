@@ -0,0 +1,787 @@
+package com.sistemateatromoro;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Servidor HTTP de venta de entradas del Teatro Moro.
+ * Expone la disponibilidad, la venta, la anulación y la consulta de entradas de los eventos del catálogo.
+ * Cada solicitud se atiende en un hilo virtual, por lo que miles de clientes concurrentes no requieren
+ * miles de hilos del sistema operativo; la concurrencia real la resuelve el motor de reservas.
+ * Si el evento tiene activado el generador de boletas, cada venta encola su boleta sin esperar a que se escriba.
+ *
+ * Operaciones (las respuestas son JSON):
+ * <ul>
+ *     <li>{@code GET /eventos}</li>
+ *     <li>{@code GET /disponibilidad?evento=F1} o {@code GET /disponibilidad?evento=F1&desde=120}
+ *         (solo los asientos que cambiaron desde esa versión)</li>
+ *     <li>{@code POST /venta?evento=F1&seccion=VIP&nombre=Ana&edad=30&sexo=Mujer&estudiante=false}
+ *         (con {@code &ubicacion=mejor} para el mejor asiento disponible, o {@code &cantidad=3} para asientos juntos;
+ *         con {@code &documento=12345678-9} el cliente queda registrado y en sus próximas compras basta el documento)</li>
+ *     <li>{@code POST /anulacion?evento=F1&id=5}</li>
+ *     <li>{@code GET /entrada?evento=F1&id=5}</li>
+ *     <li>{@code POST /retencion?evento=F1&seccion=VIP&nombre=Ana&edad=30&minutos=10} (aparta un asiento mientras se paga)</li>
+ *     <li>{@code POST /confirmacion?evento=F1&retencion=7}</li>
+ *     <li>{@code POST /liberacion?evento=F1&retencion=7}</li>
+ *     <li>{@code POST /espera?evento=F1&seccion=VIP&nombre=Ana&edad=30} (con {@code &prioridad=preferente} para
+ *         atenderse antes; el asiento se vende solo cuando se libera uno)</li>
+ *     <li>{@code GET /solicitud?evento=F1&id=3} (estado de la solicitud y, si ya se asignó, su entrada)</li>
+ *     <li>{@code POST /desistimiento?evento=F1&id=3} (deja la lista de espera)</li>
+ *     <li>{@code GET /metricas} o {@code GET /metricas?evento=F1} (en texto, una métrica por línea)</li>
+ *     <li>{@code GET /reporte?evento=F1} (ingresos, ocupación y descuentos, en texto)</li>
+ * </ul>
+ *
+ * En modo cluster, las ventas, retenciones, esperas, consultas y anulaciones de secciones que atiende otro nodo
+ * se reenvían a ese nodo (ver {@link NodoCluster}); la disponibilidad, las métricas y el reporte son los del nodo.
+ */
+public class ServidorVentas {
+    private final CatalogoEventos catalogo; // Eventos que se venden en el servidor
+    private final RegistroClientes clientes; // Clientes registrados por documento
+    private final HttpServer servidor;      // Servidor HTTP del JDK
+    private final ExecutorService hilos;    // Un hilo virtual por solicitud
+    private final NodoCluster cluster;      // Nodo del cluster, o null si el servidor vende solo
+
+    /**
+     * Crea el servidor sobre un catálogo de eventos.
+     *
+     * @param catalogo Catálogo de eventos.
+     * @param puerto   Puerto de escucha (0 para elegir uno libre).
+     * @throws IOException Si no se puede abrir el puerto.
+     */
+    public ServidorVentas(CatalogoEventos catalogo, int puerto) throws IOException {
+        this(catalogo, new RegistroClientes(), puerto);
+    }
+
+    /**
+     * Crea el servidor sobre un catálogo de eventos y un registro de clientes.
+     *
+     * @param catalogo Catálogo de eventos.
+     * @param clientes Registro de clientes, compartido con los demás canales de venta.
+     * @param puerto   Puerto de escucha (0 para elegir uno libre).
+     * @throws IOException Si no se puede abrir el puerto.
+     */
+    public ServidorVentas(CatalogoEventos catalogo, RegistroClientes clientes, int puerto) throws IOException {
+        this(catalogo, clientes, puerto, null);
+    }
+
+    /**
+     * Crea el servidor como nodo de un cluster, que reenvía las solicitudes de las secciones de otros nodos.
+     *
+     * @param catalogo Catálogo de eventos.
+     * @param clientes Registro de clientes, compartido con los demás canales de venta.
+     * @param puerto   Puerto de escucha (0 para elegir uno libre).
+     * @param cluster  Nodo del cluster, o null para vender sin cluster.
+     * @throws IOException Si no se puede abrir el puerto.
+     */
+    public ServidorVentas(CatalogoEventos catalogo, RegistroClientes clientes, int puerto, NodoCluster cluster)
+            throws IOException {
+        this.catalogo = catalogo;
+        this.clientes = clientes;
+        this.cluster = cluster;
+        this.servidor = HttpServer.create(new InetSocketAddress(puerto), 4096);
+        this.hilos = Executors.newVirtualThreadPerTaskExecutor();
+        servidor.setExecutor(hilos);
+        servidor.createContext("/eventos", intercambio -> atender(intercambio, "GET", this::listarEventos));
+        servidor.createContext("/disponibilidad", intercambio -> atender(intercambio, "GET", this::disponibilidad));
+        servidor.createContext("/venta", intercambio -> atender(intercambio, "POST", this::vender));
+        servidor.createContext("/anulacion", intercambio -> atender(intercambio, "POST", this::anular));
+        servidor.createContext("/entrada", intercambio -> atender(intercambio, "GET", this::consultarEntrada));
+        servidor.createContext("/retencion", intercambio -> atender(intercambio, "POST", this::retener));
+        servidor.createContext("/confirmacion", intercambio -> atender(intercambio, "POST", this::confirmar));
+        servidor.createContext("/liberacion", intercambio -> atender(intercambio, "POST", this::liberarRetencion));
+        servidor.createContext("/espera", intercambio -> atender(intercambio, "POST", this::esperar));
+        servidor.createContext("/solicitud", intercambio -> atender(intercambio, "GET", this::consultarSolicitud));
+        servidor.createContext("/desistimiento", intercambio -> atender(intercambio, "POST", this::desistir));
+        servidor.createContext("/metricas", intercambio -> atender(intercambio, "GET", this::metricas));
+        servidor.createContext("/reporte", intercambio -> atender(intercambio, "GET", this::reporte));
+        if (cluster != null) {
+            servidor.createContext("/cluster/", cluster::atender);
+        }
+    }
+
+    /**
+     * Inicia la atención de solicitudes.
+     */
+    public void iniciar() {
+        servidor.start();
+    }
+
+    /**
+     * Detiene el servidor, esperando como máximo un segundo a las solicitudes en curso.
+     */
+    public void detener() {
+        servidor.stop(1);
+        hilos.shutdown();
+    }
+
+    /**
+     * Obtiene el puerto en que escucha el servidor.
+     *
+     * @return Número de puerto.
+     */
+    public int getPuerto() {
+        return servidor.getAddress().getPort();
+    }
+
+    /**
+     * Operación del servidor a partir de los parámetros de la solicitud.
+     */
+    private interface Operacion {
+        /**
+         * Ejecuta la operación.
+         *
+         * @param parametros Parámetros de la URL.
+         * @return Respuesta a enviar.
+         */
+        Respuesta ejecutar(Map<String, String> parametros);
+    }
+
+    /**
+     * Respuesta HTTP con su código, cuerpo y tipo de contenido.
+     */
+    private static class Respuesta {
+        private final int codigo;     // Código de estado HTTP
+        private final String cuerpo;  // Cuerpo de la respuesta
+        private final String tipo;    // Tipo de contenido
+        private final int nodo;       // Nodo del cluster que la atendió, o -1 si la atendió este servidor
+
+        /**
+         * Constructor para inicializar una respuesta JSON.
+         *
+         * @param codigo Código de estado HTTP.
+         * @param cuerpo Cuerpo JSON.
+         */
+        Respuesta(int codigo, String cuerpo) {
+            this(codigo, cuerpo, "application/json; charset=utf-8");
+        }
+
+        /**
+         * Constructor para inicializar una respuesta con un tipo de contenido propio.
+         *
+         * @param codigo Código de estado HTTP.
+         * @param cuerpo Cuerpo de la respuesta.
+         * @param tipo   Tipo de contenido.
+         */
+        Respuesta(int codigo, String cuerpo, String tipo) {
+            this(codigo, cuerpo, tipo, -1);
+        }
+
+        /**
+         * Constructor para inicializar la respuesta de otro nodo del cluster.
+         *
+         * @param codigo Código de estado HTTP.
+         * @param cuerpo Cuerpo de la respuesta.
+         * @param tipo   Tipo de contenido.
+         * @param nodo   Nodo que atendió la solicitud.
+         */
+        Respuesta(int codigo, String cuerpo, String tipo, int nodo) {
+            this.codigo = codigo;
+            this.cuerpo = cuerpo;
+            this.tipo = tipo;
+            this.nodo = nodo;
+        }
+    }
+
+    /**
+     * Valida el método, ejecuta la operación y envía la respuesta.
+     * Los errores de datos se responden con 400, las secciones inexistentes o agotadas con 404 o 409 y
+     * cualquier otra falla con 500.
+     * En modo cluster, las solicitudes de secciones de otro nodo se le reenvían; si no responde a tiempo se
+     * responde 504, y si llega reenviada una solicitud de una sección que este nodo no atiende, 503.
+     *
+     * @param intercambio Solicitud HTTP.
+     * @param metodo      Método HTTP esperado.
+     * @param operacion   Operación a ejecutar.
+     * @throws IOException Si no se puede enviar la respuesta.
+     */
+    private void atender(HttpExchange intercambio, String metodo, Operacion operacion) throws IOException {
+        Respuesta respuesta;
+        try {
+            if (!intercambio.getRequestMethod().equalsIgnoreCase(metodo)) {
+                respuesta = error(405, "Método no permitido, use " + metodo);
+            } else {
+                Map<String, String> parametros = leerParametros(intercambio.getRequestURI().getRawQuery());
+                respuesta = cluster == null ? null : reenviar(intercambio, parametros);
+                if (respuesta == null) {
+                    respuesta = operacion.ejecutar(parametros);
+                }
+            }
+        } catch (IllegalArgumentException e) {
+            respuesta = error(400, e.getMessage());
+        } catch (RuntimeException e) { // Por ejemplo un journal que ya no graba: el cliente recibe respuesta igual
+            respuesta = error(500, "Error interno: " + e.getMessage());
+        }
+        byte[] cuerpo = respuesta.cuerpo.getBytes(StandardCharsets.UTF_8);
+        intercambio.getResponseHeaders().set("Content-Type", respuesta.tipo);
+        if (respuesta.nodo >= 0) {
+            intercambio.getResponseHeaders().set(NodoCluster.CABECERA_NODO, String.valueOf(respuesta.nodo));
+        }
+        intercambio.sendResponseHeaders(respuesta.codigo, cuerpo.length);
+        try (OutputStream salida = intercambio.getResponseBody()) {
+            salida.write(cuerpo);
+        }
+    }
+
+    /**
+     * Reenvía la solicitud al nodo que atiende su sección, si no es este.
+     *
+     * @param intercambio Solicitud HTTP.
+     * @param parametros  Parámetros de la URL.
+     * @return Respuesta del otro nodo, o null si la solicitud se atiende en este nodo.
+     */
+    private Respuesta reenviar(HttpExchange intercambio, Map<String, String> parametros) {
+        int particion = cluster.particionDe(intercambio.getRequestURI().getPath(), parametros);
+        if (particion < 0 || cluster.nodoDe(particion) == cluster.getPropio()) {
+            return null;
+        }
+        if (intercambio.getRequestHeaders().containsKey(NodoCluster.CABECERA_REENVIO)) {
+            return error(503, "Este nodo no atiende la sección solicitada.");
+        }
+        String consulta = intercambio.getRequestURI().getRawQuery();
+        try {
+            HttpResponse<String> reenviada = cluster.reenviar(particion, intercambio.getRequestMethod(),
+                    intercambio.getRequestURI().getRawPath() + (consulta == null ? "" : "?" + consulta));
+            if (reenviada == null) {
+                return null;
+            }
+            return new Respuesta(reenviada.statusCode(), reenviada.body(),
+                    reenviada.headers().firstValue("Content-Type").orElse("application/json; charset=utf-8"),
+                    cluster.nodoDe(particion));
+        } catch (IOException e) {
+            return error(504, "El nodo de la sección no responde: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Lista los eventos del catálogo.
+     *
+     * @param parametros Parámetros de la URL (no se usan).
+     * @return Lista de eventos en JSON.
+     */
+    private Respuesta listarEventos(Map<String, String> parametros) {
+        StringBuilder json = new StringBuilder("[");
+        for (Evento evento : catalogo.getEventos()) {
+            if (json.length() > 1) {
+                json.append(',');
+            }
+            json.append("{\"id\":").append(texto(evento.getId()))
+                    .append(",\"nombre\":").append(texto(evento.getNombre()))
+                    .append(",\"sala\":").append(texto(evento.getSala()))
+                    .append(",\"asientos\":").append(evento.getVentaEntradas().getCantidadAsientos())
+                    .append('}');
+        }
+        return new Respuesta(200, json.append(']').toString());
+    }
+
+    /**
+     * Informa los asientos disponibles por sección de un evento y la versión de ese estado.
+     * Si se indica {@code desde}, también informa los asientos que cambiaron desde esa versión;
+     * {@code "cambios":null} indica que ya no se conservan y el cliente debe partir de cero.
+     *
+     * @param parametros Parámetros de la URL: evento y, opcionalmente, desde.
+     * @return Disponibilidad por sección en JSON.
+     */
+    private Respuesta disponibilidad(Map<String, String> parametros) {
+        Evento evento = buscarEvento(parametros);
+        if (evento == null) {
+            return error(404, "Evento no encontrado.");
+        }
+        VentaEntradas ventaEntradas = evento.getVentaEntradas();
+        MapaAsientos mapa = ventaEntradas.getMapa();
+        VistaDisponibilidad vista = ventaEntradas.crearVista();
+        StringBuilder json = new StringBuilder("{\"evento\":").append(texto(evento.getId()));
+        if (parametros.containsKey("desde")) {
+            int[] cambiados = vista.asientosCambiadosDesde(largo(parametros.get("desde"), "desde"));
+            json.append(",\"cambios\":");
+            if (cambiados == null) {
+                json.append("null");
+            } else {
+                json.append('[');
+                for (int i = 0; i < cambiados.length; i++) {
+                    if (i > 0) {
+                        json.append(',');
+                    }
+                    json.append("{\"numero\":").append(cambiados[i] + 1)
+                            .append(",\"disponible\":").append(vista.estaDisponible(cambiados[i])).append('}');
+                }
+                json.append(']');
+            }
+        } else {
+            vista.marcarVersion(); // Antes de leer los contadores, para no perder cambios posteriores
+        }
+        json.append(",\"version\":").append(vista.getVersion()).append(",\"secciones\":[");
+        for (int id = 0; id < mapa.getCantidadSecciones(); id++) {
+            if (id > 0) {
+                json.append(',');
+            }
+            String seccion = mapa.nombreSeccion(id);
+            json.append("{\"seccion\":").append(texto(seccion))
+                    .append(",\"total\":").append(mapa.fin(id) - mapa.inicio(id))
+                    .append(",\"disponibles\":").append(ventaEntradas.contarDisponibles(seccion))
+                    .append(",\"vendidos\":").append(ventaEntradas.contarVendidos(seccion))
+                    .append(",\"agotada\":").append(ventaEntradas.estaAgotada(seccion))
+                    .append('}');
+        }
+        return new Respuesta(200, json.append("]}").toString());
+    }
+
+    /**
+     * Vende una entrada con los datos del cliente recibidos. Con {@code ubicacion=mejor} se asigna el asiento
+     * más adelante y centrado disponible, y con {@code cantidad=N} se venden N asientos juntos en la mejor
+     * fila posible para el cliente y sus acompañantes.
+     *
+     * @param parametros Parámetros de la URL: evento, seccion, nombre, edad, sexo, estudiante y,
+     *                   opcionalmente, ubicacion y cantidad.
+     * @return Entrada vendida en JSON (o un arreglo de entradas si se pidió una cantidad), o 409 si la
+     *         sección está agotada.
+     */
+    private Respuesta vender(Map<String, String> parametros) {
+        Evento evento = buscarEvento(parametros);
+        if (evento == null) {
+            return error(404, "Evento no encontrado.");
+        }
+        String seccion = requerido(parametros, "seccion");
+        VentaEntradas ventaEntradas = evento.getVentaEntradas();
+        int idSeccion = ventaEntradas.getMapa().idSeccion(seccion);
+        if (idSeccion < 0) {
+            return error(404, "Sección no encontrada: " + seccion);
+        }
+        if (ventaEntradas.estaAgotada(seccion)) { // Rechazo temprano, sin leer los datos del cliente
+            ventaEntradas.getMetricas().contar(idSeccion, MetricasVentas.AGOTADA);
+            return error(409, "No se pudo asignar un asiento en la sección seleccionada.");
+        }
+        Cliente cliente = leerCliente(parametros);
+        MapaAsientos mapa = ventaEntradas.getMapa();
+        if (parametros.containsKey("cantidad")) {
+            int cantidad = entero(parametros.get("cantidad"), "cantidad");
+            if (cantidad <= 0) {
+                throw new IllegalArgumentException("El parámetro cantidad debe ser positivo.");
+            }
+            List<Entrada> entradas = ventaEntradas.venderMejorUbicacion(cliente, seccion, cantidad);
+            if (entradas == null) {
+                return error(409, "No quedan " + cantidad + " asientos en la sección seleccionada.");
+            }
+            ventaEntradas.emitirBoletas(entradas);
+            StringBuilder lista = new StringBuilder("{\"entradas\":[");
+            for (int i = 0; i < entradas.size(); i++) {
+                lista.append(i > 0 ? "," : "").append(json(entradas.get(i), mapa));
+            }
+            return new Respuesta(200, lista.append("]}").toString());
+        }
+        Entrada entrada = "mejor".equals(parametros.get("ubicacion"))
+                ? ventaEntradas.venderMejorUbicacion(cliente, seccion)
+                : ventaEntradas.venderEntrada(cliente, seccion);
+        if (entrada == null) {
+            return error(409, "No se pudo asignar un asiento en la sección seleccionada.");
+        }
+        ventaEntradas.emitirBoletas(List.of(entrada));
+        return new Respuesta(200, json(entrada, mapa));
+    }
+
+    /**
+     * Retiene un asiento de una sección durante un plazo, para que el cliente complete el pago.
+     *
+     * @param parametros Parámetros de la URL: evento, seccion, datos del cliente y minutos (10 por omisión).
+     * @return Retención en JSON, o 409 si la sección está agotada.
+     */
+    private Respuesta retener(Map<String, String> parametros) {
+        Evento evento = buscarEvento(parametros);
+        if (evento == null) {
+            return error(404, "Evento no encontrado.");
+        }
+        VentaEntradas ventaEntradas = evento.getVentaEntradas();
+        if (ventaEntradas.getRetenciones() == null) {
+            return error(404, "El evento no admite retenciones.");
+        }
+        String seccion = requerido(parametros, "seccion");
+        Cliente cliente = leerCliente(parametros);
+        int minutos = entero(parametros.getOrDefault("minutos", "10"), "minutos");
+        if (minutos <= 0) {
+            throw new IllegalArgumentException("El parámetro minutos debe ser positivo.");
+        }
+        if (ventaEntradas.getMapa().idSeccion(seccion) < 0) {
+            return error(404, "Sección no encontrada: " + seccion);
+        }
+        GestorRetenciones.Retencion retencion = ventaEntradas.retenerAsiento(cliente, seccion, minutos * 60_000L);
+        if (retencion == null) {
+            return error(409, "No se pudo retener un asiento en la sección seleccionada.");
+        }
+        return new Respuesta(200, "{\"retencion\":" + retencion.getId()
+                + ",\"seccion\":" + texto(ventaEntradas.getMapa().nombreSeccion(retencion.getIdSeccion()))
+                + ",\"asiento\":" + retencion.getNumeroAsiento()
+                + ",\"vence\":" + retencion.getVence() + "}");
+    }
+
+    /**
+     * Confirma una retención vigente y vende la entrada.
+     *
+     * @param parametros Parámetros de la URL: evento y retencion.
+     * @return Entrada vendida en JSON, o 404 si la retención no existe o venció.
+     */
+    private Respuesta confirmar(Map<String, String> parametros) {
+        Evento evento = buscarEvento(parametros);
+        if (evento == null) {
+            return error(404, "Evento no encontrado.");
+        }
+        VentaEntradas ventaEntradas = evento.getVentaEntradas();
+        if (ventaEntradas.getRetenciones() == null) {
+            return error(404, "El evento no admite retenciones.");
+        }
+        Entrada entrada = ventaEntradas.confirmarRetencion(largo(requerido(parametros, "retencion"), "retencion"));
+        if (entrada == null) {
+            return error(404, "Retención no encontrada o vencida.");
+        }
+        ventaEntradas.emitirBoletas(List.of(entrada));
+        return new Respuesta(200, json(entrada, ventaEntradas.getMapa()));
+    }
+
+    /**
+     * Libera una retención antes de su plazo.
+     *
+     * @param parametros Parámetros de la URL: evento y retencion.
+     * @return Confirmación en JSON, o 404 si la retención no existe o venció.
+     */
+    private Respuesta liberarRetencion(Map<String, String> parametros) {
+        Evento evento = buscarEvento(parametros);
+        if (evento == null) {
+            return error(404, "Evento no encontrado.");
+        }
+        VentaEntradas ventaEntradas = evento.getVentaEntradas();
+        if (ventaEntradas.getRetenciones() == null) {
+            return error(404, "El evento no admite retenciones.");
+        }
+        long id = largo(requerido(parametros, "retencion"), "retencion");
+        return ventaEntradas.liberarRetencion(id)
+                ? new Respuesta(200, "{\"retencion\":" + id + ",\"liberada\":true}")
+                : error(404, "Retención no encontrada o vencida.");
+    }
+
+    /**
+     * Inscribe a un cliente en la lista de espera de una sección.
+     *
+     * @param parametros Parámetros de la URL: evento, seccion, datos del cliente y prioridad (normal o preferente).
+     * @return Solicitud en JSON con 202, o 503 si la lista de espera de la sección está llena.
+     */
+    private Respuesta esperar(Map<String, String> parametros) {
+        Evento evento = buscarEvento(parametros);
+        if (evento == null) {
+            return error(404, "Evento no encontrado.");
+        }
+        VentaEntradas ventaEntradas = evento.getVentaEntradas();
+        if (ventaEntradas.getListaEspera() == null) {
+            return error(404, "El evento no admite lista de espera.");
+        }
+        String seccion = requerido(parametros, "seccion");
+        if (ventaEntradas.getMapa().idSeccion(seccion) < 0) {
+            return error(404, "Sección no encontrada: " + seccion);
+        }
+        String prioridad = parametros.getOrDefault("prioridad", "normal");
+        if (!prioridad.equals("normal") && !prioridad.equals("preferente")) {
+            throw new IllegalArgumentException("El parámetro prioridad debe ser normal o preferente.");
+        }
+        ListaEspera.Solicitud solicitud = ventaEntradas.esperarAsiento(leerCliente(parametros), seccion,
+                prioridad.equals("preferente") ? ListaEspera.PREFERENTE : ListaEspera.NORMAL);
+        if (solicitud == null) {
+            return error(503, "La lista de espera de la sección está llena.");
+        }
+        return new Respuesta(202, json(solicitud, ventaEntradas));
+    }
+
+    /**
+     * Consulta una solicitud de la lista de espera. Una solicitud asignada se entrega una sola vez, con su
+     * entrada; después la entrada se consulta con {@code /entrada}.
+     *
+     * @param parametros Parámetros de la URL: evento e id.
+     * @return Solicitud en JSON, o 404 si no existe, fue cancelada o su asignación ya se entregó.
+     */
+    private Respuesta consultarSolicitud(Map<String, String> parametros) {
+        Evento evento = buscarEvento(parametros);
+        if (evento == null) {
+            return error(404, "Evento no encontrado.");
+        }
+        VentaEntradas ventaEntradas = evento.getVentaEntradas();
+        ListaEspera lista = ventaEntradas.getListaEspera();
+        if (lista == null) {
+            return error(404, "El evento no admite lista de espera.");
+        }
+        ListaEspera.Solicitud solicitud = lista.consultar(largo(requerido(parametros, "id"), "id"));
+        return solicitud == null ? error(404, "Solicitud no encontrada.") : new Respuesta(200, json(solicitud, ventaEntradas));
+    }
+
+    /**
+     * Retira a un cliente de la lista de espera.
+     *
+     * @param parametros Parámetros de la URL: evento e id.
+     * @return Confirmación en JSON, o 404 si la solicitud no está esperando.
+     */
+    private Respuesta desistir(Map<String, String> parametros) {
+        Evento evento = buscarEvento(parametros);
+        if (evento == null) {
+            return error(404, "Evento no encontrado.");
+        }
+        ListaEspera lista = evento.getVentaEntradas().getListaEspera();
+        if (lista == null) {
+            return error(404, "El evento no admite lista de espera.");
+        }
+        long id = largo(requerido(parametros, "id"), "id");
+        return lista.cancelar(id)
+                ? new Respuesta(200, "{\"solicitud\":" + id + ",\"cancelada\":true}")
+                : error(404, "Solicitud no encontrada o ya asignada.");
+    }
+
+    /**
+     * Expone las métricas de ventas en texto, de un evento o de todo el catálogo.
+     *
+     * @param parametros Parámetros de la URL: evento (opcional).
+     * @return Métricas en texto plano, una por línea.
+     */
+    private Respuesta metricas(Map<String, String> parametros) {
+        StringBuilder texto = new StringBuilder();
+        if (parametros.containsKey("evento")) {
+            Evento evento = buscarEvento(parametros);
+            if (evento == null) {
+                return error(404, "Evento no encontrado.");
+            }
+            evento.getVentaEntradas().getMetricas().exponer(evento.getId(), texto);
+            if (cluster != null) {
+                cluster.exponer(evento.getId(), texto);
+            }
+        } else {
+            for (Evento evento : catalogo.getEventos()) {
+                evento.getVentaEntradas().getMetricas().exponer(evento.getId(), texto);
+                if (cluster != null) {
+                    cluster.exponer(evento.getId(), texto);
+                }
+            }
+        }
+        return new Respuesta(200, texto.toString(), "text/plain; charset=utf-8");
+    }
+
+    /**
+     * Informa los ingresos, la ocupación y los descuentos de un evento.
+     *
+     * @param parametros Parámetros de la URL: evento.
+     * @return Reporte de ventas en texto plano.
+     */
+    private Respuesta reporte(Map<String, String> parametros) {
+        Evento evento = buscarEvento(parametros);
+        if (evento == null) {
+            return error(404, "Evento no encontrado.");
+        }
+        StringBuilder texto = new StringBuilder();
+        evento.getVentaEntradas().getAnalitica().generarReporte().escribir(texto);
+        return new Respuesta(200, texto.toString(), "text/plain; charset=utf-8");
+    }
+
+    /**
+     * Anula una entrada y libera su asiento.
+     *
+     * @param parametros Parámetros de la URL: evento e id.
+     * @return Entrada anulada en JSON, o 404 si no existe.
+     */
+    private Respuesta anular(Map<String, String> parametros) {
+        Evento evento = buscarEvento(parametros);
+        if (evento == null) {
+            return error(404, "Evento no encontrado.");
+        }
+        Entrada entrada = evento.getVentaEntradas().anularEntrada(largo(requerido(parametros, "id"), "id"));
+        return entrada == null ? error(404, "Entrada no encontrada.") : new Respuesta(200, json(entrada, evento.getVentaEntradas().getMapa()));
+    }
+
+    /**
+     * Consulta una entrada vendida.
+     *
+     * @param parametros Parámetros de la URL: evento e id.
+     * @return Entrada en JSON, o 404 si no existe.
+     */
+    private Respuesta consultarEntrada(Map<String, String> parametros) {
+        Evento evento = buscarEvento(parametros);
+        if (evento == null) {
+            return error(404, "Evento no encontrado.");
+        }
+        Entrada entrada = evento.getVentaEntradas().buscarEntrada(largo(requerido(parametros, "id"), "id"));
+        return entrada == null ? error(404, "Entrada no encontrada.") : new Respuesta(200, json(entrada, evento.getVentaEntradas().getMapa()));
+    }
+
+    /**
+     * Busca el evento indicado en los parámetros.
+     *
+     * @param parametros Parámetros de la URL.
+     * @return El evento, o null si no existe.
+     */
+    private Evento buscarEvento(Map<String, String> parametros) {
+        return catalogo.buscar(requerido(parametros, "evento"));
+    }
+
+    /**
+     * Construye el cliente a partir de los parámetros nombre, edad, sexo y estudiante.
+     * Si se indica un documento ya registrado, se usa el cliente registrado y los demás datos no son necesarios;
+     * si el documento es nuevo, el cliente se registra con él.
+     *
+     * @param parametros Parámetros de la URL.
+     * @return Cliente de la solicitud.
+     * @throws IllegalArgumentException Si falta un dato, es demasiado largo o la edad no es válida.
+     */
+    private Cliente leerCliente(Map<String, String> parametros) {
+        String documento = parametros.get("documento");
+        if (documento != null) {
+            Cliente registrado = clientes.buscar(documento);
+            if (registrado != null) {
+                return registrado;
+            }
+        }
+        int edad = entero(requerido(parametros, "edad"), "edad");
+        if (edad < 0) {
+            throw new IllegalArgumentException("La edad no puede ser negativa.");
+        }
+        Cliente cliente = new Cliente(Cliente.validarTexto("nombre", requerido(parametros, "nombre")), edad,
+                Cliente.tipoSegunEdad(edad), Cliente.validarTexto("sexo", parametros.getOrDefault("sexo", "Otro")),
+                Boolean.parseBoolean(parametros.get("estudiante")));
+        return documento == null ? cliente : clientes.registrar(documento, cliente);
+    }
+
+    /**
+     * Separa los parámetros de la URL.
+     *
+     * @param consulta Parte de la URL después de '?', sin decodificar.
+     * @return Parámetros decodificados.
+     */
+    private static Map<String, String> leerParametros(String consulta) {
+        Map<String, String> parametros = new HashMap<>();
+        if (consulta == null || consulta.isEmpty()) {
+            return parametros;
+        }
+        for (String par : consulta.split("&")) {
+            int igual = par.indexOf('=');
+            String clave = igual >= 0 ? par.substring(0, igual) : par;
+            String valor = igual >= 0 ? par.substring(igual + 1) : "";
+            parametros.put(URLDecoder.decode(clave, StandardCharsets.UTF_8), URLDecoder.decode(valor, StandardCharsets.UTF_8));
+        }
+        return parametros;
+    }
+
+    /**
+     * Obtiene un parámetro obligatorio.
+     *
+     * @param parametros Parámetros de la URL.
+     * @param nombre     Nombre del parámetro.
+     * @return Valor del parámetro.
+     * @throws IllegalArgumentException Si falta el parámetro.
+     */
+    private static String requerido(Map<String, String> parametros, String nombre) {
+        String valor = parametros.get(nombre);
+        if (valor == null || valor.isEmpty()) {
+            throw new IllegalArgumentException("Falta el parámetro " + nombre);
+        }
+        return valor;
+    }
+
+    /**
+     * Convierte un parámetro a entero.
+     *
+     * @param valor  Texto del parámetro.
+     * @param nombre Nombre del parámetro, para el mensaje de error.
+     * @return Valor entero.
+     */
+    private static int entero(String valor, String nombre) {
+        try {
+            return Integer.parseInt(valor);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("El parámetro " + nombre + " debe ser un número.");
+        }
+    }
+
+    /**
+     * Convierte un parámetro a entero largo.
+     *
+     * @param valor  Texto del parámetro.
+     * @param nombre Nombre del parámetro, para el mensaje de error.
+     * @return Valor entero largo.
+     */
+    private static long largo(String valor, String nombre) {
+        try {
+            return Long.parseLong(valor);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("El parámetro " + nombre + " debe ser un número.");
+        }
+    }
+
+    /**
+     * Representa una entrada en JSON.
+     *
+     * @param entrada Entrada vendida.
+     * @param mapa    Distribución del evento, para la fila y la butaca.
+     * @return Objeto JSON.
+     */
+    private static String json(Entrada entrada, MapaAsientos mapa) {
+        return "{\"id\":" + entrada.getId()
+                + ",\"seccion\":" + texto(entrada.getSeccion())
+                + ",\"asiento\":" + entrada.getNumeroAsiento()
+                + ",\"fila\":" + (mapa.filaDe(entrada.getIndiceAsiento()) + 1)
+                + ",\"butaca\":" + (mapa.butacaDe(entrada.getIndiceAsiento()) + 1)
+                + ",\"cliente\":" + texto(entrada.getCliente().getNombre())
+                + ",\"precio\":" + String.format(Locale.ROOT, "%.2f", entrada.getPrecio())
+                + ",\"descuento\":" + String.format(Locale.ROOT, "%.0f", entrada.getPorcentajeDescuento())
+                + ",\"fechaVenta\":" + entrada.getFechaVenta() + "}";
+    }
+
+    /**
+     * Representa una solicitud de la lista de espera en JSON.
+     *
+     * @param solicitud     Solicitud de la lista de espera.
+     * @param ventaEntradas Ventas del evento, para el nombre de la sección y los clientes en espera.
+     * @return Objeto JSON, con la entrada vendida si la solicitud ya se asignó.
+     */
+    private static String json(ListaEspera.Solicitud solicitud, VentaEntradas ventaEntradas) {
+        Entrada entrada = solicitud.getEntrada();
+        return "{\"solicitud\":" + solicitud.getId()
+                + ",\"seccion\":" + texto(ventaEntradas.getMapa().nombreSeccion(solicitud.getIdSeccion()))
+                + ",\"estado\":" + (entrada != null ? "\"asignada\"" : "\"esperando\"")
+                + ",\"enEspera\":" + ventaEntradas.getListaEspera().getEsperando(solicitud.getIdSeccion())
+                + (entrada != null ? ",\"entrada\":" + json(entrada, ventaEntradas.getMapa()) : "") + "}";
+    }
+
+    /**
+     * Crea una respuesta de error.
+     *
+     * @param codigo  Código de estado HTTP.
+     * @param mensaje Mensaje de error.
+     * @return Respuesta con el mensaje en JSON.
+     */
+    private static Respuesta error(int codigo, String mensaje) {
+        return new Respuesta(codigo, "{\"error\":" + texto(mensaje) + "}");
+    }
+
+    /**
+     * Representa un texto como cadena JSON, escapando comillas, barras y caracteres de control.
+     *
+     * @param valor Texto original.
+     * @return Cadena JSON entre comillas.
+     */
+    static String texto(String valor) {
+        StringBuilder json = new StringBuilder(valor.length() + 2).append('"');
+        for (int i = 0; i < valor.length(); i++) {
+            char c = valor.charAt(i);
+            if (c == '"' || c == '\\') {
+                json.append('\\').append(c);
+            } else if (c < 0x20) {
+                json.append(String.format("\\u%04x", (int) c));
+            } else {
+                json.append(c);
+            }
+        }
+        return json.append('"').toString();
+    }
+}
\ No newline at end of file
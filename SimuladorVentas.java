@@ -0,0 +1,364 @@
+package com.sistemateatromoro;
+
+import java.util.Locale;
+import java.util.SplittableRandom;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Simulador determinista de la apertura de ventas de un evento: miles de compradores llegan a la vez y
+ * compiten por las mismas secciones. A diferencia de {@link GeneradorCarga}, no pasa por HTTP: reproduce
+ * la población directamente contra {@link VentaEntradas} desde varios hilos, para medir el sistema de
+ * ventas y comparar cambios de escalabilidad entre ejecuciones.
+ *
+ * La población se genera completa antes de empezar a partir de una semilla, con distribuciones de edad,
+ * estudiantes, sexo, sección preferida, cantidad de entradas y tolerancia a cambiar de sección; la misma
+ * semilla produce siempre los mismos compradores en el mismo orden de llegada. Con un solo hilo el resultado
+ * es idéntico en cada ejecución; con varios, solo cambia el entrelazado de las compras.
+ *
+ * Uso: {@code SimuladorVentas [--compradores 200000] [--asientos 100000] [--hilos 4] [--semilla 42]}.
+ */
+public class SimuladorVentas {
+    private static final int[] EDAD_DESDE = {5, 13, 18, 26, 60};  // Tramos de edad de la población
+    private static final int[] EDAD_HASTA = {12, 17, 25, 59, 90};
+    private static final int[] PESO_EDAD = {8, 7, 20, 50, 15};      // Porcentaje de compradores por tramo
+    private static final int[] PESO_ESTUDIANTE = {0, 90, 50, 5, 0}; // Porcentaje de estudiantes por tramo
+    private static final int[] PESO_CANTIDAD = {70, 20, 5, 5};      // Porcentaje que compra 1, 2, 3 o 4 entradas
+    private static final int ACEPTA_OTRA = 60;                      // Porcentaje que acepta otra sección si la suya se agota
+    private static final double[] PERCENTILES = {50, 90, 99, 99.9};
+    private static final String[] NOMBRES_PERCENTIL = {"p50", "p90", "p99", "p99.9"};
+
+    private final MapaAsientos mapa;        // Distribución de secciones del evento simulado
+    private final long semilla;             // Semilla de la población
+    private final Comprador[] compradores;  // Población, en orden de llegada
+
+    /**
+     * Un comprador de la población, con todas sus decisiones tomadas de antemano.
+     */
+    private static final class Comprador {
+        final Cliente cliente;       // Datos del comprador
+        final int idSeccion;         // Sección preferida
+        final int cantidad;          // Entradas que compra juntas
+        final boolean aceptaOtra;    // Si prueba secciones más baratas cuando la suya se agota
+
+        Comprador(Cliente cliente, int idSeccion, int cantidad, boolean aceptaOtra) {
+            this.cliente = cliente;
+            this.idSeccion = idSeccion;
+            this.cantidad = cantidad;
+            this.aceptaOtra = aceptaOtra;
+        }
+    }
+
+    /**
+     * Resultado de una simulación.
+     */
+    public static class Resultado {
+        private final long semilla;              // Semilla de la población
+        private final int compradores;           // Compradores simulados
+        private final int hilos;                 // Hilos que compraron
+        private final long nanos;                // Duración de la simulación
+        private final long compras;              // Compradores que obtuvieron sus entradas
+        private final long enOtraSeccion;        // De ellos, los que compraron fuera de su sección preferida
+        private final long rechazadas;           // Compradores que se fueron sin entradas
+        private final long errores;              // Compras que terminaron con una excepción
+        private final long entradas;             // Entradas vendidas
+        private final HistogramaLatencia.Instantanea latencias; // Latencia de cada compra, con sus reintentos
+        private final String[] secciones;        // Nombre de cada sección
+        private final long[] vendidos;           // Asientos vendidos por sección al terminar
+        private final long[] capacidades;        // Asientos por sección
+
+        Resultado(long semilla, int compradores, int hilos, long nanos, long compras, long enOtraSeccion,
+                  long rechazadas, long errores, long entradas, HistogramaLatencia.Instantanea latencias,
+                  String[] secciones, long[] vendidos, long[] capacidades) {
+            this.semilla = semilla;
+            this.compradores = compradores;
+            this.hilos = hilos;
+            this.nanos = nanos;
+            this.compras = compras;
+            this.enOtraSeccion = enOtraSeccion;
+            this.rechazadas = rechazadas;
+            this.errores = errores;
+            this.entradas = entradas;
+            this.latencias = latencias;
+            this.secciones = secciones;
+            this.vendidos = vendidos;
+            this.capacidades = capacidades;
+        }
+
+        public long getCompras() {
+            return compras;
+        }
+
+        public long getEnOtraSeccion() {
+            return enOtraSeccion;
+        }
+
+        public long getRechazadas() {
+            return rechazadas;
+        }
+
+        public long getErrores() {
+            return errores;
+        }
+
+        public long getEntradas() {
+            return entradas;
+        }
+
+        public HistogramaLatencia.Instantanea getLatencias() {
+            return latencias;
+        }
+
+        /**
+         * Obtiene las compras por segundo de la simulación.
+         *
+         * @return Compradores atendidos (con o sin entradas) por segundo.
+         */
+        public double getCompradoresPorSegundo() {
+            return compradores / (nanos / 1e9);
+        }
+
+        /**
+         * Obtiene la ocupación final de una sección.
+         *
+         * @param idSeccion Id de la sección.
+         * @return Fracción de asientos vendidos (entre 0 y 1).
+         */
+        public double getOcupacion(int idSeccion) {
+            return capacidades[idSeccion] == 0 ? 0 : vendidos[idSeccion] / (double) capacidades[idSeccion];
+        }
+
+        /**
+         * Escribe el resultado en texto, con el mismo formato en cada ejecución para compararlas.
+         *
+         * @param salida Destino del texto.
+         */
+        public void escribir(StringBuilder salida) {
+            salida.append("----- Simulación de apertura de ventas -----\n");
+            salida.append(String.format(Locale.ROOT, "Semilla: %d, compradores: %d, hilos: %d%n", semilla, compradores, hilos));
+            salida.append(String.format(Locale.ROOT, "Duración: %.3f s (%.0f compradores/s, %.0f entradas/s)%n",
+                    nanos / 1e9, getCompradoresPorSegundo(), entradas / (nanos / 1e9)));
+            salida.append(String.format(Locale.ROOT,
+                    "Con entradas: %d (%.2f%%, %d en otra sección), sin entradas: %d (%.2f%%), errores: %d (%.2f%%)%n",
+                    compras, 100.0 * compras / compradores, enOtraSeccion, rechazadas, 100.0 * rechazadas / compradores,
+                    errores, 100.0 * errores / compradores));
+            salida.append("Latencia por compra:");
+            for (int i = 0; i < PERCENTILES.length; i++) {
+                salida.append(String.format(Locale.ROOT, " %s %.1f µs,", NOMBRES_PERCENTIL[i],
+                        latencias.percentil(PERCENTILES[i]) / 1e3));
+            }
+            salida.append(String.format(Locale.ROOT, " máx %.1f µs%n", latencias.getMaximo() / 1e3));
+            long totalVendidos = 0;
+            long totalCapacidad = 0;
+            for (int idSeccion = 0; idSeccion < secciones.length; idSeccion++) {
+                salida.append(String.format(Locale.ROOT, "Ocupación %-15s %8d / %-8d (%.2f%%)%n", secciones[idSeccion],
+                        vendidos[idSeccion], capacidades[idSeccion], 100 * getOcupacion(idSeccion)));
+                totalVendidos += vendidos[idSeccion];
+                totalCapacidad += capacidades[idSeccion];
+            }
+            salida.append(String.format(Locale.ROOT, "Ocupación %-15s %8d / %-8d (%.2f%%)%n", "total",
+                    totalVendidos, totalCapacidad, 100.0 * totalVendidos / totalCapacidad));
+            if (totalVendidos != entradas) {
+                salida.append("ADVERTENCIA: los asientos vendidos (").append(totalVendidos)
+                        .append(") no coinciden con las entradas vendidas (").append(entradas).append(")\n");
+            }
+            salida.append("--------------------------------------------\n");
+        }
+    }
+
+    /**
+     * Constructor para generar la población de compradores de un evento.
+     * La preferencia por sección sigue una distribución de Zipf sobre el orden de las secciones:
+     * la primera (la mejor ubicada) es la más pedida, y cada una siguiente lo es menos.
+     *
+     * @param mapa        Distribución de secciones del evento.
+     * @param compradores Cantidad de compradores.
+     * @param semilla     Semilla de la población.
+     * @throws IllegalArgumentException Si la cantidad de compradores no es positiva.
+     */
+    public SimuladorVentas(MapaAsientos mapa, int compradores, long semilla) {
+        if (compradores <= 0) {
+            throw new IllegalArgumentException("La cantidad de compradores debe ser positiva.");
+        }
+        this.mapa = mapa;
+        this.semilla = semilla;
+        this.compradores = new Comprador[compradores];
+        int secciones = mapa.getCantidadSecciones();
+        double[] preferencia = new double[secciones]; // Probabilidad acumulada de preferir cada sección
+        double suma = 0;
+        for (int idSeccion = 0; idSeccion < secciones; idSeccion++) {
+            suma += 1.0 / (idSeccion + 1);
+            preferencia[idSeccion] = suma;
+        }
+        SplittableRandom azar = new SplittableRandom(semilla);
+        for (int i = 0; i < compradores; i++) {
+            int tramo = elegir(PESO_EDAD, azar);
+            int edad = azar.nextInt(EDAD_DESDE[tramo], EDAD_HASTA[tramo] + 1);
+            boolean estudiante = azar.nextInt(100) < PESO_ESTUDIANTE[tramo];
+            int sexo = azar.nextInt(100);
+            String tipo = edad < 18 ? "niño" : edad > 60 ? "tercera edad" : "adulto";
+            Cliente cliente = new Cliente("Comprador " + (i + 1), edad, tipo,
+                    sexo < 49 ? "Mujer" : sexo < 98 ? "Hombre" : "Otro", estudiante);
+            double valor = azar.nextDouble() * suma;
+            int idSeccion = 0;
+            while (idSeccion < secciones - 1 && valor >= preferencia[idSeccion]) {
+                idSeccion++;
+            }
+            int cantidad = elegir(PESO_CANTIDAD, azar) + 1;
+            this.compradores[i] = new Comprador(cliente, idSeccion, cantidad, azar.nextInt(100) < ACEPTA_OTRA);
+        }
+    }
+
+    /**
+     * Elige un índice con probabilidad proporcional a su peso.
+     *
+     * @param pesos Pesos de cada índice (suman 100).
+     * @param azar  Generador de la población.
+     * @return Índice elegido.
+     */
+    private static int elegir(int[] pesos, SplittableRandom azar) {
+        int valor = azar.nextInt(100);
+        int i = 0;
+        while (i < pesos.length - 1 && valor >= pesos[i]) {
+            valor -= pesos[i];
+            i++;
+        }
+        return i;
+    }
+
+    /**
+     * Reproduce la población contra un sistema de ventas. Todos los hilos parten a la vez y toman los
+     * compradores en orden de llegada hasta agotarlos; cada comprador intenta su sección preferida y, si se
+     * agotó y lo acepta, las siguientes secciones en orden.
+     *
+     * @param ventaEntradas Sistema de ventas del evento, con la misma distribución de secciones.
+     * @param hilos         Hilos que compran en paralelo.
+     * @return Resultado de la simulación.
+     * @throws InterruptedException     Si se interrumpe la espera de los hilos.
+     * @throws IllegalArgumentException Si la cantidad de hilos no es positiva.
+     */
+    public Resultado ejecutar(VentaEntradas ventaEntradas, int hilos) throws InterruptedException {
+        if (hilos <= 0) {
+            throw new IllegalArgumentException("La cantidad de hilos debe ser positiva.");
+        }
+        int secciones = mapa.getCantidadSecciones();
+        String[] nombres = new String[secciones];
+        for (int idSeccion = 0; idSeccion < secciones; idSeccion++) {
+            nombres[idSeccion] = mapa.nombreSeccion(idSeccion);
+        }
+        AtomicInteger siguiente = new AtomicInteger();
+        LongAdder compras = new LongAdder();
+        LongAdder enOtraSeccion = new LongAdder();
+        LongAdder rechazadas = new LongAdder();
+        LongAdder errores = new LongAdder();
+        LongAdder entradas = new LongAdder();
+        HistogramaLatencia latencias = new HistogramaLatencia();
+        CountDownLatch listos = new CountDownLatch(hilos);
+        CountDownLatch partida = new CountDownLatch(1);
+
+        Thread[] trabajadores = new Thread[hilos];
+        for (int h = 0; h < hilos; h++) {
+            trabajadores[h] = new Thread(() -> {
+                listos.countDown();
+                try {
+                    partida.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i; (i = siguiente.getAndIncrement()) < compradores.length; ) {
+                    Comprador comprador = compradores[i];
+                    long inicio = System.nanoTime();
+                    try {
+                        int idSeccion = comprar(ventaEntradas, comprador, nombres);
+                        if (idSeccion < 0) {
+                            rechazadas.increment();
+                        } else {
+                            compras.increment();
+                            entradas.add(comprador.cantidad);
+                            if (idSeccion != comprador.idSeccion) {
+                                enOtraSeccion.increment();
+                            }
+                        }
+                    } catch (RuntimeException e) {
+                        errores.increment();
+                    }
+                    latencias.registrar(System.nanoTime() - inicio);
+                }
+            }, "simulador-" + h);
+            trabajadores[h].start();
+        }
+        listos.await();
+        long inicio = System.nanoTime();
+        partida.countDown();
+        for (Thread trabajador : trabajadores) {
+            trabajador.join();
+        }
+        long nanos = System.nanoTime() - inicio;
+
+        long[] vendidos = new long[secciones];
+        long[] capacidades = new long[secciones];
+        for (int idSeccion = 0; idSeccion < secciones; idSeccion++) {
+            vendidos[idSeccion] = ventaEntradas.contarVendidos(nombres[idSeccion]);
+            capacidades[idSeccion] = mapa.fin(idSeccion) - mapa.inicio(idSeccion);
+        }
+        return new Resultado(semilla, compradores.length, hilos, nanos, compras.sum(), enOtraSeccion.sum(),
+                rechazadas.sum(), errores.sum(), entradas.sum(), latencias.instantanea(), nombres, vendidos, capacidades);
+    }
+
+    /**
+     * Realiza la compra de un comprador.
+     *
+     * @param ventaEntradas Sistema de ventas.
+     * @param comprador     Comprador.
+     * @param nombres       Nombre de cada sección.
+     * @return Sección en que compró, o -1 si se fue sin entradas.
+     */
+    private static int comprar(VentaEntradas ventaEntradas, Comprador comprador, String[] nombres) {
+        int ultima = comprador.aceptaOtra ? nombres.length - 1 : comprador.idSeccion;
+        for (int idSeccion = comprador.idSeccion; idSeccion <= ultima; idSeccion++) {
+            boolean vendida = comprador.cantidad == 1
+                    ? ventaEntradas.venderEntrada(comprador.cliente, nombres[idSeccion]) != null
+                    : ventaEntradas.venderLote(comprador.cliente, nombres[idSeccion], comprador.cantidad) != null;
+            if (vendida) {
+                return idSeccion;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Ejecuta una simulación sobre un teatro con la distribución de secciones del Teatro Moro a escala:
+     * 5% VIP, 25% platea baja, 30% platea alta y 40% galería.
+     *
+     * @param args Opciones {@code --compradores}, {@code --asientos}, {@code --hilos} y {@code --semilla}.
+     * @throws InterruptedException Si se interrumpe la simulación.
+     */
+    public static void main(String[] args) throws InterruptedException {
+        int compradores = 200_000;
+        int asientos = 100_000;
+        int hilos = Math.max(4, Runtime.getRuntime().availableProcessors());
+        long semilla = 42;
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            if (args[i].equals("--compradores")) {
+                compradores = Integer.parseInt(args[i + 1]);
+            } else if (args[i].equals("--asientos")) {
+                asientos = Integer.parseInt(args[i + 1]);
+            } else if (args[i].equals("--hilos")) {
+                hilos = Integer.parseInt(args[i + 1]);
+            } else if (args[i].equals("--semilla")) {
+                semilla = Long.parseLong(args[i + 1]);
+            }
+        }
+        int vip = asientos / 20;
+        int plateaBaja = asientos / 4;
+        int plateaAlta = asientos * 3 / 10;
+        MapaAsientos mapa = new MapaAsientos(new String[] {"VIP", "Platea baja", "Platea alta", "Galería"},
+                new int[] {vip, plateaBaja, plateaAlta, asientos - vip - plateaBaja - plateaAlta});
+        SimuladorVentas simulador = new SimuladorVentas(mapa, compradores, semilla);
+        Resultado resultado = simulador.ejecutar(new VentaEntradas(mapa), hilos);
+        StringBuilder salida = new StringBuilder();
+        resultado.escribir(salida);
+        System.out.print(salida);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,297 @@
+package com.sistemateatromoro;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * Tabla de precios y descuentos de un evento del Teatro Moro.
+ * Los precios por sección y los descuentos por categoría de cliente se cargan desde una configuración
+ * y se precalculan una sola vez en una tabla indexada por id de sección y categoría, de modo que
+ * obtener el precio de una venta es una lectura de arreglo, sin normalizar textos ni crear objetos.
+ *
+ * Claves de configuración:
+ * <ul>
+ *     <li>{@code precio.<sección>}: precio base de la sección (por ejemplo {@code precio.VIP=30000}).</li>
+ *     <li>{@code descuento.<categoría>}: descuento (entre 0 y 1) de una categoría:
+ *         {@code nino}, {@code estudiante}, {@code terceraEdad}, {@code mujer}.</li>
+ *     <li>{@code promo.<código>}: descuento (entre 0 y 1) de un código promocional.</li>
+ *     <li>{@code grupo.<mínimo>}: descuento (entre 0 y 1) para compras de al menos ese número de entradas.</li>
+ * </ul>
+ */
+public class TablaPrecios {
+    public static final int GENERAL = 0;      // Cliente sin descuento
+    public static final int NINO = 1;         // Menor de 18 años
+    public static final int ESTUDIANTE = 2;   // Estudiante
+    public static final int TERCERA_EDAD = 3; // Mayor de 60 años
+    public static final int MUJER = 4;        // Mujer
+    public static final int CATEGORIAS = 5;   // Cantidad de categorías
+
+    private static final String[] CLAVES_CATEGORIA = {"general", "nino", "estudiante", "terceraEdad", "mujer"};
+
+    private final double[] precioBase;          // Precio base por sección (NaN si la sección no tiene precio)
+    private final double[] porcentajeDescuento; // Porcentaje de descuento por categoría
+    private final double[] precioFinal;         // Precio final por [sección * CATEGORIAS + categoría]
+    private final Map<String, Double> promociones; // Código promocional normalizado -> descuento
+    private final int[] minimoGrupo;            // Mínimo de entradas de cada tarifa de grupo, en orden creciente
+    private final double[] descuentoGrupo;      // Descuento de cada tarifa de grupo
+
+    /**
+     * Compila una tabla de precios para un mapa de asientos.
+     *
+     * @param mapa        Distribución de secciones del evento.
+     * @param preciosBase Precio base por nombre de sección; las secciones sin precio no se pueden vender.
+     * @param descuentos  Descuento (entre 0 y 1) por categoría, indexado por las constantes de categoría.
+     * @param promociones Descuento (entre 0 y 1) por código promocional.
+     * @param tarifasGrupo Descuento (entre 0 y 1) por cantidad mínima de entradas compradas juntas.
+     * @throws IllegalArgumentException Si un descuento está fuera de rango, un precio es negativo o corresponde
+     *                                  a una sección que no existe en el mapa.
+     */
+    public TablaPrecios(MapaAsientos mapa, Map<String, Double> preciosBase, double[] descuentos,
+                        Map<String, Double> promociones, Map<Integer, Double> tarifasGrupo) {
+        int secciones = mapa.getCantidadSecciones();
+        this.precioBase = new double[secciones];
+        Arrays.fill(precioBase, Double.NaN);
+        for (Map.Entry<String, Double> precio : preciosBase.entrySet()) {
+            int idSeccion = mapa.idSeccion(precio.getKey());
+            if (idSeccion < 0) { // Un nombre mal escrito dejaría la sección sin el precio configurado
+                throw new IllegalArgumentException("Precio para una sección inexistente: " + precio.getKey());
+            }
+            if (precio.getValue() < 0) {
+                throw new IllegalArgumentException("Precio inválido para la sección " + precio.getKey());
+            }
+            precioBase[idSeccion] = precio.getValue();
+        }
+
+        this.porcentajeDescuento = new double[CATEGORIAS];
+        for (int categoria = 0; categoria < CATEGORIAS; categoria++) {
+            validarDescuento(descuentos[categoria], CLAVES_CATEGORIA[categoria]);
+            porcentajeDescuento[categoria] = descuentos[categoria] * 100;
+        }
+
+        this.precioFinal = new double[secciones * CATEGORIAS];
+        for (int idSeccion = 0; idSeccion < secciones; idSeccion++) {
+            for (int categoria = 0; categoria < CATEGORIAS; categoria++) {
+                precioFinal[idSeccion * CATEGORIAS + categoria] = precioBase[idSeccion] * (1 - descuentos[categoria]);
+            }
+        }
+
+        this.promociones = new HashMap<>();
+        for (Map.Entry<String, Double> promocion : promociones.entrySet()) {
+            validarDescuento(promocion.getValue(), promocion.getKey());
+            this.promociones.put(MapaAsientos.normalizar(promocion.getKey()), promocion.getValue());
+        }
+
+        this.minimoGrupo = tarifasGrupo.keySet().stream().mapToInt(Integer::intValue).sorted().toArray();
+        this.descuentoGrupo = new double[minimoGrupo.length];
+        for (int i = 0; i < minimoGrupo.length; i++) {
+            descuentoGrupo[i] = tarifasGrupo.get(minimoGrupo[i]);
+            validarDescuento(descuentoGrupo[i], "grupo de " + minimoGrupo[i]);
+        }
+    }
+
+    /**
+     * Verifica que un descuento esté entre 0 y 1.
+     *
+     * @param descuento Descuento a verificar.
+     * @param nombre    Nombre del descuento, para el mensaje de error.
+     */
+    private static void validarDescuento(double descuento, String nombre) {
+        if (!(descuento >= 0 && descuento <= 1)) {
+            throw new IllegalArgumentException("Descuento inválido para " + nombre + ": " + descuento);
+        }
+    }
+
+    /**
+     * Crea la tabla de precios clásica del Teatro Moro. Solo se ponen precio las secciones clásicas que
+     * existen en el mapa.
+     *
+     * @param mapa Distribución de secciones del evento.
+     * @return Tabla con los precios y descuentos del Teatro Moro.
+     */
+    public static TablaPrecios teatroMoro(MapaAsientos mapa) {
+        String[] secciones = {"VIP", "Platea baja", "Platea alta", "Galería"};
+        String[] precios = {"30000", "20000", "15000", "10000"};
+        Properties configuracion = new Properties();
+        for (int i = 0; i < secciones.length; i++) {
+            if (mapa.idSeccion(secciones[i]) >= 0) {
+                configuracion.setProperty("precio." + secciones[i], precios[i]);
+            }
+        }
+        return desdePropiedades(configuracion, mapa);
+    }
+
+    /**
+     * Crea una tabla de precios a partir de propiedades de configuración.
+     * Los descuentos por categoría que no se indiquen toman los valores clásicos del Teatro Moro.
+     *
+     * @param configuracion Propiedades con las claves {@code precio.*}, {@code descuento.*} y {@code promo.*}.
+     * @param mapa          Distribución de secciones del evento.
+     * @return Tabla de precios compilada.
+     * @throws IllegalArgumentException Si algún valor no es numérico o está fuera de rango, o si un precio
+     *                                  corresponde a una sección que no existe en el mapa.
+     */
+    public static TablaPrecios desdePropiedades(Properties configuracion, MapaAsientos mapa) {
+        double[] descuentos = {0.0, 0.10, 0.15, 0.25, 0.20};
+        Map<String, Double> precios = new HashMap<>();
+        Map<String, Double> promociones = new HashMap<>();
+        Map<Integer, Double> tarifasGrupo = new HashMap<>();
+        for (String clave : configuracion.stringPropertyNames()) {
+            double valor = leerNumero(configuracion, clave);
+            if (clave.startsWith("precio.")) {
+                precios.put(clave.substring("precio.".length()), valor);
+            } else if (clave.startsWith("promo.")) {
+                promociones.put(clave.substring("promo.".length()), valor);
+            } else if (clave.startsWith("grupo.")) {
+                try {
+                    tarifasGrupo.put(Integer.parseInt(clave.substring("grupo.".length())), valor);
+                } catch (NumberFormatException e) {
+                    throw new IllegalArgumentException("Mínimo de grupo inválido: " + clave, e);
+                }
+            } else if (clave.startsWith("descuento.")) {
+                int categoria = Arrays.asList(CLAVES_CATEGORIA).indexOf(clave.substring("descuento.".length()));
+                if (categoria < 0) {
+                    throw new IllegalArgumentException("Categoría de descuento desconocida: " + clave);
+                }
+                descuentos[categoria] = valor;
+            }
+        }
+        return new TablaPrecios(mapa, precios, descuentos, promociones, tarifasGrupo);
+    }
+
+    /**
+     * Crea una tabla de precios a partir de un archivo de propiedades en UTF-8.
+     *
+     * @param archivo Archivo de configuración.
+     * @param mapa    Distribución de secciones del evento.
+     * @return Tabla de precios compilada.
+     * @throws IOException Si no se puede leer el archivo.
+     */
+    public static TablaPrecios desdeArchivo(Path archivo, MapaAsientos mapa) throws IOException {
+        Properties configuracion = new Properties();
+        try (Reader lector = Files.newBufferedReader(archivo, StandardCharsets.UTF_8)) {
+            configuracion.load(lector);
+        }
+        return desdePropiedades(configuracion, mapa);
+    }
+
+    /**
+     * Lee un valor numérico de la configuración.
+     *
+     * @param configuracion Propiedades de configuración.
+     * @param clave         Clave a leer.
+     * @return Valor numérico.
+     */
+    private static double leerNumero(Properties configuracion, String clave) {
+        try {
+            return Double.parseDouble(configuracion.getProperty(clave).trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Valor inválido para " + clave, e);
+        }
+    }
+
+    /**
+     * Determina la categoría de descuento de un cliente.
+     * La categoría se calcula una sola vez al crear el cliente; esta lectura no vuelve a evaluar sus datos.
+     *
+     * @param cliente Cliente a clasificar.
+     * @return Categoría del cliente.
+     */
+    public static int categoriaDe(Cliente cliente) {
+        return cliente.getCategoria();
+    }
+
+    /**
+     * Determina la categoría de descuento a partir de los datos de un cliente.
+     * Se aplica el primer criterio que cumpla: niño, estudiante, tercera edad, mujer.
+     *
+     * @param edad         Edad del cliente.
+     * @param esEstudiante Indica si el cliente es estudiante.
+     * @param sexo         Sexo del cliente (hombre, mujer, otro).
+     * @return Categoría del cliente.
+     */
+    static int categoriaDe(int edad, boolean esEstudiante, String sexo) {
+        if (edad < 18) {
+            return NINO;
+        } else if (esEstudiante) {
+            return ESTUDIANTE;
+        } else if (edad > 60) {
+            return TERCERA_EDAD;
+        } else if ("mujer".equalsIgnoreCase(sexo)) {
+            return MUJER;
+        }
+        return GENERAL;
+    }
+
+    /**
+     * Indica si una sección tiene precio y, por lo tanto, se puede vender.
+     *
+     * @param idSeccion Id de la sección.
+     * @return true si la sección tiene precio.
+     */
+    public boolean tienePrecio(int idSeccion) {
+        return !Double.isNaN(precioBase[idSeccion]);
+    }
+
+    /**
+     * Obtiene el precio base de una sección.
+     *
+     * @param idSeccion Id de la sección.
+     * @return Precio base, o NaN si la sección no tiene precio.
+     */
+    public double precioBase(int idSeccion) {
+        return precioBase[idSeccion];
+    }
+
+    /**
+     * Obtiene el precio final precalculado de una sección para una categoría de cliente.
+     *
+     * @param idSeccion Id de la sección.
+     * @param categoria Categoría del cliente.
+     * @return Precio final con descuento.
+     */
+    public double precioFinal(int idSeccion, int categoria) {
+        return precioFinal[idSeccion * CATEGORIAS + categoria];
+    }
+
+    /**
+     * Obtiene el porcentaje de descuento de una categoría de cliente.
+     *
+     * @param categoria Categoría del cliente.
+     * @return Porcentaje de descuento (entre 0 y 100).
+     */
+    public double porcentajeDescuento(int categoria) {
+        return porcentajeDescuento[categoria];
+    }
+
+    /**
+     * Obtiene el descuento de grupo que corresponde a una compra de varias entradas.
+     *
+     * @param cantidad Cantidad de entradas compradas juntas.
+     * @return Descuento (entre 0 y 1) de la mayor tarifa alcanzada, o 0 si no alcanza ninguna.
+     */
+    public double descuentoGrupo(int cantidad) {
+        double descuento = 0.0;
+        for (int i = 0; i < minimoGrupo.length && minimoGrupo[i] <= cantidad; i++) {
+            descuento = descuentoGrupo[i];
+        }
+        return descuento;
+    }
+
+    /**
+     * Obtiene el descuento de un código promocional.
+     *
+     * @param codigo Código promocional (sin distinguir mayúsculas ni tildes).
+     * @return Descuento (entre 0 y 1), o 0 si el código no existe.
+     */
+    public double descuentoPromocion(String codigo) {
+        Double descuento = promociones.get(MapaAsientos.normalizar(codigo));
+        return descuento != null ? descuento : 0.0;
+    }
+}
\ No newline at end of file
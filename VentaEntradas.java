@@ -1,6 +1,15 @@
 package com.sistemateatromoro;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntPredicate;
 
 /**
  * Clase principal para gestionar la venta de entradas en el Teatro Moro.
@@ -8,53 +17,103 @@ import java.util.ArrayList;
  * imprimir boletas y listar las entradas vendidas.
  */
 public class VentaEntradas {
-    private Asiento[] asientos;             // Arreglo de asientos disponibles
-    private ArrayList<String> entradasVendidas; // Lista dinámica de entradas vendidas
+    static final int BITS_ID_TRAMO = 40;        // Bits del id dentro de un tramo; en un cluster cada partición usa su tramo
+    private MotorReservas motor;                // Motor concurrente de reservas de asientos (estado de cada asiento)
+    private ConcurrentHashMap<Long, Entrada> entradas; // Entradas vendidas indexadas por id
+    private AtomicLong siguienteId;             // Id de la próxima entrada vendida
+    private JournalVentas journal;              // Journal durable de ventas, o null si no se usa
+    private volatile TablaPrecios tablaPrecios; // Precios y descuentos compilados del evento
+    private final VistaDisponibilidad vista;    // Vista usada para mostrar la disponibilidad por consola
+    private volatile GestorRetenciones retenciones; // Retenciones temporales de asientos, o null si no se usan
+    private final MetricasVentas metricas;      // Contadores por sección y latencias de las operaciones
+    private final AnaliticaVentas analitica;    // Precio y descuento de cada venta, para los reportes
+    private volatile ListaEspera listaEspera;   // Clientes esperando asientos liberados, o null si no se usa
+    private final MapaPersistente estado;       // Archivo con el estado de los asientos, o null si vive en el heap
+    private volatile GeneradorBoletas boletas;  // Generador asíncrono de boletas, o null si se imprimen por consola
+    private volatile long tramoIds;             // Tramo de ids de las ventas nuevas (0 fuera de un cluster)
+    private volatile IntPredicate seccionesPropias; // Secciones que atiende este nodo del cluster, o null fuera de uno
 
     /**
-     * Constructor para inicializar el sistema de venta de entradas con una cantidad específica de asientos.
+     * Constructor para inicializar el sistema de venta de entradas con una cantidad específica de asientos,
+     * usando la distribución clásica de secciones del Teatro Moro.
      *
      * @param cantidadAsientos Número total de asientos disponibles.
      */
     public VentaEntradas(int cantidadAsientos) {
-        this.asientos = new Asiento[cantidadAsientos];
-        this.entradasVendidas = new ArrayList<>();
-        inicializarAsientos();
+        this(MapaAsientos.teatroMoro(cantidadAsientos));
     }
 
     /**
-     * Inicializa los asientos del teatro dividiéndolos en secciones.
+     * Constructor para inicializar el sistema de venta de entradas con una distribución de secciones propia.
+     * Solo se guardan los rangos de cada sección; el estado de los asientos vive en el motor de reservas.
+     *
+     * @param mapa Distribución de secciones del evento.
      */
-    private void inicializarAsientos() {
-        for (int i = 0; i < asientos.length; i++) {
-            String seccion = determinarSeccion(i);
-            asientos[i] = new Asiento(seccion, i + 1);
-        }
+    public VentaEntradas(MapaAsientos mapa) {
+        this(mapa, TablaPrecios.teatroMoro(mapa));
+    }
+
+    /**
+     * Constructor para inicializar el sistema de venta de entradas con una distribución y precios propios.
+     *
+     * @param mapa         Distribución de secciones del evento.
+     * @param tablaPrecios Precios y descuentos compilados para esa distribución.
+     */
+    public VentaEntradas(MapaAsientos mapa, TablaPrecios tablaPrecios) {
+        this(new MotorReservas(mapa), null, tablaPrecios);
+    }
+
+    /**
+     * Constructor para inicializar el sistema de venta de entradas sobre un estado de asientos guardado en un
+     * archivo mapeado en memoria: los asientos ocupados se conservan entre ejecuciones sin reconstruirlos.
+     * Las entradas vendidas (clientes y precios) se conservan solo con el journal ({@link #activarJournal}), que
+     * al activarse aplica a los asientos solo los registros posteriores a los que el estado ya refleja. Sin
+     * journal, los asientos vendidos y retenidos al terminar el proceso seguirían ocupados sin entrada, por lo
+     * que el estado debe usarse junto con el journal.
+     *
+     * @param estado       Estado de asientos abierto para escribir.
+     * @param tablaPrecios Precios y descuentos compilados para la distribución del estado.
+     */
+    public VentaEntradas(MapaPersistente estado, TablaPrecios tablaPrecios) {
+        this(new MotorReservas(estado), estado, tablaPrecios);
     }
 
     /**
-     * Determina la sección del asiento según su índice.
+     * Constructor común: inicializa las ventas sobre un motor de reservas ya creado.
      *
-     * @param indice Índice del asiento.
-     * @return Nombre de la sección correspondiente.
+     * @param motor        Motor de reservas del evento.
+     * @param estado       Archivo del estado de asientos del motor, o null.
+     * @param tablaPrecios Precios y descuentos del evento.
      */
-    private String determinarSeccion(int indice) {
-        if (indice < 10) return "VIP";
-        if (indice < 30) return "Platea baja";
-        if (indice < 50) return "Platea alta";
-        return "Galería";
+    private VentaEntradas(MotorReservas motor, MapaPersistente estado, TablaPrecios tablaPrecios) {
+        MapaAsientos mapa = motor.getMapa();
+        this.motor = motor;
+        this.estado = estado;
+        this.tablaPrecios = tablaPrecios;
+        this.entradas = new ConcurrentHashMap<>();
+        this.siguienteId = new AtomicLong(1);
+        this.vista = new VistaDisponibilidad(motor);
+        this.metricas = new MetricasVentas(motor);
+        this.analitica = new AnaliticaVentas(mapa);
     }
 
     /**
-     * Muestra la disponibilidad de los asientos en el teatro.
+     * Muestra la disponibilidad de los asientos en el teatro: un resumen por sección y la grilla de asientos,
+     * escritos en una sola impresión.
      */
     public void verDisponibilidadAsientos() {
-        System.out.println("----- Disponibilidad de Asientos -----");
-        for (Asiento asiento : asientos) {
-            String estado = asiento.isDisponible() ? "Disponible" : "Ocupado";
-            System.out.println("Sección: " + asiento.getSeccion() + ", Número: " + asiento.getNumero() + " (" + estado + ")");
+        synchronized (vista) {
+            System.out.print(vista.dibujarCompleta());
         }
-        System.out.println("--------------------------------------");
+    }
+
+    /**
+     * Crea una vista de disponibilidad propia, para una pantalla o kiosco que sigue los cambios del evento.
+     *
+     * @return Vista de disponibilidad sobre los asientos de este evento.
+     */
+    public VistaDisponibilidad crearVista() {
+        return new VistaDisponibilidad(motor);
     }
 
     /**
@@ -62,10 +121,10 @@ public class VentaEntradas {
      */
     public void listarEntradasVendidas() {
         System.out.println("----- Registro de Entradas Vendidas -----");
-        if (entradasVendidas.isEmpty()) {
+        if (entradas.isEmpty()) {
             System.out.println("No hay entradas vendidas.");
         } else {
-            for (String entrada : entradasVendidas) {
+            for (Entrada entrada : getEntradas()) {
                 System.out.println(entrada);
             }
         }
@@ -74,17 +133,472 @@ public class VentaEntradas {
 
     /**
      * Asigna un asiento disponible a un cliente en una sección específica.
+     * Es seguro llamarlo desde varios hilos: el asiento se reclama atómicamente en el motor de reservas.
      *
      * @param cliente Objeto Cliente que solicita el asiento.
      * @param seccion Sección deseada.
      * @return true si se asignó el asiento exitosamente, false de lo contrario.
      */
     public boolean asignarAsiento(Cliente cliente, String seccion) {
-        for (Asiento asiento : asientos) {
-            if (asiento.getSeccion().equalsIgnoreCase(seccion) && asiento.isDisponible()) {
-                asiento.setDisponible(false);
-                String entrada = "Cliente: " + cliente.getNombre() + ", Sección: " + asiento.getSeccion() + ", Número: " + asiento.getNumero();
-                entradasVendidas.add(entrada);
+        return venderEntrada(cliente, seccion) != null;
+    }
+
+    /**
+     * Vende una entrada a un cliente en una sección específica, con el precio y descuento que le corresponden.
+     * Es seguro llamarlo desde varios hilos: el asiento se reclama atómicamente en el motor de reservas.
+     *
+     * @param cliente Objeto Cliente que compra la entrada.
+     * @param seccion Sección deseada.
+     * @return La entrada vendida, o null si la sección no existe o está agotada.
+     */
+    public Entrada venderEntrada(Cliente cliente, String seccion) {
+        return venderEntrada(cliente, seccion, false);
+    }
+
+    /**
+     * Vende a un cliente la mejor ubicación disponible de una sección: la más adelante y centrada posible.
+     *
+     * @param cliente Objeto Cliente que compra la entrada.
+     * @param seccion Sección deseada.
+     * @return La entrada vendida, o null si la sección no existe o está agotada.
+     */
+    public Entrada venderMejorUbicacion(Cliente cliente, String seccion) {
+        return venderEntrada(cliente, seccion, true);
+    }
+
+    /**
+     * Vende una entrada, con el primer asiento libre o con la mejor ubicación disponible.
+     *
+     * @param cliente        Cliente que compra la entrada.
+     * @param seccion        Sección deseada.
+     * @param mejorUbicacion true para buscar el asiento más adelante y centrado.
+     * @return La entrada vendida, o null si la sección no existe o está agotada.
+     */
+    private Entrada venderEntrada(Cliente cliente, String seccion, boolean mejorUbicacion) {
+        long inicio = metricas.iniciar();
+        MapaAsientos mapa = motor.getMapa();
+        int idSeccion = mapa.idSeccion(seccion);
+        if (idSeccion < 0) {
+            metricas.contarSeccionInexistente();
+            return null;
+        }
+        TablaPrecios tabla = tablaPrecios;
+        if (!tabla.tienePrecio(idSeccion)) {
+            throw new IllegalArgumentException("Sección no válida: " + seccion);
+        }
+        verificarSeccionPropia(idSeccion);
+        verificarJournal();
+        int indice;
+        if (mejorUbicacion) {
+            int[] mejor = motor.reservarMejorUbicacion(idSeccion, 1);
+            indice = mejor != null ? mejor[0] : -1;
+        } else {
+            indice = motor.reservar(idSeccion);
+        }
+        if (indice < 0) {
+            metricas.contar(idSeccion, MetricasVentas.AGOTADA);
+            metricas.registrar(MetricasVentas.ASIGNACION, inicio);
+            return null;
+        }
+        Entrada entrada = registrarVenta(cliente, idSeccion, indice, tabla);
+        metricas.registrar(MetricasVentas.ASIGNACION, inicio);
+        return entrada;
+    }
+
+    /**
+     * Registra la venta de un asiento ya reservado en el motor, con el precio que le corresponde al cliente.
+     *
+     * @param cliente   Cliente que compra la entrada.
+     * @param idSeccion Id de la sección del asiento.
+     * @param indice    Índice del asiento reservado.
+     * @param tabla     Tabla de precios vigente.
+     * @return La entrada vendida.
+     * @throws UncheckedIOException  Si el journal no pudo grabar la venta; el asiento queda libre.
+     * @throws IllegalStateException Si el journal está cerrado; el asiento queda libre.
+     */
+    private Entrada registrarVenta(Cliente cliente, int idSeccion, int indice, TablaPrecios tabla) {
+        int categoria = TablaPrecios.categoriaDe(cliente);
+        Entrada entrada = new Entrada(siguienteId.getAndIncrement(), indice, motor.getMapa().nombreSeccion(idSeccion),
+                cliente, tabla.precioFinal(idSeccion, categoria), tabla.porcentajeDescuento(categoria),
+                System.currentTimeMillis());
+        publicarVentas(List.of(entrada));
+        return entrada;
+    }
+
+    /**
+     * Vende un lote de entradas en una sección a un mismo comprador (por ejemplo un colegio o una agencia),
+     * todas o ninguna. Se prefieren asientos contiguos y el lote completo se cotiza una sola vez:
+     * se aplica el mayor entre el descuento de la categoría del cliente y la tarifa de grupo.
+     *
+     * @param cliente  Cliente que compra el lote.
+     * @param seccion  Sección deseada.
+     * @param cantidad Cantidad de entradas.
+     * @return Entradas vendidas en orden de asiento, o null si la sección no existe o no quedan suficientes asientos.
+     * @throws IllegalArgumentException Si la sección no tiene precio.
+     */
+    public List<Entrada> venderLote(Cliente cliente, String seccion, int cantidad) {
+        return venderLote(cliente, seccion, cantidad, false);
+    }
+
+    /**
+     * Vende a un grupo que quiere sentarse junto la mejor ubicación disponible de una sección: asientos
+     * contiguos en una misma fila, lo más adelante y centrados posible. Si no quedan tantos asientos juntos
+     * en ninguna fila, se venden como un lote ({@link #venderLote}). El precio es el mismo que el de un lote.
+     *
+     * @param cliente  Cliente que compra las entradas.
+     * @param seccion  Sección deseada.
+     * @param cantidad Cantidad de entradas.
+     * @return Entradas vendidas en orden de asiento, o null si la sección no existe o no quedan suficientes asientos.
+     * @throws IllegalArgumentException Si la sección no tiene precio.
+     */
+    public List<Entrada> venderMejorUbicacion(Cliente cliente, String seccion, int cantidad) {
+        return venderLote(cliente, seccion, cantidad, true);
+    }
+
+    /**
+     * Vende un lote de entradas, todas o ninguna.
+     *
+     * @param cliente        Cliente que compra el lote.
+     * @param seccion        Sección deseada.
+     * @param cantidad       Cantidad de entradas.
+     * @param mejorUbicacion true para preferir el mejor tramo contiguo de una fila.
+     * @return Entradas vendidas en orden de asiento, o null si la sección no existe o no quedan suficientes asientos.
+     */
+    private List<Entrada> venderLote(Cliente cliente, String seccion, int cantidad, boolean mejorUbicacion) {
+        MapaAsientos mapa = motor.getMapa();
+        int idSeccion = mapa.idSeccion(seccion);
+        if (idSeccion < 0) {
+            metricas.contarSeccionInexistente();
+            return null;
+        }
+        TablaPrecios tabla = tablaPrecios;
+        if (!tabla.tienePrecio(idSeccion)) {
+            throw new IllegalArgumentException("Sección no válida: " + seccion);
+        }
+        int categoria = TablaPrecios.categoriaDe(cliente);
+        double precio = tabla.precioFinal(idSeccion, categoria);
+        double porcentaje = tabla.porcentajeDescuento(categoria);
+        double grupo = tabla.descuentoGrupo(cantidad);
+        if (grupo * 100 > porcentaje) {
+            precio = tabla.precioBase(idSeccion) * (1 - grupo);
+            porcentaje = grupo * 100;
+        }
+
+        verificarSeccionPropia(idSeccion);
+        verificarJournal();
+        int[] indices = mejorUbicacion ? motor.reservarMejorUbicacion(idSeccion, cantidad) : null;
+        if (indices == null) {
+            indices = motor.reservarLote(idSeccion, cantidad);
+        }
+        if (indices == null) {
+            metricas.contar(idSeccion, MetricasVentas.AGOTADA);
+            return null;
+        }
+        String nombreSeccion = mapa.nombreSeccion(idSeccion);
+        long primerId = siguienteId.getAndAdd(cantidad);
+        long fecha = System.currentTimeMillis();
+        List<Entrada> lote = new ArrayList<>(cantidad);
+        for (int i = 0; i < cantidad; i++) {
+            lote.add(new Entrada(primerId + i, indices[i], nombreSeccion, cliente, precio, porcentaje, fecha));
+        }
+        publicarVentas(lote); // Un solo fsync para todo el lote
+        return lote;
+    }
+
+    /**
+     * Activa las retenciones temporales de asientos, cuyo vencimiento maneja la rueda indicada.
+     *
+     * @param rueda Rueda de temporizadores en marcha (puede compartirse entre eventos).
+     */
+    public void activarRetenciones(RuedaTemporizadores rueda) {
+        this.retenciones = new GestorRetenciones(motor, rueda);
+    }
+
+    /**
+     * Obtiene el gestor de retenciones del evento.
+     *
+     * @return Gestor de retenciones, o null si no se activaron.
+     */
+    public GestorRetenciones getRetenciones() {
+        return retenciones;
+    }
+
+    /**
+     * Retiene un asiento de una sección mientras el cliente paga. Si la retención no se confirma
+     * dentro del plazo, el asiento vuelve automáticamente a estar disponible.
+     *
+     * @param cliente     Cliente que retiene el asiento.
+     * @param seccion     Sección deseada.
+     * @param plazoMillis Plazo de la retención en milisegundos.
+     * @return La retención, o null si la sección no existe o está agotada.
+     * @throws IllegalStateException    Si las retenciones no están activadas o la sección la atiende otro nodo.
+     * @throws IllegalArgumentException Si la sección no tiene precio.
+     */
+    public GestorRetenciones.Retencion retenerAsiento(Cliente cliente, String seccion, long plazoMillis) {
+        GestorRetenciones gestor = gestorRetenciones();
+        int idSeccion = motor.getMapa().idSeccion(seccion);
+        if (idSeccion < 0) {
+            return null;
+        }
+        if (!tablaPrecios.tienePrecio(idSeccion)) {
+            throw new IllegalArgumentException("Sección no válida: " + seccion);
+        }
+        verificarSeccionPropia(idSeccion);
+        GestorRetenciones.Retencion retencion = gestor.retener(idSeccion, cliente, plazoMillis);
+        metricas.contar(idSeccion, retencion != null ? MetricasVentas.RETENIDA : MetricasVentas.AGOTADA);
+        return retencion;
+    }
+
+    /**
+     * Confirma una retención vigente y vende la entrada del asiento retenido.
+     *
+     * @param idRetencion Id de la retención.
+     * @return La entrada vendida, o null si la retención no existe o ya venció.
+     * @throws IllegalStateException Si las retenciones no están activadas o la sección pasó a otro nodo;
+     *                               en ese caso el asiento se libera.
+     */
+    public Entrada confirmarRetencion(long idRetencion) {
+        verificarJournal(); // Con el journal caído la retención sigue vigente en lugar de perderse
+        GestorRetenciones.Retencion retencion = gestorRetenciones().tomar(idRetencion);
+        if (retencion == null) {
+            return null;
+        }
+        if (!esSeccionPropia(retencion.getIdSeccion())) { // Otro nodo asumió la sección mientras se pagaba
+            motor.liberar(retencion.getIndiceAsiento());
+            verificarSeccionPropia(retencion.getIdSeccion());
+        }
+        Entrada entrada = registrarVenta(retencion.getCliente(), retencion.getIdSeccion(),
+                retencion.getIndiceAsiento(), tablaPrecios);
+        metricas.contar(retencion.getIdSeccion(), MetricasVentas.CONFIRMADA);
+        return entrada;
+    }
+
+    /**
+     * Libera una retención antes de su plazo, devolviendo el asiento a los disponibles.
+     *
+     * @param idRetencion Id de la retención.
+     * @return true si la retención estaba vigente, false de lo contrario.
+     * @throws IllegalStateException Si las retenciones no están activadas.
+     */
+    public boolean liberarRetencion(long idRetencion) {
+        return gestorRetenciones().liberar(idRetencion);
+    }
+
+    /**
+     * Activa la lista de espera: los clientes que encuentran una sección agotada pueden inscribirse, y cada
+     * asiento que se libere en la sección se vende automáticamente al primero de la cola.
+     *
+     * @param capacidadPorSeccion Solicitudes en espera por sección, como máximo.
+     * @param rueda               Rueda de temporizadores en marcha, que descarta las solicitudes asignadas que
+     *                            el cliente no consulta (puede compartirse entre eventos).
+     * @throws IllegalArgumentException Si la capacidad no es positiva.
+     */
+    public void activarListaEspera(int capacidadPorSeccion, RuedaTemporizadores rueda) {
+        ListaEspera lista = new ListaEspera(this, motor, capacidadPorSeccion, rueda);
+        ListaEspera anterior = listaEspera;
+        this.listaEspera = lista;
+        motor.setAlLiberar(lista::avisar);
+        if (anterior != null) {
+            anterior.close();
+        }
+    }
+
+    /**
+     * Obtiene la lista de espera del evento.
+     *
+     * @return Lista de espera, o null si no se activó.
+     */
+    public ListaEspera getListaEspera() {
+        return listaEspera;
+    }
+
+    /**
+     * Inscribe a un cliente en la lista de espera de una sección agotada.
+     *
+     * @param cliente   Cliente que espera.
+     * @param seccion   Sección deseada.
+     * @param prioridad {@link ListaEspera#NORMAL} o {@link ListaEspera#PREFERENTE}.
+     * @return La solicitud, o null si la sección no existe o su cola está llena.
+     * @throws IllegalStateException    Si la lista de espera no está activada o la sección la atiende otro nodo.
+     * @throws IllegalArgumentException Si la sección no tiene precio o la prioridad no es válida.
+     */
+    public ListaEspera.Solicitud esperarAsiento(Cliente cliente, String seccion, int prioridad) {
+        ListaEspera lista = listaEspera;
+        if (lista == null) {
+            throw new IllegalStateException("La lista de espera no está activada.");
+        }
+        int idSeccion = motor.getMapa().idSeccion(seccion);
+        if (idSeccion < 0) {
+            return null;
+        }
+        if (!tablaPrecios.tienePrecio(idSeccion)) {
+            throw new IllegalArgumentException("Sección no válida: " + seccion);
+        }
+        verificarSeccionPropia(idSeccion);
+        return lista.inscribir(idSeccion, cliente, prioridad);
+    }
+
+    /**
+     * Vende un asiento de una sección a cada cliente de una lista, en orden, mientras queden asientos.
+     * Cada cliente paga el precio de su categoría y, con journal, todo el lote se confirma con un solo fsync.
+     *
+     * @param idSeccion Id de la sección.
+     * @param clientes  Clientes, en el orden en que se atienden.
+     * @return Entradas vendidas a los primeros clientes de la lista; menos que clientes si la sección se agotó.
+     * @throws RuntimeException Si la venta falla; en ese caso no queda reservado ningún asiento del lote.
+     */
+    List<Entrada> venderEnLote(int idSeccion, List<Cliente> clientes) {
+        TablaPrecios tabla = tablaPrecios;
+        String nombreSeccion = motor.getMapa().nombreSeccion(idSeccion);
+        verificarSeccionPropia(idSeccion);
+        verificarJournal();
+        int[] indices = new int[clientes.size()];
+        int reservados = 0;
+        while (reservados < indices.length && (indices[reservados] = motor.reservar(idSeccion)) >= 0) {
+            reservados++;
+        }
+        List<Entrada> lote = new ArrayList<>(reservados);
+        if (reservados == 0) {
+            return lote;
+        }
+        long primerId = siguienteId.getAndAdd(reservados);
+        long fecha = System.currentTimeMillis();
+        try {
+            for (int i = 0; i < reservados; i++) {
+                Cliente cliente = clientes.get(i);
+                int categoria = TablaPrecios.categoriaDe(cliente);
+                lote.add(new Entrada(primerId + i, indices[i], nombreSeccion, cliente,
+                        tabla.precioFinal(idSeccion, categoria), tabla.porcentajeDescuento(categoria), fecha));
+            }
+        } catch (RuntimeException e) {
+            for (int i = 0; i < reservados; i++) {
+                motor.liberar(indices[i]);
+            }
+            throw e;
+        }
+        publicarVentas(lote); // Un solo fsync para todo el lote; si falla, libera los asientos del lote
+        return lote;
+    }
+
+    /**
+     * Obtiene el gestor de retenciones, verificando que estén activadas.
+     *
+     * @return Gestor de retenciones.
+     */
+    private GestorRetenciones gestorRetenciones() {
+        GestorRetenciones gestor = retenciones;
+        if (gestor == null) {
+            throw new IllegalStateException("Las retenciones de asientos no están activadas.");
+        }
+        return gestor;
+    }
+
+    /**
+     * Busca una entrada vendida por su id.
+     *
+     * @param id Id de la entrada.
+     * @return La entrada, o null si no existe o fue anulada.
+     */
+    public Entrada buscarEntrada(long id) {
+        return entradas.get(id);
+    }
+
+    /**
+     * Anula una entrada vendida por su id y libera su asiento.
+     * Si dos hilos anulan la misma entrada, solo uno la obtiene y el asiento se libera una sola vez.
+     *
+     * @param id Id de la entrada.
+     * @return La entrada anulada, o null si no existe o ya fue anulada.
+     */
+    public Entrada anularEntrada(long id) {
+        long inicio = metricas.iniciar();
+        Entrada entrada = quitarEntrada(id);
+        metricas.registrar(MetricasVentas.ANULACION, inicio);
+        return entrada;
+    }
+
+    /**
+     * Quita una entrada vendida, registra la anulación en el journal si está activo y libera su asiento.
+     *
+     * @param id Id de la entrada.
+     * @return La entrada quitada, o null si no existe o ya fue anulada.
+     */
+    private Entrada quitarEntrada(long id) {
+        Entrada entrada;
+        if (journal == null) {
+            entrada = entradas.remove(id);
+            if (entrada != null) {
+                analitica.anular(entrada);
+                motor.liberar(entrada.getIndiceAsiento());
+            }
+            return entrada;
+        }
+        entrada = entradas.remove(id); // Solo un hilo obtiene la entrada, sin bloquear a las demás ventas
+        if (entrada == null) {
+            return null;
+        }
+        long posicion;
+        try {
+            posicion = journal.registrarAnulacion(id);
+        } catch (RuntimeException e) {
+            entradas.put(id, entrada); // Si el journal no la acepta, la entrada sigue vendida
+            throw e;
+        }
+        // El asiento se libera después de registrar la anulación, así una nueva venta del mismo asiento
+        // siempre queda después en el journal
+        analitica.anular(entrada);
+        motor.liberar(entrada.getIndiceAsiento());
+        confirmarEnJournal(posicion);
+        return entrada;
+    }
+
+    /**
+     * Obtiene la cantidad de asientos disponibles en una sección.
+     *
+     * @param seccion Nombre de la sección.
+     * @return Cantidad de asientos libres, o 0 si la sección no existe.
+     */
+    public int contarDisponibles(String seccion) {
+        int idSeccion = motor.getMapa().idSeccion(seccion);
+        return idSeccion < 0 ? 0 : motor.disponibles(idSeccion);
+    }
+
+    /**
+     * Obtiene la cantidad de asientos vendidos en una sección, sin contar los retenidos mientras se paga.
+     * Se calcula con los contadores de la sección, sin recorrer los asientos.
+     *
+     * @param seccion Nombre de la sección.
+     * @return Cantidad de asientos vendidos, o 0 si la sección no existe.
+     */
+    public int contarVendidos(String seccion) {
+        MapaAsientos mapa = motor.getMapa();
+        int idSeccion = mapa.idSeccion(seccion);
+        if (idSeccion < 0) {
+            return 0;
+        }
+        GestorRetenciones gestor = retenciones;
+        int retenidos = gestor != null ? gestor.getVigentes(idSeccion) : 0;
+        return Math.max(0, mapa.fin(idSeccion) - mapa.inicio(idSeccion) - motor.disponibles(idSeccion) - retenidos);
+    }
+
+    /**
+     * Indica si una sección está agotada, para rechazar una venta antes de pedir los datos del cliente.
+     *
+     * @param seccion Nombre de la sección.
+     * @return true si no quedan asientos disponibles en la sección o si la sección no existe.
+     */
+    public boolean estaAgotada(String seccion) {
+        return contarDisponibles(seccion) == 0;
+    }
+
+    /**
+     * Indica si queda algún asiento disponible en el evento.
+     *
+     * @return true si al menos una sección tiene asientos disponibles.
+     */
+    public boolean hayDisponibles() {
+        for (int id = 0; id < motor.getMapa().getCantidadSecciones(); id++) {
+            if (motor.disponibles(id) > 0) {
                 return true;
             }
         }
@@ -92,21 +606,107 @@ public class VentaEntradas {
     }
 
     /**
-     * Imprime la boleta de una entrada comprada.
+     * Obtiene las métricas de ejecución de las ventas del evento.
+     *
+     * @return Métricas de ventas.
+     */
+    public MetricasVentas getMetricas() {
+        return metricas;
+    }
+
+    /**
+     * Obtiene la analítica de ventas del evento, para calcular reportes de ingresos y ocupación.
+     *
+     * @return Analítica del evento.
+     */
+    public AnaliticaVentas getAnalitica() {
+        return analitica;
+    }
+
+    /**
+     * Obtiene la distribución de secciones del teatro.
+     *
+     * @return Mapa de asientos.
+     */
+    public MapaAsientos getMapa() {
+        return motor.getMapa();
+    }
+
+    /**
+     * Obtiene una vista del asiento con el número indicado.
+     * La vista no copia el estado: lee y modifica la disponibilidad en el motor de reservas.
+     *
+     * @param numero Número del asiento (desde 1).
+     * @return Asiento correspondiente.
+     * @throws IndexOutOfBoundsException Si el número de asiento es inválido.
+     */
+    public Asiento getAsiento(int numero) {
+        return new Asiento(motor, numero - 1);
+    }
+
+    /**
+     * Obtiene la cantidad total de asientos del teatro.
      *
-     * @param cliente             Objeto Cliente que realizó la compra.
-     * @param precioFinal         Precio final con descuento aplicado.
-     * @param seccion             Sección del asiento comprado.
-     * @param porcentajeDescuento Porcentaje de descuento aplicado.
+     * @return Número total de asientos.
      */
-    public void imprimirBoleta(Cliente cliente, double precioFinal, String seccion, double porcentajeDescuento) {
-        System.out.println("\n========== BOLETA ==========");
-        System.out.println("Cliente: " + cliente.getNombre());
-        System.out.println("Edad: " + cliente.getEdad());
-        System.out.println("Sección: " + seccion.toUpperCase());
-        System.out.printf("Precio final: $%.2f\n", precioFinal);
-        System.out.printf("Descuento aplicado: %.0f%%\n", porcentajeDescuento);
-        System.out.println("=============================");
+    public int getCantidadAsientos() {
+        return motor.getMapa().getCapacidad();
+    }
+
+    /**
+     * Imprime la boleta de una entrada comprada. Con el generador de boletas activado ({@link #activarBoletas})
+     * la boleta solo se encola y se escribe en su destino en segundo plano; si no, se imprime por consola.
+     *
+     * @param entrada Entrada vendida.
+     */
+    public void imprimirBoleta(Entrada entrada) {
+        long inicio = metricas.iniciarSinMuestreo();
+        GeneradorBoletas generador = boletas;
+        if (generador != null) {
+            generador.emitir(entrada);
+        } else {
+            byte[] boleta = GeneradorBoletas.formatear(entrada);
+            System.out.write(boleta, 0, boleta.length);
+            System.out.flush();
+        }
+        metricas.registrar(MetricasVentas.BOLETA, inicio);
+    }
+
+    /**
+     * Encola las boletas de entradas vendidas si el generador de boletas está activado; si no, no hace nada.
+     * Es la forma de emitir boletas en los canales sin consola, como el servidor o la lista de espera.
+     *
+     * @param vendidas Entradas vendidas.
+     */
+    public void emitirBoletas(List<Entrada> vendidas) {
+        GeneradorBoletas generador = boletas;
+        if (generador != null && !vendidas.isEmpty()) {
+            generador.emitir(vendidas);
+        }
+    }
+
+    /**
+     * Activa la generación asíncrona de boletas hacia un destino. Si ya había un generador, se cierra
+     * después de escribir sus boletas pendientes.
+     *
+     * @param destino Destino de las boletas.
+     * @throws IOException Si el generador anterior no pudo escribir sus boletas.
+     */
+    public void activarBoletas(DestinoBoletas destino) throws IOException {
+        GeneradorBoletas anterior = boletas;
+        this.boletas = new GeneradorBoletas(destino);
+        if (anterior != null) {
+            anterior.close();
+        }
+    }
+
+    /**
+     * Obtiene el generador de boletas del evento.
+     *
+     * @return Generador de boletas, o null si no se activó.
+     */
+    public GeneradorBoletas getBoletas() {
+        return boletas;
     }
 
     /**
@@ -142,65 +742,93 @@ public class VentaEntradas {
      * @param cliente Objeto Cliente que realiza la compra.
      * @param seccion Sección seleccionada.
      * @return Objeto ResultadoDescuento con el precio final y el porcentaje de descuento.
+     * @throws IllegalArgumentException Si la sección no existe o no tiene precio.
      */
     public ResultadoDescuento calcularPrecioFinal(Cliente cliente, String seccion) {
-        double descuento = 0.0;
-        double precioBase;
-
-        // Normalizar la sección eliminando tildes y convirtiendo a mayúsculas
-        seccion = eliminarTildes(seccion).toUpperCase();
-
-        // Asignar el precio base según la sección seleccionada
-        switch (seccion) {
-            case "VIP":
-                precioBase = 30000.0; // Precio para VIP
-                break;
-            case "PLATEA BAJA":
-                precioBase = 20000.0; // Precio para Platea Baja
-                break;
-            case "PLATEA ALTA":
-                precioBase = 15000.0; // Precio para Platea Alta
-                break;
-            case "GALERIA":
-                precioBase = 10000.0; // Precio para Galería
-                break;
-            default:
-                throw new IllegalArgumentException("Sección no válida: " + seccion);
-        }
-
-        // Aplicar descuentos según las características del cliente
-        if (cliente.getEdad() < 18) { // Niños
-            descuento = 0.1;
-        } else if (cliente.isEstudiante()) { // Estudiantes
-            descuento = 0.15;
-        } else if (cliente.getEdad() > 60) { // Personas de tercera edad
-            descuento = 0.25;
-        } else if (cliente.getSexo().equalsIgnoreCase("mujer")) { // Mujeres
-            descuento = 0.2;
-        }
-
-        double precioFinal = precioBase * (1 - descuento);
-        return new ResultadoDescuento(precioFinal, descuento * 100); // Retornar el porcentaje de descuento
-    }
-
-    /**
-     * Elimina tildes de un texto y lo convierte a mayúsculas.
-     *
-     * @param texto Texto original.
-     * @return Texto sin tildes y en mayúsculas.
-     */
-    private String eliminarTildes(String texto) {
-        return texto
-            .replace("á", "a")
-            .replace("é", "e")
-            .replace("í", "i")
-            .replace("ó", "o")
-            .replace("ú", "u")
-            .replace("Á", "A")
-            .replace("É", "E")
-            .replace("Í", "I")
-            .replace("Ó", "O")
-            .replace("Ú", "U");
+        return calcularPrecioFinal(cliente, seccion, null);
+    }
+
+    /**
+     * Calcula el precio final de una entrada aplicando los descuentos correspondientes y un código promocional.
+     * Si el código da un descuento mayor que el de la categoría del cliente, se aplica el del código.
+     *
+     * @param cliente         Objeto Cliente que realiza la compra.
+     * @param seccion         Sección seleccionada.
+     * @param codigoPromocion Código promocional, o null si no se usa.
+     * @return Objeto ResultadoDescuento con el precio final y el porcentaje de descuento.
+     * @throws IllegalArgumentException Si la sección no existe o no tiene precio.
+     */
+    public ResultadoDescuento calcularPrecioFinal(Cliente cliente, String seccion, String codigoPromocion) {
+        long inicio = metricas.iniciar();
+        int idSeccion = idSeccionConPrecio(seccion);
+        int categoria = TablaPrecios.categoriaDe(cliente);
+        double precioFinal = tablaPrecios.precioFinal(idSeccion, categoria);
+        double porcentaje = tablaPrecios.porcentajeDescuento(categoria);
+        if (codigoPromocion != null) {
+            double promocion = tablaPrecios.descuentoPromocion(codigoPromocion);
+            if (promocion * 100 > porcentaje) {
+                precioFinal = tablaPrecios.precioBase(idSeccion) * (1 - promocion);
+                porcentaje = promocion * 100;
+            }
+        }
+        metricas.registrar(MetricasVentas.PRECIO, inicio);
+        return new ResultadoDescuento(precioFinal, porcentaje);
+    }
+
+    /**
+     * Obtiene el id de una sección que se puede vender.
+     *
+     * @param seccion Nombre de la sección.
+     * @return Id de la sección.
+     * @throws IllegalArgumentException Si la sección no existe o no tiene precio.
+     */
+    private int idSeccionConPrecio(String seccion) {
+        int idSeccion = motor.getMapa().idSeccion(seccion);
+        if (idSeccion < 0 || !tablaPrecios.tienePrecio(idSeccion)) {
+            throw new IllegalArgumentException("Sección no válida: " + seccion);
+        }
+        return idSeccion;
+    }
+
+    /**
+     * Obtiene la tabla de precios del evento.
+     *
+     * @return Tabla de precios compilada.
+     */
+    public TablaPrecios getTablaPrecios() {
+        return tablaPrecios;
+    }
+
+    /**
+     * Reemplaza la tabla de precios del evento, por ejemplo al cambiar las tarifas.
+     * Las ventas siguientes usan la nueva tabla; las entradas ya vendidas conservan su precio.
+     *
+     * @param tablaPrecios Tabla de precios compilada para el mapa de este evento.
+     */
+    public void setTablaPrecios(TablaPrecios tablaPrecios) {
+        this.tablaPrecios = tablaPrecios;
+    }
+
+    /**
+     * Obtiene las entradas vendidas, ordenadas por id (orden de venta).
+     *
+     * @return Lista de entradas vendidas.
+     */
+    public ArrayList<Entrada> getEntradas() {
+        ArrayList<Entrada> lista = new ArrayList<>(entradas.values());
+        lista.sort(Comparator.comparingLong(Entrada::getId));
+        return lista;
+    }
+
+    /**
+     * Recorre las entradas vendidas sin copiarlas ni ordenarlas, para procesar millones de entradas
+     * con memoria constante. El recorrido no se bloquea con ventas concurrentes: refleja las entradas
+     * vendidas al comenzar y puede incluir o no las vendidas o anuladas durante el recorrido.
+     *
+     * @return Entradas vendidas, en un orden no especificado.
+     */
+    public Iterable<Entrada> recorrerEntradas() {
+        return Collections.unmodifiableCollection(entradas.values());
     }
 
     /**
@@ -209,21 +837,312 @@ public class VentaEntradas {
      * @return Lista de entradas vendidas.
      */
     public ArrayList<String> getEntradasVendidas() {
-        return entradasVendidas;
+        ArrayList<String> lista = new ArrayList<>();
+        for (Entrada entrada : getEntradas()) {
+            lista.add(entrada.toString());
+        }
+        return lista;
     }
 
     /**
-     * Elimina una entrada vendida por su índice.
+     * Elimina una entrada vendida por su posición en la lista de entradas vendidas y libera su asiento.
      *
      * @param index Índice de la entrada a eliminar.
      * @return Entrada eliminada.
      * @throws IndexOutOfBoundsException Si el índice es inválido.
      */
     public String eliminarEntrada(int index) {
-        if (index >= 0 && index < entradasVendidas.size()) {
-            return entradasVendidas.remove(index);
+        ArrayList<Entrada> lista = getEntradas();
+        if (index >= 0 && index < lista.size()) {
+            Entrada eliminada = anularEntrada(lista.get(index).getId());
+            if (eliminada != null) {
+                return eliminada.toString();
+            }
+        }
+        throw new IndexOutOfBoundsException("Índice inválido para eliminar entrada.");
+    }
+
+    /**
+     * Activa el journal de ventas: restaura el estado guardado en él y desde ese momento
+     * registra cada venta y anulación antes de confirmarla.
+     * Con un estado de asientos que se cerró correctamente junto con el journal, sus asientos se usan tal cual y
+     * solo se aplican los registros posteriores a la posición guardada en él, sin recorrer los asientos; si no,
+     * los asientos se concilian con las entradas recuperadas.
+     *
+     * @param journal Journal de ventas recién abierto.
+     * @throws IOException Si no se puede leer el journal o su instantánea.
+     */
+    public void activarJournal(JournalVentas journal) throws IOException {
+        if (estado == null || estado.isNuevo()) {
+            journal.recuperar(this);
         } else {
-            throw new IndexOutOfBoundsException("Índice inválido para eliminar entrada.");
+            long aplicadoHasta = estado.getPosicionJournal(); // -1 si el proceso anterior no cerró el estado
+            if (!journal.recuperar(this, aplicadoHasta) || aplicadoHasta < 0) {
+                conciliarAsientos();
+            }
+        }
+        this.journal = journal;
+    }
+
+    /**
+     * Deja ocupados exactamente los asientos de las entradas recuperadas del journal: reserva los que el estado
+     * guardado tiene libres y libera los que tiene ocupados sin entrada, como retenciones que no alcanzaron a
+     * confirmarse y ventas que no llegaron al journal.
+     */
+    private void conciliarAsientos() {
+        BitSet vendidos = new BitSet(motor.getMapa().getCapacidad());
+        for (Entrada entrada : entradas.values()) {
+            vendidos.set(entrada.getIndiceAsiento());
+            motor.reservarAsiento(entrada.getIndiceAsiento()); // No hace nada si ya está ocupado
+        }
+        for (int indice = 0; indice < motor.getMapa().getCapacidad(); indice++) {
+            if (!vendidos.get(indice) && !motor.estaDisponible(indice)) {
+                motor.liberar(indice);
+            }
+        }
+    }
+
+    /**
+     * Obtiene el archivo donde se guarda el estado de los asientos.
+     *
+     * @return Estado de asientos mapeado, o null si los asientos viven en el heap.
+     */
+    public MapaPersistente getEstadoPersistente() {
+        return estado;
+    }
+
+    /**
+     * Publica entradas cuyos asientos ya están reservados en el motor: las registra en el journal, si está activo,
+     * y las deja visibles para consultas y anulaciones. Si el journal falla, se deshace el lote completo (se quitan
+     * las entradas y se liberan sus asientos) antes de propagar el error, así una venta fallida no deja asientos
+     * tomados ni entradas en memoria. No se toma ningún bloqueo del evento: el orden lo da anexar al journal antes
+     * de publicar, y el journal solo se bloquea para copiar los registros ya codificados.
+     *
+     * @param lote Entradas a publicar.
+     * @throws UncheckedIOException  Si el journal no pudo grabar el lote.
+     * @throws IllegalStateException Si el journal está cerrado.
+     */
+    private void publicarVentas(List<Entrada> lote) {
+        JournalVentas activo = journal;
+        if (activo == null) {
+            for (Entrada entrada : lote) {
+                analitica.registrar(entrada); // Antes de publicarla, así una anulación siempre llega después
+                entradas.put(entrada.getId(), entrada);
+            }
+            return;
+        }
+        long posicion;
+        try {
+            posicion = activo.registrarVentas(lote); // Antes de publicarlas: su anulación siempre va después
+        } catch (RuntimeException e) {
+            deshacerVentas(lote, 0);
+            throw e;
+        }
+        for (Entrada entrada : lote) {
+            analitica.registrar(entrada);
+            entradas.put(entrada.getId(), entrada);
+        }
+        try {
+            activo.esperarDurable(posicion);
+        } catch (RuntimeException e) {
+            deshacerVentas(lote, lote.size());
+            throw e;
+        }
+        activo.solicitarInstantanea();
+    }
+
+    /**
+     * Deshace un lote de ventas que el journal no pudo grabar.
+     *
+     * @param lote       Entradas del lote, todas con su asiento reservado.
+     * @param publicadas Cantidad de entradas del comienzo del lote que alcanzaron a publicarse.
+     */
+    private void deshacerVentas(List<Entrada> lote, int publicadas) {
+        for (int i = 0; i < lote.size(); i++) {
+            Entrada entrada = lote.get(i);
+            if (i < publicadas) {
+                if (!entradas.remove(entrada.getId(), entrada)) {
+                    continue; // Ya se anuló y su asiento se liberó (quizás para otra venta)
+                }
+                analitica.anular(entrada);
+            }
+            motor.liberar(entrada.getIndiceAsiento());
+        }
+    }
+
+    /**
+     * Verifica que el journal, si está activo, todavía acepte ventas, antes de reservar asientos.
+     *
+     * @throws UncheckedIOException  Si el journal ya falló.
+     * @throws IllegalStateException Si el journal está cerrado.
+     */
+    private void verificarJournal() {
+        JournalVentas activo = journal;
+        if (activo != null) {
+            activo.verificarDisponible();
+        }
+    }
+
+    /**
+     * Espera a que la operación quede grabada en el journal y, si corresponde, pide una instantánea,
+     * que se toma en segundo plano.
+     * Se llama fuera del bloqueo de las entradas, así varias ventas comparten el mismo fsync.
+     *
+     * @param posicion Posición del journal devuelta al registrar la operación.
+     */
+    private void confirmarEnJournal(long posicion) {
+        if (journal == null) {
+            return;
+        }
+        journal.esperarDurable(posicion);
+        journal.solicitarInstantanea();
+    }
+
+    /**
+     * Registra un lote de entradas vendidas por otro canal. Cada asiento indicado se reserva en el motor;
+     * las entradas cuyo asiento no existe, no corresponde a su sección, está en una sección que atiende otro
+     * nodo del cluster o ya está ocupado se rechazan.
+     * Las aceptadas reciben ids nuevos de este evento y, con journal, se confirman con un solo fsync por lote.
+     *
+     * @param lote Entradas a registrar (su id se ignora).
+     * @return Cantidad de entradas registradas.
+     */
+    int importarLote(List<Entrada> lote) {
+        MapaAsientos mapa = motor.getMapa();
+        verificarJournal();
+        List<Entrada> aceptadas = new ArrayList<>(lote.size());
+        for (Entrada entrada : lote) {
+            int indice = entrada.getIndiceAsiento();
+            if (indice < 0 || indice >= mapa.getCapacidad()) {
+                continue;
+            }
+            int idSeccion = mapa.seccionDe(indice);
+            if (mapa.idSeccion(entrada.getSeccion()) != idSeccion || !esSeccionPropia(idSeccion)
+                    || !motor.reservarAsiento(indice)) {
+                continue;
+            }
+            aceptadas.add(entrada);
+        }
+        if (aceptadas.isEmpty()) {
+            return 0;
+        }
+        long primerId = siguienteId.getAndAdd(aceptadas.size());
+        for (int i = 0; i < aceptadas.size(); i++) {
+            Entrada entrada = aceptadas.get(i);
+            aceptadas.set(i, new Entrada(primerId + i, entrada.getIndiceAsiento(),
+                    mapa.nombreSeccion(mapa.seccionDe(entrada.getIndiceAsiento())), entrada.getCliente(),
+                    entrada.getPrecio(), entrada.getPorcentajeDescuento(), entrada.getFechaVenta()));
+        }
+        publicarVentas(aceptadas); // Un solo fsync para todo el lote
+        return aceptadas.size();
+    }
+
+    /**
+     * Hace que las ventas nuevas reciban ids del tramo indicado, de modo que las entradas vendidas por distintos
+     * nodos de un cluster nunca compartan id y el id baste para saber qué partición vendió cada entrada.
+     * Debe llamarse antes de vender y antes de activar el journal.
+     *
+     * @param tramo Tramo de ids (el número de partición).
+     */
+    void usarTramoIds(int tramo) {
+        this.tramoIds = tramo;
+        siguienteId.set(((long) tramo << BITS_ID_TRAMO) + 1);
+    }
+
+    /**
+     * Limita las ventas, retenciones e inscripciones en espera a las secciones que atiende este nodo del
+     * cluster. La condición se evalúa en cada operación, así una sección que pasa a otro nodo deja de venderse
+     * aquí de inmediato. Las entradas adoptadas y las recuperadas del journal no se limitan.
+     *
+     * @param atiende Indica si este nodo atiende una sección, por su id.
+     */
+    void usarSeccionesPropias(IntPredicate atiende) {
+        this.seccionesPropias = atiende;
+    }
+
+    /**
+     * Indica si este nodo puede vender una sección: siempre fuera de un cluster.
+     *
+     * @param idSeccion Id de la sección.
+     * @return true si la sección la atiende este nodo.
+     */
+    private boolean esSeccionPropia(int idSeccion) {
+        IntPredicate atiende = seccionesPropias;
+        return atiende == null || atiende.test(idSeccion);
+    }
+
+    /**
+     * Verifica que este nodo atienda una sección antes de reservar sus asientos.
+     *
+     * @param idSeccion Id de la sección.
+     * @throws IllegalStateException Si la sección la atiende otro nodo del cluster.
+     */
+    private void verificarSeccionPropia(int idSeccion) {
+        if (!esSeccionPropia(idSeccion)) {
+            throw new IllegalStateException("La sección " + motor.getMapa().nombreSeccion(idSeccion)
+                    + " la atiende otro nodo del cluster.");
+        }
+    }
+
+    /**
+     * Adopta las entradas vendidas por otro nodo del cluster cuando este asume sus secciones: conservan su id,
+     * sus asientos se reservan aquí y, con journal, quedan grabadas con un solo fsync para que sobrevivan a un
+     * reinicio de este nodo. Se omiten las entradas cuyo asiento ya está ocupado aquí.
+     *
+     * @param adoptadas Entradas del otro nodo.
+     * @return Cantidad de entradas adoptadas.
+     */
+    int adoptarEntradas(Iterable<Entrada> adoptadas) {
+        verificarJournal();
+        List<Entrada> aceptadas = new ArrayList<>();
+        for (Entrada entrada : adoptadas) {
+            if (!entradas.containsKey(entrada.getId()) && motor.reservarAsiento(entrada.getIndiceAsiento())) {
+                aceptadas.add(entrada);
+            }
+        }
+        publicarVentas(aceptadas);
+        return aceptadas.size();
+    }
+
+    /**
+     * Obtiene el journal de ventas del evento.
+     *
+     * @return Journal activo, o null si no se usa.
+     */
+    JournalVentas getJournal() {
+        return journal;
+    }
+
+    /**
+     * Restaura una entrada vendida (y su asiento) al reconstruir el estado desde el journal.
+     *
+     * @param entrada     Entrada vendida.
+     * @param conAsiento  true para reservar su asiento; false si el estado de asientos ya lo tiene ocupado.
+     */
+    void restaurarEntrada(Entrada entrada, boolean conAsiento) {
+        if (conAsiento) {
+            motor.reservarAsiento(entrada.getIndiceAsiento());
+        }
+        analitica.registrar(entrada);
+        entradas.put(entrada.getId(), entrada);
+        if (entrada.getId() >>> BITS_ID_TRAMO == tramoIds) { // Las adoptadas de otra partición no mueven los ids propios
+            siguienteId.accumulateAndGet(entrada.getId() + 1, Math::max);
+        }
+    }
+
+    /**
+     * Anula una entrada al reconstruir el estado desde el journal.
+     *
+     * @param id         Id de la entrada anulada.
+     * @param conAsiento true para liberar su asiento; false si el estado de asientos ya lo tiene libre.
+     */
+    void restaurarAnulacion(long id, boolean conAsiento) {
+        Entrada entrada = entradas.remove(id);
+        if (entrada != null) {
+            analitica.anular(entrada);
+            if (conAsiento) {
+                motor.liberar(entrada.getIndiceAsiento());
+            }
         }
     }
 }
\ No newline at end of file
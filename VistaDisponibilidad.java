@@ -0,0 +1,167 @@
+package com.sistemateatromoro;
+
+/**
+ * Vista de la disponibilidad de asientos de un evento.
+ * Dibuja un resumen por sección y una grilla de asientos en un único buffer que se reutiliza entre
+ * llamadas, para imprimirlo de una sola vez. También puede entregar solo los asientos que cambiaron
+ * desde una versión anterior, de modo que pantallas y kioscos no reciban el mapa completo cada vez.
+ *
+ * Una vista no es segura para usarse desde varios hilos: cada pantalla o consumidor usa la suya.
+ */
+public class VistaDisponibilidad {
+    private static final int ASIENTOS_POR_FILA = 50; // Asientos por línea de la grilla
+    private static final char LIBRE = '.';           // Marca de asiento disponible en la grilla
+    private static final char OCUPADO = 'X';         // Marca de asiento ocupado en la grilla
+
+    private final MotorReservas motor;   // Estado de los asientos
+    private final StringBuilder buffer;  // Buffer reutilizado para cada dibujo
+    private long version;                // Versión del estado incluida en el último dibujo
+
+    /**
+     * Constructor para inicializar la vista sobre un motor de reservas.
+     *
+     * @param motor Motor de reservas del evento.
+     */
+    public VistaDisponibilidad(MotorReservas motor) {
+        this.motor = motor;
+        this.buffer = new StringBuilder();
+    }
+
+    /**
+     * Obtiene la versión del estado incluida en el último dibujo.
+     * Se usa como punto de partida para pedir los cambios siguientes.
+     *
+     * @return Versión del último dibujo.
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Toma la versión actual del estado como punto de partida, sin dibujar nada.
+     *
+     * @return Versión actual del estado.
+     */
+    public long marcarVersion() {
+        version = motor.getVersion();
+        return version;
+    }
+
+    /**
+     * Dibuja el resumen de asientos disponibles por sección.
+     *
+     * @return Buffer con el resumen; su contenido cambia en el siguiente dibujo.
+     */
+    public CharSequence dibujarResumen() {
+        buffer.setLength(0);
+        version = motor.getVersion();
+        agregarResumen();
+        return buffer;
+    }
+
+    /**
+     * Dibuja el resumen por sección seguido de la grilla completa de asientos.
+     *
+     * @return Buffer con la disponibilidad; su contenido cambia en el siguiente dibujo.
+     */
+    public CharSequence dibujarCompleta() {
+        buffer.setLength(0);
+        // La versión se lee antes que los asientos: lo que cambie durante el dibujo aparecerá en el próximo diff
+        version = motor.getVersion();
+        agregarResumen();
+        MapaAsientos mapa = motor.getMapa();
+        int ancho = Integer.toString(mapa.getCapacidad()).length();
+        buffer.append("Asientos (").append(LIBRE).append(" disponible, ").append(OCUPADO).append(" ocupado):\n");
+        for (int id = 0; id < mapa.getCantidadSecciones(); id++) {
+            buffer.append(mapa.nombreSeccion(id)).append('\n');
+            for (int fila = mapa.inicio(id); fila < mapa.fin(id); fila += ASIENTOS_POR_FILA) {
+                agregarNumero(fila + 1, ancho);
+                buffer.append(' ');
+                int finFila = Math.min(fila + ASIENTOS_POR_FILA, mapa.fin(id));
+                for (int i = fila; i < finFila; i++) {
+                    buffer.append(motor.estaDisponible(i) ? LIBRE : OCUPADO);
+                }
+                buffer.append('\n');
+            }
+        }
+        buffer.append("--------------------------------------\n");
+        return buffer;
+    }
+
+    /**
+     * Dibuja solo los asientos que cambiaron desde una versión anterior.
+     * Si esos cambios ya no se conservan, se dibuja la disponibilidad completa.
+     *
+     * @param desde Versión de un dibujo anterior.
+     * @return Buffer con los cambios; su contenido cambia en el siguiente dibujo.
+     */
+    public CharSequence dibujarCambiosDesde(long desde) {
+        int[] cambiados = asientosCambiadosDesde(desde);
+        if (cambiados == null) {
+            return dibujarCompleta();
+        }
+        buffer.setLength(0);
+        buffer.append("----- Cambios de disponibilidad (versión ").append(desde)
+                .append(" a ").append(version).append(") -----\n");
+        if (cambiados.length == 0) {
+            buffer.append("Sin cambios.\n");
+        }
+        MapaAsientos mapa = motor.getMapa();
+        for (int indice : cambiados) {
+            buffer.append("Sección: ").append(mapa.nombreSeccion(mapa.seccionDe(indice)))
+                    .append(", Número: ").append(indice + 1)
+                    .append(motor.estaDisponible(indice) ? " (Disponible)\n" : " (Ocupado)\n");
+        }
+        buffer.append("--------------------------------------\n");
+        return buffer;
+    }
+
+    /**
+     * Obtiene los asientos que cambiaron desde una versión anterior y avanza la versión de la vista.
+     *
+     * @param desde Versión de un dibujo o consulta anterior.
+     * @return Índices de los asientos cambiados, ordenados, o null si esos cambios ya no se conservan.
+     */
+    public int[] asientosCambiadosDesde(long desde) {
+        long hasta = motor.getVersion();
+        int[] cambiados = motor.cambiosEntre(desde, hasta);
+        version = hasta;
+        return cambiados;
+    }
+
+    /**
+     * Indica si un asiento está disponible en este momento.
+     *
+     * @param indice Índice del asiento.
+     * @return true si el asiento está libre.
+     */
+    public boolean estaDisponible(int indice) {
+        return motor.estaDisponible(indice);
+    }
+
+    /**
+     * Agrega al buffer el resumen de asientos disponibles por sección.
+     */
+    private void agregarResumen() {
+        MapaAsientos mapa = motor.getMapa();
+        buffer.append("----- Disponibilidad de Asientos -----\n");
+        for (int id = 0; id < mapa.getCantidadSecciones(); id++) {
+            buffer.append("Sección: ").append(mapa.nombreSeccion(id))
+                    .append(", disponibles: ").append(motor.disponibles(id))
+                    .append(" de ").append(mapa.fin(id) - mapa.inicio(id)).append('\n');
+        }
+    }
+
+    /**
+     * Agrega un número al buffer, alineado a la derecha.
+     *
+     * @param numero Número a agregar.
+     * @param ancho  Ancho mínimo en caracteres.
+     */
+    private void agregarNumero(int numero, int ancho) {
+        for (int digitos = Integer.toString(numero).length(); digitos < ancho; digitos++) {
+            buffer.append(' ');
+        }
+        buffer.append(numero);
+    }
+}
\ No newline at end of file